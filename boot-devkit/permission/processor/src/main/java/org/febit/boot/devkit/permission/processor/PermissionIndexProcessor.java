@@ -0,0 +1,251 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.devkit.permission.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Emits the permission index read by {@code org.febit.boot.permission.PermissionAnnotationIndex}.
+ * <p>
+ * Classes using annotations meta-annotated with {@code @Permission}, at any level, are not indexed,
+ * their merged attributes are left to the reflection at runtime.
+ */
+@SupportedAnnotationTypes({
+        PermissionIndexProcessor.PERMISSION,
+        PermissionIndexProcessor.ANONYMOUS_API,
+})
+public class PermissionIndexProcessor extends AbstractProcessor {
+
+    static final String PERMISSION = "org.febit.boot.permission.Permission";
+    static final String ANONYMOUS_API = "org.febit.boot.permission.AnonymousApi";
+
+    static final String LOCATION = "META-INF/febit-boot/permission-index/";
+    static final String SUFFIX = ".idx";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        var types = new LinkedHashSet<TypeElement>();
+        for (var annotation : annotations) {
+            for (var element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.ANNOTATION_TYPE) {
+                    continue;
+                }
+                var type = element instanceof TypeElement
+                        ? (TypeElement) element
+                        : (TypeElement) element.getEnclosingElement();
+                types.add(type);
+            }
+        }
+        for (var type : types) {
+            var lines = index(type);
+            if (lines != null) {
+                write(type, lines);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns lines of index, or {@code null} if the type could not be indexed.
+     */
+    private List<String> index(TypeElement type) {
+        var lines = new ArrayList<String>();
+        var typeAnonymous = findInheritedAnonymous(type);
+        if (typeAnonymous != null) {
+            lines.add(String.join("\t", "type", "anonymous", typeAnonymous));
+        }
+        for (var element : type.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            var method = (ExecutableElement) element;
+            var key = methodKey(method);
+            for (var mirror : method.getAnnotationMirrors()) {
+                var name = annotationName(mirror);
+                if (ANONYMOUS_API.equals(name)) {
+                    lines.add(String.join("\t", "method", key, "anonymous", value(mirror, "value")));
+                } else if (PERMISSION.equals(name)) {
+                    var values = List.of(
+                            value(mirror, "module"),
+                            value(mirror, "resource"),
+                            value(mirror, "action"),
+                            value(mirror, "separator")
+                    );
+                    if (values.stream().anyMatch(PermissionIndexProcessor::isUnsafe)) {
+                        skip(type, "line breaks or tabs in @Permission");
+                        return null;
+                    }
+                    lines.add(String.join("\t", "method", key, "permission", String.join("\t", values)));
+                } else if (isComposedPermission(mirror)) {
+                    skip(type, "composed annotation " + name);
+                    return null;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void skip(TypeElement type, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "Skip permission index, falls back to reflection, cause: " + reason, type);
+    }
+
+    private void write(TypeElement type, List<String> lines) {
+        var binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        try {
+            var resource = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", LOCATION + binaryName + SUFFIX, type);
+            try (Writer writer = resource.openWriter()) {
+                writer.write("# Generated by febit-boot permission index processor, do not edit\n");
+                for (var line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write permission index: " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * As {@code Class#getAnnotation(AnonymousApi.class)}, which is {@code @Inherited}.
+     */
+    private String findInheritedAnonymous(TypeElement type) {
+        TypeElement current = type;
+        while (current != null) {
+            for (var mirror : current.getAnnotationMirrors()) {
+                if (ANONYMOUS_API.equals(annotationName(mirror))) {
+                    return value(mirror, "value");
+                }
+            }
+            var superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+        return null;
+    }
+
+    /**
+     * Whether {@link #PERMISSION} is present on the annotation type, at any level of meta-annotations.
+     */
+    private static boolean isComposedPermission(AnnotationMirror mirror) {
+        return isComposedPermission((TypeElement) mirror.getAnnotationType().asElement(), new HashSet<>());
+    }
+
+    private static boolean isComposedPermission(TypeElement annotationType, Set<String> visited) {
+        // Meta-annotations could be cyclic, e.g. @Documented on itself
+        if (!visited.add(annotationType.getQualifiedName().toString())) {
+            return false;
+        }
+        for (var meta : annotationType.getAnnotationMirrors()) {
+            if (PERMISSION.equals(annotationName(meta))) {
+                return true;
+            }
+            var metaType = (TypeElement) meta.getAnnotationType().asElement();
+            if (isComposedPermission(metaType, visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String value(AnnotationMirror mirror, String name) {
+        var values = processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (var entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return "";
+    }
+
+    private static String annotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement())
+                .getQualifiedName()
+                .toString();
+    }
+
+    private static boolean isUnsafe(String value) {
+        return value.indexOf('\t') >= 0
+                || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+    }
+
+    /**
+     * Same as {@code PermissionAnnotationIndex#methodKey(Method)}.
+     */
+    static String methodKey(ExecutableElement method) {
+        var buf = new StringBuilder(64)
+                .append(method.getSimpleName())
+                .append('(');
+        var params = method.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            if (i != 0) {
+                buf.append(',');
+            }
+            appendTypeName(buf, params.get(i).asType());
+        }
+        return buf.append(')').toString();
+    }
+
+    private static void appendTypeName(StringBuilder buf, TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY -> {
+                appendTypeName(buf, ((ArrayType) type).getComponentType());
+                buf.append("[]");
+            }
+            case DECLARED -> buf.append(qualifiedName(((DeclaredType) type).asElement()));
+            case TYPEVAR -> appendTypeName(buf, ((TypeVariable) type).getUpperBound());
+            case INTERSECTION -> appendTypeName(buf, ((IntersectionType) type).getBounds().get(0));
+            default -> buf.append(type.getKind().name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static String qualifiedName(Element element) {
+        return ((TypeElement) element).getQualifiedName().toString();
+    }
+}
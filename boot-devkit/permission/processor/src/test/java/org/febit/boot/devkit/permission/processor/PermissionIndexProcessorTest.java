@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.devkit.permission.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionIndexProcessorTest {
+
+    @TempDir
+    Path temp;
+
+    Path compile(String className, String source) throws IOException {
+        var src = temp.resolve("src");
+        var out = temp.resolve("out");
+        Files.createDirectories(src);
+        Files.createDirectories(out);
+        var file = src.resolve(className.substring(className.lastIndexOf('.') + 1) + ".java");
+        Files.writeString(file, source);
+
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var fileManager = compiler.getStandardFileManager(null, null, null);
+        var task = compiler.getTask(null, fileManager, null,
+                List.of("-proc:only", "-d", out.toString(),
+                        "-classpath", System.getProperty("java.class.path")),
+                null,
+                fileManager.getJavaFileObjects(file)
+        );
+        task.setProcessors(List.of(new PermissionIndexProcessor()));
+        assertTrue(task.call());
+        return out.resolve(PermissionIndexProcessor.LOCATION + className + PermissionIndexProcessor.SUFFIX);
+    }
+
+    @Test
+    void index() throws IOException {
+        var index = compile("demo.Api", """
+                package demo;
+
+                import org.febit.boot.permission.AnonymousApi;
+                import org.febit.boot.permission.Permission;
+
+                import java.util.List;
+
+                @AnonymousApi(false)
+                public class Api<T extends Comparable<T>> {
+
+                    @Permission(module = "shop", resource = "order", action = "read")
+                    public void read(String id, int[] ids, List<String> names, T t, Inner inner) {
+                    }
+
+                    @AnonymousApi
+                    public void open() {
+                    }
+
+                    public void none() {
+                    }
+
+                    public static class Inner {
+                    }
+                }
+                """);
+
+        var lines = Files.readAllLines(index).stream()
+                .filter(line -> !line.startsWith("#"))
+                .toList();
+        var key = "read(java.lang.String,int[],java.util.List,java.lang.Comparable,demo.Api.Inner)";
+        assertEquals(List.of(
+                "type\tanonymous\tfalse",
+                "method\t" + key + "\tpermission\tshop\torder\tread\t:",
+                "method\topen()\tanonymous\ttrue"
+        ), lines);
+    }
+
+    @Test
+    void composed() throws IOException {
+        var index = compile("demo.Composed", """
+                package demo;
+
+                import org.febit.boot.permission.Permission;
+
+                import java.lang.annotation.Retention;
+                import java.lang.annotation.RetentionPolicy;
+
+                public class Composed {
+
+                    @Retention(RetentionPolicy.RUNTIME)
+                    @Permission(module = "shop", resource = "order")
+                    @interface OrderPermission {
+                    }
+
+                    @OrderPermission
+                    public void composed() {
+                    }
+
+                    @Permission(resource = "foo")
+                    public void direct() {
+                    }
+                }
+                """);
+        assertFalse(Files.exists(index));
+    }
+
+    @Test
+    void composedNested() throws IOException {
+        var index = compile("demo.Nested", """
+                package demo;
+
+                import org.febit.boot.permission.Permission;
+
+                import java.lang.annotation.Documented;
+                import java.lang.annotation.Retention;
+                import java.lang.annotation.RetentionPolicy;
+
+                public class Nested {
+
+                    @Documented
+                    @Retention(RetentionPolicy.RUNTIME)
+                    @Permission(module = "shop", resource = "order")
+                    @interface OrderPermission {
+                    }
+
+                    @Documented
+                    @Retention(RetentionPolicy.RUNTIME)
+                    @OrderPermission
+                    @interface ReadOrder {
+                    }
+
+                    @ReadOrder
+                    public void nested() {
+                    }
+
+                    @Permission(resource = "foo")
+                    public void direct() {
+                    }
+                }
+                """);
+        assertFalse(Files.exists(index));
+    }
+}
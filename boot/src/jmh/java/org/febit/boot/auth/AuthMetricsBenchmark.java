@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.febit.boot.auth.component.WebAuthHandlerImpl;
+import org.febit.boot.auth.web.WebRequestAuthSubjectResolver;
+import org.febit.boot.permission.PermissionIndex;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.lang.protocol.IResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link AuthMetrics} around {@link WebAuthHandlerImpl#verify}.
+ * <p>
+ * Run with {@code -prof gc} to compare allocations, {@code noop} should match the uninstrumented path.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthMetricsBenchmark {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+    static final AuthSubject SUBJECT = () -> "bench";
+
+    @Param({"noop", "micrometer"})
+    public String metrics;
+
+    private WebAuthHandlerImpl<AuthSubject> handler;
+    private ServletWebRequest request;
+    private Method method;
+
+    public void target() {
+        // as the handler method
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        var index = PermissionIndex.of(List.of(FOO));
+        var permission = ResolvedPermission.allow(List.of(FOO)).withMask(index);
+        var manager = new PermissionManager() {
+            @Override
+            public ResolvedPermission getPermission(Method method) {
+                return permission;
+            }
+
+            @Override
+            public List<PermissionItem> getAllPermissionItems() {
+                return List.of(FOO);
+            }
+
+            @Override
+            public PermissionIndex getPermissionIndex() {
+                return index;
+            }
+        };
+        WebRequestAuthSubjectResolver<AuthSubject> resolver = req -> Optional.of(SUBJECT);
+        var authMetrics = "micrometer".equals(metrics)
+                ? MicrometerAuthMetrics.create(new SimpleMeterRegistry(), 200, manager::getPermissionIndex)
+                : AuthMetrics.NOOP;
+
+        this.handler = new WebAuthHandlerImpl<>(manager, (auth, items) -> true, resolver, authMetrics);
+        this.request = new ServletWebRequest(new MockHttpServletRequest());
+        this.method = AuthMetricsBenchmark.class.getMethod("target");
+    }
+
+    @Benchmark
+    public IResponse<AuthSubject> verify() {
+        return handler.verify(request, method);
+    }
+}
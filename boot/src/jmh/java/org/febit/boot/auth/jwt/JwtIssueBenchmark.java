@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing tokens, {@link JwtIssuer} against plain nimbus usage with a shared signer.
+ * <p>
+ * Run with {@code -prof gc} to compare allocations per token.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtIssueBenchmark {
+
+    static final int BATCH = 100;
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    private JWSSigner signer;
+    private JWSAlgorithm jwsAlgorithm;
+    private JwtIssuer issuer;
+    private List<String> subjects;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (algorithm) {
+            case "HS256" -> {
+                var secret = new byte[32];
+                new SecureRandom().nextBytes(secret);
+                signer = new MACSigner(secret);
+                jwsAlgorithm = JWSAlgorithm.HS256;
+            }
+            case "ES256" -> {
+                var generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                signer = new ECDSASigner((ECPrivateKey) generator.generateKeyPair().getPrivate());
+                jwsAlgorithm = JWSAlgorithm.ES256;
+            }
+            default -> throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        }
+        issuer = JwtIssuer.builder(signer, jwsAlgorithm)
+                .keyId("bench")
+                .issuer("febit")
+                .audience("api")
+                .build();
+        subjects = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            subjects.add("user-" + i);
+        }
+    }
+
+    @Benchmark
+    public String nimbus() throws Exception {
+        return nimbus("user-0");
+    }
+
+    @Benchmark
+    public String issuer() throws Exception {
+        return issuer.issue("user-0");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<String> nimbusBatch() throws Exception {
+        var tokens = new ArrayList<String>(BATCH);
+        for (var subject : subjects) {
+            tokens.add(nimbus(subject));
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<String> issuerBatch() throws Exception {
+        return issuer.issueAll(subjects);
+    }
+
+    private String nimbus(String subject) throws Exception {
+        var now = Instant.now();
+        var claims = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .jwtID(JwtIssuer.randomTokenId())
+                .issuer("febit")
+                .audience("api")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .build();
+        var header = new JWSHeader.Builder(jwsAlgorithm)
+                .type(JOSEObjectType.JWT)
+                .keyID("bench")
+                .build();
+        var jwt = new SignedJWT(header, claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+}
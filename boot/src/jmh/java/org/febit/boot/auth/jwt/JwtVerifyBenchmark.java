@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.febit.boot.auth.AuthSubject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of verifying tokens per algorithm.
+ * <p>
+ * {@code naive} builds a verifier and parses the token per call, as hand-written resolvers do;
+ * {@code shared} reuses the verifier of key;
+ * {@code resolver} goes through {@link JwtAuthSubjectResolver}, served by the verified token cache.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtVerifyBenchmark {
+
+    static final String KEY_ID = "bench";
+
+    @Param({"HS256", "RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private String token;
+    private JWSVerifier verifier;
+    private VerifierFactory factory;
+    private JwtAuthSubjectResolver<AuthSubject> resolver;
+
+    @Setup
+    public void setup() throws Exception {
+        var claims = new JWTClaimsSet.Builder()
+                .subject("bench")
+                .expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+                .build();
+        switch (algorithm) {
+            case "HS256" -> {
+                var secret = new byte[32];
+                new SecureRandom().nextBytes(secret);
+                token = sign(JWSAlgorithm.HS256, claims, new MACSigner(secret));
+                factory = () -> new MACVerifier(secret);
+            }
+            case "RS256" -> {
+                var generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                var pair = generator.generateKeyPair();
+                token = sign(JWSAlgorithm.RS256, claims, new RSASSASigner(pair.getPrivate()));
+                factory = () -> new RSASSAVerifier((RSAPublicKey) pair.getPublic());
+            }
+            case "ES256" -> {
+                var generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                var pair = generator.generateKeyPair();
+                token = sign(JWSAlgorithm.ES256, claims, new ECDSASigner((ECPrivateKey) pair.getPrivate()));
+                factory = () -> new ECDSAVerifier((ECPublicKey) pair.getPublic());
+            }
+            case "EdDSA" -> {
+                var pair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+                var header = new JWSHeader.Builder(JWSAlgorithm.EdDSA).keyID(KEY_ID).build();
+                var signingInput = header.toBase64URL() + "." + Base64URL.encode(claims.toString());
+                var signer = Signature.getInstance("Ed25519");
+                signer.initSign(pair.getPrivate());
+                signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+                token = signingInput + "." + Base64URL.encode(signer.sign());
+                factory = () -> EdDsaVerifier.create(pair.getPublic());
+            }
+            default -> throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        }
+        verifier = factory.create();
+        var keySource = StaticJwtKeySource.builder()
+                .key(KEY_ID, verifier)
+                .build();
+        resolver = JwtAuthSubjectResolver.<AuthSubject>builder(keySource, c -> c::getSubject)
+                .build();
+    }
+
+    private static String sign(
+            JWSAlgorithm algorithm, JWTClaimsSet claims, JWSSigner signer
+    ) throws Exception {
+        var jwt = new SignedJWT(new JWSHeader.Builder(algorithm).keyID(KEY_ID).build(), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    @Benchmark
+    public boolean naive() throws Exception {
+        var jwt = SignedJWT.parse(token);
+        return jwt.verify(factory.create())
+                && jwt.getJWTClaimsSet().getSubject() != null;
+    }
+
+    @Benchmark
+    public boolean shared() throws Exception {
+        var jwt = SignedJWT.parse(token);
+        return jwt.verify(verifier)
+                && jwt.getJWTClaimsSet().getSubject() != null;
+    }
+
+    @Benchmark
+    public Optional<AuthSubject> resolver() {
+        return resolver.resolve(token);
+    }
+
+    @FunctionalInterface
+    private interface VerifierFactory {
+
+        JWSVerifier create() throws Exception;
+    }
+}
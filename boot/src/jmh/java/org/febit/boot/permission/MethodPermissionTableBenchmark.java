@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lookup cost of {@link MethodPermissionTable} against the former {@link ConcurrentHashMap} mapping.
+ * <p>
+ * Handler methods are borrowed from {@code java.base}, to get 5k real {@link Method} instances.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MethodPermissionTableBenchmark {
+
+    static final int METHODS = 5000;
+
+    private Method[] lookups;
+    private Map<Method, ResolvedPermission> concurrentMap;
+    private MethodPermissionTable table;
+
+    static List<Method> collectMethods(int limit) throws Exception {
+        var methods = new ArrayList<Method>(limit);
+        var jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        var root = jrt.getPath("/modules/java.base");
+        List<Path> classFiles;
+        try (Stream<Path> stream = Files.walk(root.resolve("java"))) {
+            classFiles = stream
+                    .filter(path -> path.toString().endsWith(".class"))
+                    .sorted()
+                    .toList();
+        }
+        for (var path : classFiles) {
+            var name = root.relativize(path).toString();
+            if (name.endsWith("module-info.class") || name.endsWith("package-info.class")) {
+                continue;
+            }
+            Method[] declared;
+            try {
+                var cls = Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, null);
+                declared = cls.getDeclaredMethods();
+            } catch (Throwable ignore) {
+                continue;
+            }
+            for (var method : declared) {
+                methods.add(method);
+                if (methods.size() == limit) {
+                    return methods;
+                }
+            }
+        }
+        throw new IllegalStateException("Not enough methods in java.base, found: " + methods.size());
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        var methods = collectMethods(METHODS);
+        var builder = MethodPermissionTable.builder();
+        this.concurrentMap = new ConcurrentHashMap<>(256);
+        for (int i = 0; i < methods.size(); i++) {
+            var method = methods.get(i);
+            var permission = ResolvedPermission.allow(List.of(
+                    new PermissionItem("res" + (i % 300) + ":read", "", "res" + (i % 300), "read")
+            ));
+            builder.put(method, permission);
+            this.concurrentMap.put(method, permission);
+        }
+        this.table = builder.build();
+
+        var shuffled = new ArrayList<>(methods);
+        Collections.shuffle(shuffled, new Random(42));
+        this.lookups = shuffled.toArray(new Method[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(METHODS)
+    public void concurrentMap(Blackhole blackhole) {
+        var map = this.concurrentMap;
+        for (var method : lookups) {
+            blackhole.consume(map.getOrDefault(method, ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(METHODS)
+    public void table(Blackhole blackhole) {
+        var snapshot = this.table;
+        for (var method : lookups) {
+            blackhole.consume(snapshot.get(method, ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE));
+        }
+    }
+}
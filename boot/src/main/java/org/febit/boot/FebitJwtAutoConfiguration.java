@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jwt.SignedJWT;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.jwt.JwtAuthSubjectResolver;
+import org.febit.boot.auth.jwt.JwtKeySource;
+import org.febit.boot.auth.jwt.JwtSubjectMapper;
+import org.febit.boot.auth.web.WebRequestAuthSubjectResolver;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers {@link JwtAuthSubjectResolver}, once both {@link JwtKeySource} and {@link JwtSubjectMapper}
+ * are provided by the application, and no other subject resolver is present.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass({
+        SignedJWT.class,
+        Caffeine.class
+})
+@ConditionalOnWebApplication(
+        type = ConditionalOnWebApplication.Type.SERVLET
+)
+public class FebitJwtAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean({
+            JwtKeySource.class,
+            JwtSubjectMapper.class
+    })
+    @ConditionalOnMissingBean(WebRequestAuthSubjectResolver.class)
+    public <T extends AuthSubject> JwtAuthSubjectResolver<T> jwtAuthSubjectResolver(
+            JwtKeySource keySource,
+            JwtSubjectMapper<T> subjectMapper
+    ) {
+        return JwtAuthSubjectResolver.builder(keySource, subjectMapper)
+                .build();
+    }
+}
@@ -22,4 +22,5 @@ public class AuthConstants {
 
     public static final String ATTR_AUTH = "__FEBIT_BOOT_AUTH";
     public static final String ATTR_AUTH_ID = "__FEBIT_BOOT_AUTH_ID";
+    public static final String ATTR_AUTH_DEFERRED = "__FEBIT_BOOT_AUTH_DEFERRED";
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.util.AuthErrors;
+import org.febit.lang.protocol.IResponse;
+
+/**
+ * Metrics of auth verification.
+ * <p>
+ * Callers skip timing at all if not {@link #isEnabled()}, so that {@link #NOOP} costs nothing.
+ */
+public interface AuthMetrics {
+
+    AuthMetrics NOOP = new AuthMetrics() {
+    };
+
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Record a subject resolution.
+     *
+     * @param nanos elapsed time in nanoseconds
+     * @param found whether a subject is resolved
+     */
+    default void recordResolve(long nanos, boolean found) {
+        // no-op
+    }
+
+    /**
+     * Record a verification, including the subject resolution if any.
+     *
+     * @param nanos      elapsed time in nanoseconds
+     * @param permission the permission of handler
+     * @param outcome    outcome
+     */
+    default void recordVerify(long nanos, ResolvedPermission permission, Outcome outcome) {
+        // no-op
+    }
+
+    enum Outcome {
+        ALLOWED,
+        UNAUTHORIZED,
+        FORBIDDEN,
+        THROTTLED,
+        ;
+
+        public static Outcome of(IResponse<?> result) {
+            if (!result.isFailed()) {
+                return ALLOWED;
+            }
+            var code = result.getCode();
+            if (AuthErrors.UNAUTHORIZED.name().equals(code)) {
+                return UNAUTHORIZED;
+            }
+            if (AuthErrors.TOO_MANY_REQUESTS.name().equals(code)) {
+                return THROTTLED;
+            }
+            return FORBIDDEN;
+        }
+    }
+}
@@ -15,13 +15,29 @@
  */
 package org.febit.boot.auth;
 
+import jakarta.annotation.Nullable;
+
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @FunctionalInterface
 public interface AuthSupplier<T extends AuthSubject> {
 
     Optional<T> get();
 
+    /**
+     * Captures the subject of the current thread, to be resolved later, maybe on another thread.
+     * <p>
+     * By default, resolved now, suppliers of deferred subjects should capture them unresolved.
+     *
+     * @return {@code null} if no subject
+     */
+    @Nullable
+    default Supplier<Optional<T>> capture() {
+        var auth = get();
+        return auth.isPresent() ? () -> auth : null;
+    }
+
     default String getSupplierName() {
         return getClass().getSimpleName();
     }
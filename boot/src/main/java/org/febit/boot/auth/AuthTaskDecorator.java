@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Propagates the subject of the submitting thread to tasks.
+ * <p>
+ * Captures from the source supplier, e.g. {@code RequestAttributeAuthSupplier},
+ * and binds to the target scoped supplier while running in the worker.
+ * Deferred subjects are captured unresolved, and resolved in the worker on demand,
+ * by {@link ScopedAuthSupplier#scopedDeferred(java.util.function.Supplier, Runnable)}.
+ * Tasks submitted without a subject are returned as is.
+ *
+ * @see AuthSupplier#capture()
+ *
+ * @see AuthThreadLocalAccessor
+ */
+@RequiredArgsConstructor(staticName = "create")
+public class AuthTaskDecorator<T extends AuthSubject> implements TaskDecorator {
+
+    private final AuthSupplier<? extends T> source;
+    private final ScopedAuthSupplier<T> target;
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        var captured = source.capture();
+        if (captured == null) {
+            return runnable;
+        }
+        return () -> target.scopedDeferred(() -> captured.get().map(auth -> auth), runnable);
+    }
+}
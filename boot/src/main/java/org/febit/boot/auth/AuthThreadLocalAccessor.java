@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Integrates auth subject with Micrometer context-propagation, e.g. Reactor and {@code ContextExecutorService}.
+ * <p>
+ * Captures from the source supplier, restores to the target thread-local supplier.
+ * Register it by {@code ContextRegistry.getInstance().registerThreadLocalAccessor(accessor)}.
+ * <p>
+ * NOTE: requires {@code io.micrometer:context-propagation}.
+ */
+@RequiredArgsConstructor(staticName = "create")
+public class AuthThreadLocalAccessor<T extends AuthSubject> implements ThreadLocalAccessor<T> {
+
+    public static final String KEY = "febit.boot.auth";
+
+    private final AuthSupplier<? extends T> source;
+    private final ThreadLocalAuthSupplier<T> target;
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Nullable
+    @Override
+    public T getValue() {
+        return source.get().orElse(null);
+    }
+
+    @Override
+    public void setValue(T value) {
+        target.set(value);
+    }
+
+    @Override
+    public void setValue() {
+        target.clear();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Composite of auth suppliers, the first non-empty one wins, as {@link AuthSuppliers#get(java.util.Collection)}.
+ * <p>
+ * Within a scope opened by {@link #open(Runnable)}, usually per request by
+ * {@link org.febit.boot.auth.web.ScopedAuthFilter}, the winning subject and its supplier are memoized,
+ * so that repeated calls are a field read of the scope.
+ * Outside of scopes, suppliers are walked on every call.
+ * <p>
+ * Suppliers of {@link ScopedAuthSupplier} are cheap and could be overridden in nested scopes anytime,
+ * e.g. run-as by {@code scoped(auth, ...)}, so they are never memoized, those ahead of the memoized one
+ * are still consulted on every call.
+ * <p>
+ * NOTE: misses are not memoized, since the subject is usually bound after filters,
+ * by {@link org.febit.boot.auth.web.AuthHandlerInterceptor}.
+ * Use {@link #invalidate()} if the subject is changed in the scope, for example on logout.
+ */
+@Slf4j
+public class CompositeAuthSupplier<T extends AuthSubject> implements AuthSupplier<T> {
+
+    private final List<AuthSupplier<? extends T>> suppliers;
+    private final boolean[] scoped;
+    private final ThreadLocal<Scope<T>> holder = new ThreadLocal<>();
+
+    private CompositeAuthSupplier(List<AuthSupplier<? extends T>> suppliers) {
+        this.suppliers = suppliers;
+        this.scoped = new boolean[suppliers.size()];
+        for (int i = 0; i < scoped.length; i++) {
+            scoped[i] = suppliers.get(i) instanceof ScopedAuthSupplier;
+        }
+    }
+
+    public static <T extends AuthSubject> CompositeAuthSupplier<T> create(
+            List<? extends AuthSupplier<? extends T>> suppliers
+    ) {
+        return new CompositeAuthSupplier<>(List.copyOf(suppliers));
+    }
+
+    @SafeVarargs
+    public static <T extends AuthSubject> CompositeAuthSupplier<T> create(
+            AuthSupplier<? extends T>... suppliers
+    ) {
+        return create(List.of(suppliers));
+    }
+
+    @Override
+    public Optional<T> get() {
+        var hit = current();
+        return hit != null
+                ? hit.result
+                : Optional.empty();
+    }
+
+    /**
+     * Returns name of the supplier which provided the current subject.
+     */
+    public Optional<String> getSource() {
+        var hit = current();
+        return hit != null
+                ? Optional.of(hit.supplier.getSupplierName())
+                : Optional.empty();
+    }
+
+    @Nullable
+    private Hit<T> current() {
+        var scope = holder.get();
+        if (scope == null) {
+            return resolve(suppliers.size(), false);
+        }
+        var hit = scope.hit;
+        if (hit == null) {
+            hit = resolve(suppliers.size(), false);
+            if (hit != null && !scoped[hit.index]) {
+                scope.hit = hit;
+            }
+            return hit;
+        }
+        // Nested overrides ahead of the memoized one
+        var override = resolve(hit.index, true);
+        return override != null
+                ? override
+                : hit;
+    }
+
+    /**
+     * Drops the memoized subject of the current scope, if any.
+     */
+    public void invalidate() {
+        var scope = holder.get();
+        if (scope != null) {
+            scope.hit = null;
+        }
+    }
+
+    public void open(Runnable runnable) {
+        var original = holder.get();
+        holder.set(new Scope<>());
+        try {
+            runnable.run();
+        } finally {
+            if (original != null) {
+                holder.set(original);
+            } else {
+                holder.remove();
+            }
+        }
+    }
+
+    public <V> V open(Supplier<V> supplier) {
+        var result = new Object[1];
+        open(() -> {
+            result[0] = supplier.get();
+        });
+        @SuppressWarnings("unchecked")
+        var value = (V) result[0];
+        return value;
+    }
+
+    @Nullable
+    private Hit<T> resolve(int end, boolean scopedOnly) {
+        for (int i = 0; i < end; i++) {
+            if (scopedOnly && !scoped[i]) {
+                continue;
+            }
+            var supplier = suppliers.get(i);
+            var auth = supplier.get();
+            if (auth.isEmpty()) {
+                continue;
+            }
+            log.debug("Got auth subject supplied by [{}]", supplier.getSupplierName());
+            return new Hit<>(auth.get(), supplier, i);
+        }
+        return null;
+    }
+
+    private static final class Scope<T> {
+
+        @Nullable
+        Hit<T> hit;
+    }
+
+    private static final class Hit<T> {
+
+        final Optional<T> result;
+        final AuthSupplier<?> supplier;
+        final int index;
+
+        Hit(T auth, AuthSupplier<?> supplier, int index) {
+            this.result = Optional.of(auth);
+            this.supplier = supplier;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Nullable;
+import org.febit.boot.permission.PermissionIndex;
+import org.febit.boot.permission.ResolvedPermission;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer backed {@link AuthMetrics}.
+ * <p>
+ * Meters are registered ahead, or once per permission code, so recording only touches them.
+ * Codes beyond {@code maxCodes} are tagged as {@value #OTHER_CODE}, to bound the cardinality.
+ * <p>
+ * Given the {@link PermissionIndex}, counters of allow list items are looked up by ordinals
+ * from {@link ResolvedPermission#getMask()}, instead of by codes.
+ * <ul>
+ *     <li>{@value #RESOLVE}: timer, tagged by {@code found}</li>
+ *     <li>{@value #VERIFY}: timer, tagged by {@code outcome}</li>
+ *     <li>{@value #DECISIONS}: counter, tagged by {@code type} and {@code outcome}</li>
+ *     <li>{@value #PERMISSIONS}: counter of allow list items, tagged by {@code code} and {@code outcome}</li>
+ * </ul>
+ */
+public final class MicrometerAuthMetrics implements AuthMetrics {
+
+    public static final String RESOLVE = "febit.auth.resolve";
+    public static final String VERIFY = "febit.auth.verify";
+    public static final String DECISIONS = "febit.auth.decisions";
+    public static final String PERMISSIONS = "febit.auth.permissions";
+
+    public static final String OTHER_CODE = "_other";
+
+    private static final int DEFAULT_MAX_CODES = 200;
+
+    private static final ResolvedPermission.Type[] TYPES = ResolvedPermission.Type.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final MeterRegistry registry;
+    private final int maxCodes;
+
+    private final Timer resolveFound;
+    private final Timer resolveAbsent;
+    private final Timer[] verifyTimers;
+    private final Counter[][] decisions;
+    private final Counter[] otherCodes;
+    private final Map<String, Counter[]> codes = new ConcurrentHashMap<>();
+
+    @Nullable
+    private final Supplier<PermissionIndex> index;
+    /**
+     * Counters of codes by ordinals, grown on demand, copy-on-write.
+     */
+    private volatile Counter[][] ordinals = new Counter[0][];
+
+    private MicrometerAuthMetrics(MeterRegistry registry, int maxCodes, @Nullable Supplier<PermissionIndex> index) {
+        this.registry = registry;
+        this.maxCodes = maxCodes;
+        this.index = index;
+
+        this.resolveFound = Timer.builder(RESOLVE)
+                .tag("found", "true")
+                .register(registry);
+        this.resolveAbsent = Timer.builder(RESOLVE)
+                .tag("found", "false")
+                .register(registry);
+
+        this.verifyTimers = new Timer[OUTCOMES.length];
+        for (var outcome : OUTCOMES) {
+            this.verifyTimers[outcome.ordinal()] = Timer.builder(VERIFY)
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry);
+        }
+
+        this.decisions = new Counter[TYPES.length][OUTCOMES.length];
+        for (var type : TYPES) {
+            for (var outcome : OUTCOMES) {
+                this.decisions[type.ordinal()][outcome.ordinal()] = Counter.builder(DECISIONS)
+                        .tag("type", tagValue(type))
+                        .tag("outcome", tagValue(outcome))
+                        .register(registry);
+            }
+        }
+        this.otherCodes = registerCodeCounters(OTHER_CODE);
+    }
+
+    public static MicrometerAuthMetrics create(MeterRegistry registry) {
+        return create(registry, DEFAULT_MAX_CODES);
+    }
+
+    /**
+     * @param maxCodes max count of distinct {@code code} tags
+     */
+    public static MicrometerAuthMetrics create(MeterRegistry registry, int maxCodes) {
+        return new MicrometerAuthMetrics(registry, maxCodes, null);
+    }
+
+    /**
+     * @param maxCodes max count of distinct {@code code} tags
+     * @param index    index of masks, for example {@code PermissionManager::getPermissionIndex}
+     */
+    public static MicrometerAuthMetrics create(
+            MeterRegistry registry, int maxCodes, Supplier<PermissionIndex> index
+    ) {
+        return new MicrometerAuthMetrics(registry, maxCodes, index);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordResolve(long nanos, boolean found) {
+        (found ? resolveFound : resolveAbsent)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordVerify(long nanos, ResolvedPermission permission, Outcome outcome) {
+        var o = outcome.ordinal();
+        verifyTimers[o].record(nanos, TimeUnit.NANOSECONDS);
+        decisions[permission.getType().ordinal()][o].increment();
+
+        var mask = permission.getMask();
+        if (mask != null && index != null) {
+            for (int w = 0; w < mask.length; w++) {
+                var word = mask[w];
+                while (word != 0) {
+                    ordinalCounters((w << 6) + Long.numberOfTrailingZeros(word))[o].increment();
+                    word &= word - 1;
+                }
+            }
+            return;
+        }
+        var items = permission.getItems();
+        for (int i = 0, len = items.size(); i < len; i++) {
+            codeCounters(items.get(i).code())[o].increment();
+        }
+    }
+
+    private Counter[] ordinalCounters(int ordinal) {
+        var current = ordinals;
+        if (ordinal < current.length) {
+            var counters = current[ordinal];
+            if (counters != null) {
+                return counters;
+            }
+        }
+        return registerOrdinalCounters(ordinal);
+    }
+
+    private synchronized Counter[] registerOrdinalCounters(int ordinal) {
+        var current = ordinals;
+        if (ordinal < current.length && current[ordinal] != null) {
+            return current[ordinal];
+        }
+        var items = Objects.requireNonNull(index).get().getItems();
+        var counters = ordinal < items.size()
+                ? codeCounters(items.get(ordinal).code())
+                : otherCodes;
+        var next = Arrays.copyOf(current, Math.max(current.length, ordinal + 1));
+        next[ordinal] = counters;
+        ordinals = next;
+        return counters;
+    }
+
+    private Counter[] codeCounters(String code) {
+        var counters = codes.get(code);
+        if (counters != null) {
+            return counters;
+        }
+        if (codes.size() >= maxCodes) {
+            return otherCodes;
+        }
+        return codes.computeIfAbsent(code, this::registerCodeCounters);
+    }
+
+    private Counter[] registerCodeCounters(String code) {
+        var counters = new Counter[OUTCOMES.length];
+        for (var outcome : OUTCOMES) {
+            counters[outcome.ordinal()] = Counter.builder(PERMISSIONS)
+                    .tag("code", code)
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry);
+        }
+        return counters;
+    }
+}
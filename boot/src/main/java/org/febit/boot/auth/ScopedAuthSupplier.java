@@ -0,0 +1,45 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Auth supplier could bind a subject within a scope.
+ */
+public interface ScopedAuthSupplier<T extends AuthSubject> extends AuthSupplier<T> {
+
+    <V> V scoped(T auth, Supplier<V> supplier);
+
+    void scoped(T auth, Runnable runnable);
+
+    /**
+     * Runs within a scope of the deferred subject.
+     * <p>
+     * By default, resolved on entering the scope, suppliers may resolve it on the first demand instead.
+     *
+     * @param auth resolves the subject, should be memoized and thread-safe
+     */
+    default void scopedDeferred(Supplier<Optional<T>> auth, Runnable runnable) {
+        var resolved = auth.get();
+        if (resolved.isPresent()) {
+            scoped(resolved.get(), runnable);
+        } else {
+            runnable.run();
+        }
+    }
+}
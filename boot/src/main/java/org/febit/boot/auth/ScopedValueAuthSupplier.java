@@ -0,0 +1,294 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Auth supplier backed by {@code java.lang.ScopedValue}, with the same {@code scoped} semantics
+ * as {@link ThreadLocalAuthSupplier}.
+ * <p>
+ * {@code ScopedValue} is final since Java 25, as the baseline of this library is Java 17,
+ * it's bound by method handles at runtime, falls back to a thread-local if not supported.
+ * <p>
+ * Besides {@code scoped(auth, ...)}, {@link #open(Runnable)} opens a scope without subject,
+ * which could be bound once later in the same scope, by {@link #bind(AuthSubject)} or {@link #bindDeferred(Supplier)}.
+ * <p>
+ * Each scope holds its own subject, nested scopes never change the outer ones.
+ * Only the thread opened the scope could bind it, subtasks forked in the scope see the subject, but can't rebind.
+ */
+@Slf4j
+public class ScopedValueAuthSupplier<T extends AuthSubject> implements ScopedAuthSupplier<T> {
+
+    private final Slot<Scope<T>> slot = Handles.SUPPORTED
+            ? new ScopedValueSlot<>()
+            : new ThreadLocalSlot<>();
+
+    public static boolean isScopedValueSupported() {
+        return Handles.SUPPORTED;
+    }
+
+    @Override
+    public Optional<T> get() {
+        var scope = slot.get();
+        return scope != null
+                ? scope.subject.get()
+                : Optional.empty();
+    }
+
+    @Override
+    public <V> V scoped(T auth, Supplier<V> supplier) {
+        var result = new Object[1];
+        slot.run(Scope.bound(auth), () -> result[0] = supplier.get());
+        @SuppressWarnings("unchecked")
+        var value = (V) result[0];
+        return value;
+    }
+
+    @Override
+    public void scoped(T auth, Runnable runnable) {
+        slot.run(Scope.bound(auth), runnable);
+    }
+
+    /**
+     * Runs within a scope of the deferred subject, resolved on the first demand of any thread in the scope.
+     */
+    @Override
+    public void scopedDeferred(Supplier<Optional<T>> auth, Runnable runnable) {
+        slot.run(Scope.deferred(auth), runnable);
+    }
+
+    /**
+     * Opens a scope without subject.
+     *
+     * @see #bind(AuthSubject)
+     * @see #bindDeferred(Supplier)
+     */
+    public void open(Runnable runnable) {
+        slot.run(Scope.open(), runnable);
+    }
+
+    /**
+     * Binds the subject to the current scope opened by {@link #open(Runnable)}.
+     *
+     * @return {@code false} if no scope opened, the current scope is already bound, or opened by another thread
+     */
+    public boolean bind(T auth) {
+        return bind(Scope.constant(Optional.of(auth)));
+    }
+
+    /**
+     * Binds a deferred subject to the current scope opened by {@link #open(Runnable)},
+     * resolved on the first demand of any thread in the scope.
+     *
+     * @param subject resolves the subject, should be memoized and thread-safe
+     * @return {@code false} if no scope opened, the current scope is already bound, or opened by another thread
+     */
+    public boolean bindDeferred(Supplier<Optional<T>> subject) {
+        return bind(subject);
+    }
+
+    private boolean bind(Supplier<Optional<T>> subject) {
+        var scope = slot.get();
+        if (scope == null || !scope.isBindable()) {
+            return false;
+        }
+        scope.subject = subject;
+        return true;
+    }
+
+    private static final class Scope<T> {
+
+        private static final Supplier<?> UNBOUND = Optional::empty;
+
+        /**
+         * The thread could bind this scope once, {@code null} if bound on creation.
+         */
+        @Nullable
+        private final Thread owner;
+        private volatile Supplier<Optional<T>> subject;
+
+        private Scope(@Nullable Thread owner, Supplier<Optional<T>> subject) {
+            this.owner = owner;
+            this.subject = subject;
+        }
+
+        static <T> Scope<T> bound(T auth) {
+            return new Scope<>(null, constant(Optional.of(auth)));
+        }
+
+        static <T> Scope<T> deferred(Supplier<Optional<T>> subject) {
+            return new Scope<>(null, subject);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Scope<T> open() {
+            return new Scope<>(Thread.currentThread(), (Supplier<Optional<T>>) (Supplier<?>) UNBOUND);
+        }
+
+        static <T> Supplier<Optional<T>> constant(Optional<T> auth) {
+            return () -> auth;
+        }
+
+        boolean isBindable() {
+            return owner == Thread.currentThread() && subject == UNBOUND;
+        }
+    }
+
+    private interface Slot<V> {
+
+        @Nullable
+        V get();
+
+        void run(V value, Runnable runnable);
+    }
+
+    private static final class ThreadLocalSlot<V> implements Slot<V> {
+
+        private final ThreadLocal<V> holder = new ThreadLocal<>();
+
+        @Nullable
+        @Override
+        public V get() {
+            return holder.get();
+        }
+
+        @Override
+        public void run(V value, Runnable runnable) {
+            var original = holder.get();
+            holder.set(value);
+            try {
+                runnable.run();
+            } finally {
+                if (original != null) {
+                    holder.set(original);
+                } else {
+                    holder.remove();
+                }
+            }
+        }
+    }
+
+    private static final class ScopedValueSlot<V> implements Slot<V> {
+
+        private final Object scopedValue = Handles.newInstance();
+
+        @Nullable
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get() {
+            return (V) Handles.getIfBound(scopedValue);
+        }
+
+        @Override
+        public void run(V value, Runnable runnable) {
+            Handles.run(scopedValue, value, runnable);
+        }
+    }
+
+    private static final class Handles {
+
+        static final boolean SUPPORTED;
+
+        private static final MethodHandle NEW_INSTANCE;
+        private static final MethodHandle WHERE;
+        private static final MethodHandle RUN;
+        private static final MethodHandle IS_BOUND;
+        private static final MethodHandle GET;
+
+        static {
+            MethodHandle newInstance = null;
+            MethodHandle where = null;
+            MethodHandle run = null;
+            MethodHandle isBound = null;
+            MethodHandle get = null;
+            boolean supported = false;
+            if (Runtime.version().feature() >= 25) {
+                try {
+                    var type = Class.forName("java.lang.ScopedValue");
+                    var carrier = Class.forName("java.lang.ScopedValue$Carrier");
+                    var lookup = MethodHandles.publicLookup();
+                    newInstance = lookup.findStatic(type, "newInstance", methodType(type))
+                            .asType(methodType(Object.class));
+                    where = lookup.findStatic(type, "where", methodType(carrier, type, Object.class))
+                            .asType(methodType(Object.class, Object.class, Object.class));
+                    run = lookup.findVirtual(carrier, "run", methodType(void.class, Runnable.class))
+                            .asType(methodType(void.class, Object.class, Runnable.class));
+                    isBound = lookup.findVirtual(type, "isBound", methodType(boolean.class))
+                            .asType(methodType(boolean.class, Object.class));
+                    get = lookup.findVirtual(type, "get", methodType(Object.class))
+                            .asType(methodType(Object.class, Object.class));
+                    supported = true;
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    log.warn("ScopedValue is not available, fallback to thread-local.", e);
+                }
+            }
+            NEW_INSTANCE = newInstance;
+            WHERE = where;
+            RUN = run;
+            IS_BOUND = isBound;
+            GET = get;
+            SUPPORTED = supported;
+        }
+
+        static Object newInstance() {
+            try {
+                return (Object) NEW_INSTANCE.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Nullable
+        static Object getIfBound(Object scopedValue) {
+            try {
+                if (!(boolean) IS_BOUND.invokeExact(scopedValue)) {
+                    return null;
+                }
+                return (Object) GET.invokeExact(scopedValue);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        static void run(Object scopedValue, Object value, Runnable runnable) {
+            try {
+                var carrier = (Object) WHERE.invokeExact(scopedValue, value);
+                RUN.invokeExact(carrier, runnable);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        private static RuntimeException rethrow(Throwable e) {
+            if (e instanceof RuntimeException runtimeException) {
+                return runtimeException;
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+            return new IllegalStateException(e);
+        }
+    }
+}
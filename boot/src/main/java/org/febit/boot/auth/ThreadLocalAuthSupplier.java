@@ -20,7 +20,7 @@ import jakarta.annotation.Nullable;
 import java.util.Optional;
 import java.util.function.Supplier;
 
-public class ThreadLocalAuthSupplier<T extends AuthSubject> implements AuthSupplier<T> {
+public class ThreadLocalAuthSupplier<T extends AuthSubject> implements ScopedAuthSupplier<T> {
 
     private final ThreadLocal<T> holder = new ThreadLocal<>();
 
@@ -37,6 +37,7 @@ public class ThreadLocalAuthSupplier<T extends AuthSubject> implements AuthSuppl
         holder.remove();
     }
 
+    @Override
     public <V> V scoped(T auth, Supplier<V> supplier) {
         var original = holder.get();
         set(auth);
@@ -47,6 +48,7 @@ public class ThreadLocalAuthSupplier<T extends AuthSubject> implements AuthSuppl
         }
     }
 
+    @Override
     public void scoped(T auth, Runnable runnable) {
         var original = holder.get();
         set(auth);
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers audit events in a bounded ring, drained in batches to {@link AuthAuditSink} by a background thread.
+ * <p>
+ * On overflow, events are dropped or the request thread blocks, see {@link OverflowPolicy}.
+ * Counters of dropped, written and failed events are exposed for metrics.
+ */
+@Slf4j
+public class AsyncAuthAuditor implements AuthAuditor, SmartLifecycle {
+
+    private static final long POLL_TIMEOUT_MILLIS = 500;
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final AuthAuditSink sink;
+    private final BlockingQueue<AuthAuditEvent> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread drainer;
+
+    private AsyncAuthAuditor(Builder builder) {
+        this.sink = builder.sink;
+        this.capacity = builder.capacity;
+        this.queue = new ArrayBlockingQueue<>(builder.capacity);
+        this.batchSize = builder.batchSize;
+        this.overflowPolicy = builder.overflowPolicy;
+    }
+
+    public static Builder builder(AuthAuditSink sink) {
+        return new Builder(sink);
+    }
+
+    @Override
+    public void audit(AuthAuditEvent event) {
+        if (overflowPolicy == OverflowPolicy.DROP || !running) {
+            if (!queue.offer(event)) {
+                dropped.increment();
+            }
+            return;
+        }
+        try {
+            while (!queue.offer(event, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!running) {
+                    dropped.increment();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        var thread = new Thread(this::drainLoop, "febit-auth-audit");
+        thread.setDaemon(true);
+        thread.start();
+        this.drainer = thread;
+    }
+
+    /**
+     * Stop the drainer, then flush the buffered events.
+     * <p>
+     * The drainer is never interrupted, it finishes the batch in writing and exits within a poll timeout.
+     * Remaining events are flushed by the stopping thread after join, unless the drainer is stuck in writing.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        var thread = this.drainer;
+        this.drainer = null;
+        if (thread == null) {
+            return;
+        }
+        var interrupted = false;
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        try {
+            if (thread.isAlive()) {
+                log.warn("Audit drainer not stopped in time, left in buffer: {}", queue.size());
+                return;
+            }
+            // Flush with interrupt flag cleared, sinks may abort on it
+            interrupted |= Thread.interrupted();
+            var batch = new ArrayList<AuthAuditEvent>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                flush(batch);
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    private void drainLoop() {
+        var batch = new ArrayList<AuthAuditEvent>(batchSize);
+        while (running) {
+            try {
+                var first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(ArrayList<AuthAuditEvent> batch) {
+        try {
+            sink.write(List.copyOf(batch));
+            written.add(batch.size());
+        } catch (Exception e) {
+            failed.add(batch.size());
+            log.error("Failed to write audit events, lost: {}", batch.size(), e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Drop the event and count it, never blocks requests.
+         */
+        DROP,
+        /**
+         * Block the request thread until space is available.
+         */
+        BLOCK,
+    }
+
+    public static class Builder {
+
+        private final AuthAuditSink sink;
+        private int capacity = 8192;
+        private int batchSize = 256;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        private Builder(AuthAuditSink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Capacity of buffer, defaults to 8192.
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Max events per batch, defaults to 256.
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Defaults to {@link OverflowPolicy#DROP}.
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public AsyncAuthAuditor build() {
+            if (capacity < 1 || batchSize < 1) {
+                throw new IllegalArgumentException("capacity and batchSize should be positive");
+            }
+            return new AsyncAuthAuditor(this);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.audit;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import org.febit.boot.auth.AuthConstants;
+import org.febit.boot.auth.AuthMetrics;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.web.WebAuthHandler;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.lang.protocol.IResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+
+/**
+ * Decorates a {@link WebAuthHandler}, submits every decision to the {@link AuthAuditor}.
+ */
+@RequiredArgsConstructor(staticName = "create")
+public class AuditingWebAuthHandler<T extends AuthSubject> implements WebAuthHandler<T> {
+
+    private final WebAuthHandler<T> delegate;
+    private final PermissionManager permissionManager;
+    private final AuthAuditor auditor;
+
+    @Override
+    public IResponse<AuthSubject> verify(WebRequest request, Method handler) {
+        var result = delegate.verify(request, handler);
+        auditor.audit(new AuthAuditEvent(
+                subject(result, request),
+                handler,
+                permissionManager.getPermission(handler),
+                AuthMetrics.Outcome.of(result),
+                result.isFailed() ? result.getCode() : null,
+                Instant.now()
+        ));
+        return result;
+    }
+
+    @Nullable
+    private static String subject(IResponse<AuthSubject> result, WebRequest request) {
+        var auth = result.getData();
+        if (auth != null) {
+            return auth.identifier();
+        }
+        var id = request.getAttribute(AuthConstants.ATTR_AUTH_ID, RequestAttributes.SCOPE_REQUEST);
+        return id != null ? id.toString() : null;
+    }
+}
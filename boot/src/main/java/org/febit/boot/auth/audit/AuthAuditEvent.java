@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.audit;
+
+import jakarta.annotation.Nullable;
+import org.febit.boot.auth.AuthMetrics;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.ResolvedPermission;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * An access decision.
+ *
+ * @param subject    identifier of subject, {@code null} if absent
+ * @param handler    handler method
+ * @param permission permission of handler
+ * @param outcome    outcome
+ * @param code       code of the failed response, {@code null} if allowed
+ * @param timestamp  time of decision
+ */
+public record AuthAuditEvent(
+        @Nullable String subject,
+        Method handler,
+        ResolvedPermission permission,
+        AuthMetrics.Outcome outcome,
+        @Nullable String code,
+        Instant timestamp
+) {
+
+    public List<String> permissionCodes() {
+        return permission.getItems().stream()
+                .map(PermissionItem::code)
+                .toList();
+    }
+}
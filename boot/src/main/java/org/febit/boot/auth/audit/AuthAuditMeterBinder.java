@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Micrometer meters of {@link AsyncAuthAuditor}.
+ */
+@RequiredArgsConstructor(staticName = "create")
+public class AuthAuditMeterBinder implements MeterBinder {
+
+    public static final String QUEUE_DEPTH = "febit.auth.audit.queue.depth";
+    public static final String QUEUE_CAPACITY = "febit.auth.audit.queue.capacity";
+    public static final String EVENTS = "febit.auth.audit.events";
+
+    private final AsyncAuthAuditor auditor;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(QUEUE_DEPTH, auditor, AsyncAuthAuditor::getQueueDepth)
+                .register(registry);
+        Gauge.builder(QUEUE_CAPACITY, auditor, AsyncAuthAuditor::getCapacity)
+                .register(registry);
+        FunctionCounter.builder(EVENTS, auditor, AsyncAuthAuditor::getWritten)
+                .tag("result", "written")
+                .register(registry);
+        FunctionCounter.builder(EVENTS, auditor, AsyncAuthAuditor::getDropped)
+                .tag("result", "dropped")
+                .register(registry);
+        FunctionCounter.builder(EVENTS, auditor, AsyncAuthAuditor::getFailed)
+                .tag("result", "failed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.audit;
+
+import java.util.List;
+
+/**
+ * Destination of audit events, written in batches from the drainer thread.
+ * <p>
+ * Implementations are expected to write a batch at once, e.g. a multi-row insert.
+ * Batches are immutable, and could be retained after the call, e.g. for a retry later.
+ */
+@FunctionalInterface
+public interface AuthAuditSink {
+
+    void write(List<AuthAuditEvent> batch) throws Exception;
+}
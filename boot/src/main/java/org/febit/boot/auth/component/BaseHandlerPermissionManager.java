@@ -0,0 +1,205 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.Strings;
+import org.febit.boot.permission.MethodPermissionResolver;
+import org.febit.boot.permission.MethodPermissionResolvers;
+import org.febit.boot.permission.MethodPermissionTable;
+import org.febit.boot.permission.PermissionIndex;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.permission.ResolvedPermission;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Permission manager of handler methods, shared by the servlet and reactive stacks.
+ * <p>
+ * Permissions are held in an immutable {@link MethodPermissionTable} snapshot,
+ * refreshes build a new one aside and publish it by a single reference swap,
+ * lookups never block nor see a partial state.
+ * Updates are serialized, and each snapshot succeeds the previous one,
+ * so that ordinals of {@link PermissionIndex} and unchanged {@link ResolvedPermission} instances are kept.
+ */
+@Slf4j
+abstract class BaseHandlerPermissionManager implements SmartLifecycle, PermissionManager {
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    protected final ApplicationContext app;
+    private final List<MethodPermissionResolver> resolvers;
+    private final String[] ignoredPackages;
+
+    private final AtomicReference<MethodPermissionTable> table = new AtomicReference<>(MethodPermissionTable.EMPTY);
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    protected BaseHandlerPermissionManager(
+            ApplicationContext app, List<MethodPermissionResolver> resolvers, String[] ignoredPackages
+    ) {
+        this.app = app;
+        this.resolvers = resolvers;
+        this.ignoredPackages = ignoredPackages;
+    }
+
+    /**
+     * Emit all handler methods with their mappings.
+     */
+    protected abstract void scanHandlerMethods(BiConsumer<Object, HandlerMethod> consumer);
+
+    @Override
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        refresh();
+    }
+
+    /**
+     * Rescan all handler methods, and publish as a whole.
+     */
+    public void refresh() {
+        var snapshot = update(current -> {
+            var builder = current.newBuilder();
+            scanHandlerMethods((mapping, handlerMethod) -> collect(builder, mapping, handlerMethod));
+            return builder.build();
+        });
+        summary(snapshot);
+    }
+
+    /**
+     * Apply a handler method registered after start, e.g. by {@code registerMapping(...)}.
+     */
+    public void register(Object mapping, HandlerMethod handlerMethod) {
+        update(current -> {
+            var builder = current.toBuilder();
+            collect(builder, mapping, handlerMethod);
+            return builder.build();
+        });
+    }
+
+    /**
+     * Remove a handler method unregistered after start,
+     * requests to it are then {@link ResolvedPermission#FORBIDDEN_NOT_IN_CHARGE}.
+     */
+    public void unregister(Method method) {
+        update(current -> current.toBuilder()
+                .remove(method)
+                .build()
+        );
+    }
+
+    private MethodPermissionTable update(UnaryOperator<MethodPermissionTable> action) {
+        updateLock.lock();
+        try {
+            var next = action.apply(table.get());
+            table.set(next);
+            return next;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private static void summary(MethodPermissionTable snapshot) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        var permissions = snapshot.asMap().values();
+        var ignored = permissions.stream()
+                .filter(ResolvedPermission::isIgnored)
+                .count();
+        var forbidden = permissions.stream()
+                .filter(ResolvedPermission::isForbidden)
+                .count();
+        var itemsSize = permissions.stream()
+                .mapToInt(ResolvedPermission::getItemsSize)
+                .sum();
+
+        var unique = snapshot.getItems().size();
+        var methods = snapshot.size();
+        log.info("Found [{}] permissions on [{}] methods, unique [{}], ignored [{}], forbidden [{}].",
+                itemsSize, methods, unique, ignored, forbidden
+        );
+    }
+
+    /**
+     * Keeps the last snapshot, so that requests still in flight are served as before.
+     */
+    @Override
+    public void stop() {
+        this.started.set(false);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return started.get();
+    }
+
+    @Override
+    public int getPhase() {
+        // Should before than Swagger
+        return Integer.MAX_VALUE - 10;
+    }
+
+    @Override
+    public ResolvedPermission getPermission(Method method) {
+        return table.get().get(method, ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE);
+    }
+
+    @Override
+    public <V> V getAttachment(Method method, MethodPermissionTable.Attachment<V> attachment) {
+        return table.get().getAttachment(method, attachment);
+    }
+
+    @Override
+    public List<PermissionItem> getAllPermissionItems() {
+        return table.get().getItems();
+    }
+
+    @Override
+    public PermissionIndex getPermissionIndex() {
+        return table.get().getIndex();
+    }
+
+    private void collect(
+            MethodPermissionTable.Builder builder, Object mapping, HandlerMethod handlerMethod
+    ) {
+        var method = handlerMethod.getMethod();
+        if (isIgnored(handlerMethod)) {
+            log.info("Ignored permission on method [{}#{}(...)], mapping [{}]", method.getDeclaringClass(), method.getName(), mapping);
+            builder.put(method, ResolvedPermission.IGNORED);
+            return;
+        }
+        builder.put(method,
+                MethodPermissionResolvers.resolve(resolvers, method)
+        );
+    }
+
+    private boolean isIgnored(HandlerMethod handlerMethod) {
+        var className = handlerMethod.getMethod().getDeclaringClass().getName();
+        return Strings.CS.startsWithAny(className, ignoredPackages);
+    }
+}
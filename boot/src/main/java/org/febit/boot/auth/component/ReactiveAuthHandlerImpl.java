@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.component;
+
+import lombok.RequiredArgsConstructor;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.reactive.ReactiveAuthContext;
+import org.febit.boot.auth.reactive.ReactiveAuthHandler;
+import org.febit.boot.auth.reactive.ReactiveWebRequestAuthSubjectResolver;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.permission.PermissionVerifier;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.util.AuthErrors;
+import org.febit.boot.util.Priority;
+import org.febit.boot.util.RenderedErrors;
+import org.febit.lang.protocol.IResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reactive equivalent of {@link WebAuthHandlerImpl}.
+ * <p>
+ * NOTE: the subject of handlers not requiring one is always deferred, as nothing blocks on it.
+ */
+@Component
+@Order(Priority.HIGH)
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(
+        type = ConditionalOnWebApplication.Type.REACTIVE
+)
+public class ReactiveAuthHandlerImpl<T extends AuthSubject> implements ReactiveAuthHandler<T> {
+
+    private final PermissionManager permissionManager;
+    private final PermissionVerifier<T> permissionVerifier;
+    private final ReactiveWebRequestAuthSubjectResolver<T> authSubjectResolver;
+
+    @Override
+    public Mono<IResponse<AuthSubject>> verify(ServerWebExchange exchange, Method handler) {
+        var permission = this.permissionManager.getPermission(handler);
+        if (!permission.isAllowList()) {
+            ReactiveAuthContext.defer(exchange, authSubjectResolver.resolveAuth(exchange));
+            return Mono.just(verifyWithoutAuth(permission));
+        }
+        return authSubjectResolver.resolveAuth(exchange)
+                .map(auth -> {
+                    ReactiveAuthContext.store(exchange, auth);
+                    return verifyAllows(auth, permission);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() ->
+                        failed(AuthErrors.UNAUTHORIZED, AuthErrors.UNAUTHORIZED.getCode())
+                ));
+    }
+
+    private IResponse<AuthSubject> verifyWithoutAuth(ResolvedPermission permission) {
+        if (permission.isForbidden()) {
+            return failed(AuthErrors.FORBIDDEN_NO_PERMISSION, permission.getMessage());
+        }
+        return IResponse.success(null);
+    }
+
+    private IResponse<AuthSubject> verifyAllows(T auth, ResolvedPermission permission) {
+        var allowed = this.permissionVerifier.isAllow(auth, permission);
+        if (!allowed) {
+            return failed(AuthErrors.FORBIDDEN_NO_PERMISSION, AuthErrors.FORBIDDEN_NO_PERMISSION.getCode());
+        }
+        return IResponse.success(auth);
+    }
+
+    /**
+     * Pre-rendered failure, neither formatted nor logged per request.
+     */
+    private static IResponse<AuthSubject> failed(AuthErrors error, String pattern) {
+        return RenderedErrors.of(error, pattern).toResponse();
+    }
+}
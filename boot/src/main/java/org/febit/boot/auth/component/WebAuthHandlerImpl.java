@@ -15,83 +15,127 @@
  */
 package org.febit.boot.auth.component;
 
-import jakarta.annotation.Nullable;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.febit.boot.auth.AuthMetrics;
 import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.web.AuthRequestAttributes;
+import org.febit.boot.auth.web.DeferredAuthSubject;
 import org.febit.boot.auth.web.WebAuthHandler;
 import org.febit.boot.auth.web.WebRequestAuthSubjectResolver;
-import org.febit.boot.permission.PermissionItem;
 import org.febit.boot.permission.PermissionManager;
 import org.febit.boot.permission.PermissionVerifier;
+import org.febit.boot.permission.ResolvedPermission;
 import org.febit.boot.util.AuthErrors;
 import org.febit.boot.util.Priority;
+import org.febit.boot.util.RenderedErrors;
 import org.febit.lang.protocol.IResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.WebRequest;
 
 import java.lang.reflect.Method;
-import java.util.List;
-
-import static org.febit.boot.auth.AuthConstants.ATTR_AUTH;
-import static org.febit.boot.auth.AuthConstants.ATTR_AUTH_ID;
-import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+import java.util.Optional;
 
 @Slf4j
 @Component
 @Order(Priority.HIGH)
-@RequiredArgsConstructor
-@ConditionalOnWebApplication
+@ConditionalOnWebApplication(
+        type = ConditionalOnWebApplication.Type.SERVLET
+)
 public class WebAuthHandlerImpl<T extends AuthSubject> implements WebAuthHandler<T> {
 
     private final PermissionManager permissionManager;
     private final PermissionVerifier<T> permissionVerifier;
     private final WebRequestAuthSubjectResolver<T> authSubjectResolver;
+    private final AuthMetrics metrics;
+
+    public WebAuthHandlerImpl(
+            PermissionManager permissionManager,
+            PermissionVerifier<T> permissionVerifier,
+            WebRequestAuthSubjectResolver<T> authSubjectResolver,
+            AuthMetrics metrics
+    ) {
+        this.permissionManager = permissionManager;
+        this.permissionVerifier = permissionVerifier;
+        this.authSubjectResolver = authSubjectResolver;
+        this.metrics = metrics;
+    }
+
+    @Autowired
+    public WebAuthHandlerImpl(
+            PermissionManager permissionManager,
+            PermissionVerifier<T> permissionVerifier,
+            WebRequestAuthSubjectResolver<T> authSubjectResolver,
+            ObjectProvider<AuthMetrics> metrics
+    ) {
+        this(permissionManager, permissionVerifier, authSubjectResolver,
+                metrics.getIfAvailable(() -> AuthMetrics.NOOP));
+    }
 
     @Override
     public IResponse<AuthSubject> verify(WebRequest request, Method handler) {
-        var resolved = authSubjectResolver.resolveAuth(request);
-        store(request, resolved.orElse(null));
-
         var permission = this.permissionManager.getPermission(handler);
-        switch (permission.getType()) {
-            case IGNORED -> {
-                return IResponse.success(null);
-            }
-            case FORBIDDEN -> {
-                return AuthErrors.FORBIDDEN_NO_PERMISSION
-                        .response(permission.getMessage());
-            }
+        if (!metrics.isEnabled()) {
+            return verify(request, permission);
         }
+        var start = System.nanoTime();
+        var result = verify(request, permission);
+        metrics.recordVerify(System.nanoTime() - start, permission, AuthMetrics.Outcome.of(result));
+        return result;
+    }
+
+    private IResponse<AuthSubject> verify(WebRequest request, ResolvedPermission permission) {
+        if (!permission.isAllowList() && authSubjectResolver.isDeferrable()) {
+            DeferredAuthSubject.defer(request, authSubjectResolver);
+            return verifyWithoutAuth(permission);
+        }
+
+        var resolved = resolveAuth(request);
+        AuthRequestAttributes.store(request, resolved.orElse(null));
 
+        if (!permission.isAllowList()) {
+            return verifyWithoutAuth(permission);
+        }
         if (resolved.isEmpty()) {
-            return AuthErrors.UNAUTHORIZED
-                    .response(AuthErrors.UNAUTHORIZED.getCode());
+            return failed(AuthErrors.UNAUTHORIZED, AuthErrors.UNAUTHORIZED.getCode());
         }
 
         var auth = resolved.get();
-        return verifyAllows(auth, permission.getItems());
+        return verifyAllows(auth, permission);
     }
 
-    private IResponse<AuthSubject> verifyAllows(T auth, List<PermissionItem> allows) {
-        var allowed = this.permissionVerifier.isAllow(auth, allows);
-        if (!allowed) {
-            return AuthErrors.FORBIDDEN_NO_PERMISSION
-                    .response(AuthErrors.FORBIDDEN_NO_PERMISSION.getCode());
+    private Optional<T> resolveAuth(WebRequest request) {
+        if (!metrics.isEnabled()) {
+            return authSubjectResolver.resolveAuth(request);
         }
-        return IResponse.success(auth);
+        var start = System.nanoTime();
+        var resolved = authSubjectResolver.resolveAuth(request);
+        metrics.recordResolve(System.nanoTime() - start, resolved.isPresent());
+        return resolved;
+    }
+
+    private IResponse<AuthSubject> verifyWithoutAuth(ResolvedPermission permission) {
+        if (permission.isForbidden()) {
+            return failed(AuthErrors.FORBIDDEN_NO_PERMISSION, permission.getMessage());
+        }
+        return IResponse.success(null);
     }
 
-    private void store(WebRequest request, @Nullable T auth) {
-        if (auth == null) {
-            request.removeAttribute(ATTR_AUTH, SCOPE_REQUEST);
-            request.removeAttribute(ATTR_AUTH_ID, SCOPE_REQUEST);
-            return;
+    private IResponse<AuthSubject> verifyAllows(T auth, ResolvedPermission permission) {
+        var allowed = this.permissionVerifier.isAllow(auth, permission);
+        if (!allowed) {
+            return failed(AuthErrors.FORBIDDEN_NO_PERMISSION, AuthErrors.FORBIDDEN_NO_PERMISSION.getCode());
         }
-        request.setAttribute(ATTR_AUTH, auth, SCOPE_REQUEST);
-        request.setAttribute(ATTR_AUTH_ID, auth.identifier(), SCOPE_REQUEST);
+        return IResponse.success(auth);
     }
 
+    /**
+     * Pre-rendered failure, neither formatted nor logged per request.
+     */
+    private static IResponse<AuthSubject> failed(AuthErrors error, String pattern) {
+        return RenderedErrors.of(error, pattern).toResponse();
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.component;
+
+import org.febit.boot.permission.MethodPermissionResolver;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.RequestMappingInfoHandlerMapping;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+@Component
+@ConditionalOnClass(RequestMappingInfoHandlerMapping.class)
+@ConditionalOnWebApplication(
+        type = ConditionalOnWebApplication.Type.REACTIVE
+)
+public class WebFluxPermissionManager extends BaseHandlerPermissionManager {
+
+    private static final String[] IGNORED_PACKAGES = {
+            // springdoc
+            "org.springdoc.",
+            // actuate
+            "org.springframework.boot.actuate.endpoint.web.reactive.",
+            // build-in errors
+            "org.springframework.boot.autoconfigure.web.reactive.error.",
+    };
+
+    public WebFluxPermissionManager(ApplicationContext app, List<MethodPermissionResolver> resolvers) {
+        super(app, resolvers, IGNORED_PACKAGES);
+    }
+
+    @Override
+    protected void scanHandlerMethods(BiConsumer<Object, HandlerMethod> consumer) {
+        this.app.getBeansOfType(RequestMappingInfoHandlerMapping.class)
+                .values()
+                .forEach(m -> m.getHandlerMethods().forEach(consumer));
+    }
+}
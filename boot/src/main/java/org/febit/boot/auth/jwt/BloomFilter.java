@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings, with lock-free concurrent insertions and lookups.
+ * <p>
+ * Positions are derived by double hashing of a 64-bit hash, bits are only set, never cleared,
+ * so a lookup racing with insertions may miss the new ones, but never reports a false negative for old ones.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+    }
+
+    /**
+     * Create a filter sized for the given insertions and false positive probability.
+     */
+    static BloomFilter create(long expectedInsertions, double fpp) {
+        var n = Math.max(expectedInsertions, 1);
+        var bits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        bits = Math.max(64, Math.min(bits, Integer.MAX_VALUE));
+        var hashes = (int) Math.max(1, Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    void put(String value) {
+        var hash = hash64(value);
+        var h1 = mix(hash);
+        var h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(h1 + i * h2, bitCount);
+            var index = (int) (bit >>> 6);
+            var mask = 1L << bit;
+            var word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        var hash = hash64(value);
+        var h1 = mix(hash);
+        var h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * FNV-1a over chars.
+     */
+    private static long hash64(String value) {
+        var hash = 0xcbf29ce484222325L;
+        for (int i = 0, len = value.length(); i < len; i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads bits of the FNV hash.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe1a85ec3L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Set;
+
+/**
+ * Ed25519 signer backed by the JDK provider, the counterpart of {@link EdDsaVerifier}.
+ * <p>
+ * Thread-safe, a {@link Signature} is created per signing, as signers of nimbus do.
+ */
+public final class EdDsaSigner implements JWSSigner {
+
+    private final PrivateKey privateKey;
+    private final JCAContext jcaContext = new JCAContext();
+
+    private EdDsaSigner(PrivateKey privateKey) {
+        this.privateKey = privateKey;
+    }
+
+    public static EdDsaSigner create(PrivateKey privateKey) {
+        return new EdDsaSigner(privateKey);
+    }
+
+    @Override
+    public Base64URL sign(JWSHeader header, byte[] signingInput) throws JOSEException {
+        if (!EdDsaVerifier.ALGORITHMS.contains(header.getAlgorithm())) {
+            throw new JOSEException("Unsupported JWS algorithm: " + header.getAlgorithm());
+        }
+        try {
+            var signer = Signature.getInstance(EdDsaVerifier.JCA_ALGORITHM);
+            signer.initSign(privateKey);
+            signer.update(signingInput);
+            return Base64URL.encode(signer.sign());
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return EdDsaVerifier.ALGORITHMS;
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return jcaContext;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Set;
+
+/**
+ * Ed25519 verifier backed by the JDK provider, without the optional Tink dependency of nimbus.
+ * <p>
+ * Thread-safe, a {@link Signature} is created per verifying, as verifiers of nimbus do.
+ */
+public final class EdDsaVerifier implements JWSVerifier {
+
+    static final String JCA_ALGORITHM = "Ed25519";
+    static final Set<JWSAlgorithm> ALGORITHMS = Set.of(JWSAlgorithm.EdDSA);
+
+    /**
+     * DER prefix of X.509 encoded Ed25519 public keys, followed by the 32 bytes raw key.
+     */
+    private static final byte[] X509_PREFIX = {
+            0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00
+    };
+
+    private final PublicKey publicKey;
+    private final JCAContext jcaContext = new JCAContext();
+
+    private EdDsaVerifier(PublicKey publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    public static EdDsaVerifier create(PublicKey publicKey) {
+        return new EdDsaVerifier(publicKey);
+    }
+
+    /**
+     * Create by raw public key, aka. the {@code x} of an OKP JWK.
+     */
+    public static EdDsaVerifier create(byte[] rawPublicKey) throws JOSEException {
+        var encoded = new byte[X509_PREFIX.length + rawPublicKey.length];
+        System.arraycopy(X509_PREFIX, 0, encoded, 0, X509_PREFIX.length);
+        System.arraycopy(rawPublicKey, 0, encoded, X509_PREFIX.length, rawPublicKey.length);
+        try {
+            var key = KeyFactory.getInstance(JCA_ALGORITHM)
+                    .generatePublic(new X509EncodedKeySpec(encoded));
+            return create(key);
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException("Invalid Ed25519 public key", e);
+        }
+    }
+
+    @Override
+    public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException {
+        if (!ALGORITHMS.contains(header.getAlgorithm())) {
+            throw new JOSEException("Unsupported JWS algorithm: " + header.getAlgorithm());
+        }
+        try {
+            var verifier = Signature.getInstance(JCA_ALGORITHM);
+            verifier.initVerify(publicKey);
+            verifier.update(signingInput);
+            return verifier.verify(signature.decode());
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return ALGORITHMS;
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return jcaContext;
+    }
+}
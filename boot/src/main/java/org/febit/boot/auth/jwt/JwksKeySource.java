@@ -0,0 +1,323 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keys loaded from a local JWKS file or classpath resource.
+ * <p>
+ * Keys are published as an immutable {@code kid} to verifier snapshot, swapped atomically on reloading,
+ * so that lookups never block nor parse keys.
+ * Keys removed from the JWKS are retired, still accepted within the grace period,
+ * to not reject tokens signed right before rotation.
+ * <p>
+ * If the resource is a file, its directory is watched by a {@link WatchService} once started.
+ * Any event in the directory triggers a reloading after a quiet debounce period, if the content changed,
+ * so that swaps of symlinks, e.g. {@code ..data} of Kubernetes mounted secrets, are also caught.
+ * A failed reloading keeps the current keys.
+ * <p>
+ * NOTE: requires {@code com.nimbusds:nimbus-jose-jwt}.
+ */
+@Slf4j
+public class JwksKeySource implements JwtKeySource, SmartLifecycle {
+
+    private final Resource resource;
+    private final long gracePeriodMillis;
+    private final long debounceMillis;
+    private final Clock clock;
+
+    private volatile Keys keys = Keys.EMPTY;
+    private byte[] content = new byte[0];
+    @Nullable
+    private volatile WatchService watchService;
+
+    private JwksKeySource(Builder builder) {
+        this.resource = builder.resource;
+        this.gracePeriodMillis = builder.gracePeriod.toMillis();
+        this.debounceMillis = builder.debounce.toMillis();
+        this.clock = builder.clock;
+    }
+
+    public static Builder builder(Resource resource) {
+        return new Builder(resource);
+    }
+
+    @Nullable
+    @Override
+    public JWSVerifier getVerifier(@Nullable String keyId) {
+        var current = this.keys;
+        if (keyId == null) {
+            return current.sole;
+        }
+        var verifier = current.active.get(keyId);
+        if (verifier != null) {
+            return verifier;
+        }
+        var retired = current.retired.get(keyId);
+        if (retired != null && retired.until > clock.millis()) {
+            return retired.verifier;
+        }
+        return null;
+    }
+
+    /**
+     * Key IDs of active keys.
+     */
+    public Set<String> getActiveKeyIds() {
+        return keys.active.keySet();
+    }
+
+    /**
+     * Reload keys from the resource, synchronously.
+     *
+     * @throws IllegalStateException if failed to load or parse, the current keys are kept
+     */
+    public synchronized void reload() {
+        load(read());
+    }
+
+    /**
+     * Reload keys only if the content of resource changed since last loading.
+     *
+     * @return whether reloaded
+     * @throws IllegalStateException if failed to load or parse, the current keys are kept
+     */
+    public synchronized boolean reloadIfChanged() {
+        var bytes = read();
+        if (Arrays.equals(bytes, this.content)) {
+            return false;
+        }
+        load(bytes);
+        return true;
+    }
+
+    private byte[] read() {
+        try (var in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load JWKS: " + resource, e);
+        }
+    }
+
+    private void load(byte[] bytes) {
+        JWKSet jwks;
+        try {
+            jwks = JWKSet.parse(new String(bytes, StandardCharsets.UTF_8));
+        } catch (ParseException e) {
+            throw new IllegalStateException("Failed to parse JWKS: " + resource, e);
+        }
+
+        var active = new HashMap<String, JWSVerifier>();
+        for (var jwk : jwks.getKeys()) {
+            if (jwk.getKeyID() == null || KeyUse.ENCRYPTION.equals(jwk.getKeyUse())) {
+                continue;
+            }
+            try {
+                active.put(jwk.getKeyID(), JwtVerifiers.of(jwk));
+            } catch (JOSEException e) {
+                log.warn("Skip unsupported key [{}]: {}", jwk.getKeyID(), e.getMessage());
+            }
+        }
+
+        var now = clock.millis();
+        var previous = this.keys;
+        var retired = new HashMap<String, Retired>();
+        previous.retired.forEach((id, key) -> {
+            if (key.until > now && !active.containsKey(id)) {
+                retired.put(id, key);
+            }
+        });
+        previous.active.forEach((id, verifier) -> {
+            if (!active.containsKey(id)) {
+                retired.put(id, new Retired(verifier, now + gracePeriodMillis));
+            }
+        });
+
+        this.keys = new Keys(Map.copyOf(active), Map.copyOf(retired));
+        this.content = bytes;
+        log.info("Loaded JWKS from {}, active: {}, retired: {}", resource, active.keySet(), retired.keySet());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (watchService != null || !resource.isFile()) {
+            return;
+        }
+        WatchService service;
+        try {
+            // NOTE: the file itself may be a symlink, watch the directory of the link, not the target
+            var dir = resource.getFile().toPath().toAbsolutePath().getParent();
+            service = FileSystems.getDefault().newWatchService();
+            dir.register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.watchService = service;
+        var thread = new Thread(() -> watchLoop(service), "febit-jwks-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        var service = this.watchService;
+        this.watchService = null;
+        if (service == null) {
+            return;
+        }
+        try {
+            service.close();
+        } catch (IOException e) {
+            log.warn("Failed to close JWKS watcher", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watchService != null;
+    }
+
+    private void watchLoop(WatchService service) {
+        while (true) {
+            try {
+                var key = service.take();
+                // Debounce, wait until no more events for a while, writes of a rotation come in bursts
+                while (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                    key = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                reloadQuietly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            if (!reloadIfChanged()) {
+                log.debug("JWKS not changed: {}", resource);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload JWKS, keep the current keys.", e);
+        }
+    }
+
+    private record Retired(
+            JWSVerifier verifier,
+            long until
+    ) {
+    }
+
+    private static final class Keys {
+
+        static final Keys EMPTY = new Keys(Map.of(), Map.of());
+
+        final Map<String, JWSVerifier> active;
+        final Map<String, Retired> retired;
+
+        /**
+         * Verifier for tokens without {@code kid}, only if exactly one key is active.
+         */
+        @Nullable
+        final JWSVerifier sole;
+
+        Keys(Map<String, JWSVerifier> active, Map<String, Retired> retired) {
+            this.active = active;
+            this.retired = retired;
+            this.sole = active.size() == 1
+                    ? active.values().iterator().next()
+                    : null;
+        }
+    }
+
+    public static class Builder {
+
+        private final Resource resource;
+        private Duration gracePeriod = Duration.ofMinutes(10);
+        private Duration debounce = Duration.ofMillis(500);
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(Resource resource) {
+            this.resource = resource;
+        }
+
+        /**
+         * How long retired keys are still accepted, defaults to 10 minutes,
+         * should cover the lifetime of tokens signed before rotation.
+         */
+        public Builder gracePeriod(Duration gracePeriod) {
+            this.gracePeriod = gracePeriod;
+            return this;
+        }
+
+        /**
+         * Quiet period after the last event in the watched directory before reloading, defaults to 500 millis.
+         */
+        public Builder debounce(Duration debounce) {
+            this.debounce = debounce;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Build and load keys.
+         *
+         * @throws IllegalStateException if failed to load keys
+         */
+        public JwksKeySource build() {
+            var source = new JwksKeySource(this);
+            source.reload();
+            return source;
+        }
+    }
+}
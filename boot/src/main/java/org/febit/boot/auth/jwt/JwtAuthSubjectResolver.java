@@ -0,0 +1,357 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jwt.JWTClaimNames;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.web.WebRequestAuthSubjectResolver;
+import org.febit.boot.util.Digests;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Resolves subject from a signed JWT, bearer token by default.
+ * <p>
+ * Verifiers are provided by {@link JwtKeySource} per key ID, built once and shared.
+ * Registered claims are checked on the raw payload, claim sets are built only for tokens passed all checks,
+ * right before mapping to subjects.
+ * Verified tokens are cached by the SHA-256 digest of the token until they expire,
+ * so a token is parsed and verified once in its lifetime, as long as it's not evicted.
+ * Revocations, if configured, are checked on every resolving, including cached ones.
+ * <p>
+ * NOTE: requires {@code com.nimbusds:nimbus-jose-jwt} and {@code com.github.ben-manes.caffeine:caffeine}.
+ */
+@Slf4j
+public class JwtAuthSubjectResolver<T extends AuthSubject> implements WebRequestAuthSubjectResolver<T> {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final JwtKeySource keySource;
+    private final JwtSubjectMapper<T> subjectMapper;
+    private final Function<WebRequest, String> tokenResolver;
+    @Nullable
+    private final String issuer;
+    @Nullable
+    private final String audience;
+    private final long clockSkewMillis;
+    private final long maxTtlMillis;
+    private final Clock clock;
+    @Nullable
+    private final JwtRevocationChecker revocation;
+    private final Cache<String, Verified<T>> cache;
+
+    private JwtAuthSubjectResolver(Builder<T> builder) {
+        this.keySource = builder.keySource;
+        this.subjectMapper = builder.subjectMapper;
+        this.tokenResolver = builder.tokenResolver;
+        this.issuer = builder.issuer;
+        this.audience = builder.audience;
+        this.clockSkewMillis = builder.clockSkew.toMillis();
+        this.maxTtlMillis = builder.maxTtl.toMillis();
+        this.clock = builder.clock;
+        this.revocation = builder.revocation;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(builder.maximumSize)
+                .expireAfter(new UntilExpired<T>(builder.clock))
+                .build();
+    }
+
+    public static <T extends AuthSubject> Builder<T> builder(
+            JwtKeySource keySource, JwtSubjectMapper<T> subjectMapper
+    ) {
+        return new Builder<>(keySource, subjectMapper);
+    }
+
+    @Override
+    public Optional<T> resolveAuth(WebRequest request) {
+        var token = tokenResolver.apply(request);
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        return resolve(token);
+    }
+
+    /**
+     * Resolve subject of the given token, for non-web usages.
+     */
+    public Optional<T> resolve(String token) {
+        var key = Digests.sha256Hex(token);
+        var cached = cache.getIfPresent(key);
+        var now = clock.millis();
+        if (cached != null && cached.expiresAt > now) {
+            if (isRevoked(cached.tokenId)) {
+                cache.invalidate(key);
+                return Optional.empty();
+            }
+            return Optional.of(cached.subject);
+        }
+        var verified = verify(token, now);
+        if (verified == null) {
+            return Optional.empty();
+        }
+        if (isRevoked(verified.tokenId)) {
+            return Optional.empty();
+        }
+        cache.put(key, verified);
+        return Optional.of(verified.subject);
+    }
+
+    /**
+     * Drop the cached verification of the given token, for example on sign-out.
+     */
+    public void invalidate(String token) {
+        cache.invalidate(Digests.sha256Hex(token));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private boolean isRevoked(@Nullable String tokenId) {
+        if (revocation == null || !revocation.isRevoked(tokenId)) {
+            return false;
+        }
+        log.debug("Token revoked, jti: {}", tokenId);
+        return true;
+    }
+
+    @Nullable
+    private Verified<T> verify(String token, long now) {
+        try {
+            var jwt = SignedJWT.parse(token);
+            var verifier = keySource.getVerifier(jwt.getHeader().getKeyID());
+            if (verifier == null) {
+                log.debug("Unknown key of token, kid: {}", jwt.getHeader().getKeyID());
+                return null;
+            }
+            if (!jwt.verify(verifier)) {
+                log.debug("Invalid signature of token");
+                return null;
+            }
+            var payload = jwt.getPayload().toJSONObject();
+            if (payload == null || !isValid(payload, now)) {
+                return null;
+            }
+            var subject = subjectMapper.map(JWTClaimsSet.parse(payload));
+            if (subject == null) {
+                return null;
+            }
+            var expiresAt = Math.min(
+                    epochMillis(payload.get(JWTClaimNames.EXPIRATION_TIME)) + clockSkewMillis,
+                    now + maxTtlMillis
+            );
+            var tokenId = payload.get(JWTClaimNames.JWT_ID);
+            return new Verified<>(subject, tokenId instanceof String id ? id : null, expiresAt);
+        } catch (ParseException | JOSEException | IllegalStateException e) {
+            log.debug("Invalid token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isValid(Map<String, Object> claims, long now) {
+        var exp = epochMillis(claims.get(JWTClaimNames.EXPIRATION_TIME));
+        if (exp == NO_TIME || exp + clockSkewMillis <= now) {
+            log.debug("Token expired, or without exp");
+            return false;
+        }
+        var nbfClaim = claims.get(JWTClaimNames.NOT_BEFORE);
+        if (nbfClaim != null) {
+            var nbf = epochMillis(nbfClaim);
+            if (nbf == NO_TIME || nbf > now + clockSkewMillis) {
+                log.debug("Token not active yet");
+                return false;
+            }
+        }
+        var iss = claims.get(JWTClaimNames.ISSUER);
+        if (issuer != null && !issuer.equals(iss)) {
+            log.debug("Issuer not matched: {}", iss);
+            return false;
+        }
+        var aud = claims.get(JWTClaimNames.AUDIENCE);
+        if (audience != null && !containsAudience(aud, audience)) {
+            log.debug("Audience not matched: {}", aud);
+            return false;
+        }
+        return true;
+    }
+
+    private static long epochMillis(@Nullable Object seconds) {
+        return seconds instanceof Number number
+                ? number.longValue() * 1000L
+                : NO_TIME;
+    }
+
+    private static boolean containsAudience(@Nullable Object audiences, String expected) {
+        if (audiences instanceof String single) {
+            return expected.equals(single);
+        }
+        if (!(audiences instanceof List<?> list)) {
+            return false;
+        }
+        for (int i = 0, len = list.size(); i < len; i++) {
+            if (expected.equals(list.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolve bearer token from the {@code Authorization} header.
+     */
+    @Nullable
+    public static String bearer(WebRequest request) {
+        var header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        return header.substring(BEARER_PREFIX.length()).trim();
+    }
+
+    private record Verified<T>(
+            T subject,
+            @Nullable String tokenId,
+            long expiresAt
+    ) {
+    }
+
+    private record UntilExpired<T>(
+            Clock clock
+    ) implements Expiry<String, Verified<T>> {
+
+        @Override
+        public long expireAfterCreate(String key, Verified<T> value, long currentTime) {
+            var remaining = value.expiresAt - clock.millis();
+            return Duration.ofMillis(Math.max(remaining, 0)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Verified<T> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Verified<T> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    public static class Builder<T extends AuthSubject> {
+
+        private final JwtKeySource keySource;
+        private final JwtSubjectMapper<T> subjectMapper;
+
+        private Function<WebRequest, String> tokenResolver = JwtAuthSubjectResolver::bearer;
+        @Nullable
+        private String issuer;
+        @Nullable
+        private String audience;
+        private Duration clockSkew = Duration.ofSeconds(30);
+        private Duration maxTtl = Duration.ofHours(1);
+        private long maximumSize = 10_000;
+        private Clock clock = Clock.systemUTC();
+        @Nullable
+        private JwtRevocationChecker revocation;
+
+        private Builder(JwtKeySource keySource, JwtSubjectMapper<T> subjectMapper) {
+            this.keySource = keySource;
+            this.subjectMapper = subjectMapper;
+        }
+
+        public Builder<T> token(Function<WebRequest, String> tokenResolver) {
+            this.tokenResolver = tokenResolver;
+            return this;
+        }
+
+        /**
+         * Expected {@code iss}, not checked if absent.
+         */
+        public Builder<T> issuer(@Nullable String issuer) {
+            this.issuer = issuer;
+            return this;
+        }
+
+        /**
+         * Expected one of {@code aud}, not checked if absent.
+         */
+        public Builder<T> audience(@Nullable String audience) {
+            this.audience = audience;
+            return this;
+        }
+
+        /**
+         * Tolerance of {@code exp} and {@code nbf}, defaults to 30 seconds.
+         */
+        public Builder<T> clockSkew(Duration clockSkew) {
+            this.clockSkew = clockSkew;
+            return this;
+        }
+
+        /**
+         * Max TTL of cached verifications, defaults to 1 hour, tokens are re-verified after that.
+         */
+        public Builder<T> maxTtl(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+            return this;
+        }
+
+        /**
+         * Max cached tokens, defaults to 10000.
+         */
+        public Builder<T> maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<T> clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Rejects revoked tokens, by {@code jti}.
+         */
+        public Builder<T> revocation(@Nullable JwtRevocationChecker revocation) {
+            this.revocation = revocation;
+            return this;
+        }
+
+        public JwtAuthSubjectResolver<T> build() {
+            return new JwtAuthSubjectResolver<>(this);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import jakarta.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Issues signed JWTs with one key.
+ * <p>
+ * The JWS header is built and encoded once, the signer is shared, nimbus signers are thread-safe.
+ * Claims are written as JSON directly, without claim sets, and encoded into the signing input buffer.
+ * Batches share the timestamps and the pre-rendered common claims.
+ * <p>
+ * NOTE: requires {@code com.nimbusds:nimbus-jose-jwt}.
+ */
+public class JwtIssuer {
+
+    private static final byte[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final Set<String> RESERVED_CLAIMS = Set.of("sub", "jti", "iss", "aud", "iat", "exp");
+
+    private final JWSSigner signer;
+    private final JWSHeader header;
+    private final byte[] encodedHeader;
+    @Nullable
+    private final String issuer;
+    @Nullable
+    private final String audience;
+    private final long ttlSeconds;
+    private final Clock clock;
+    @Nullable
+    private final Supplier<String> tokenIdGenerator;
+
+    private JwtIssuer(Builder builder) {
+        this.signer = builder.signer;
+        var headerBuilder = new JWSHeader.Builder(builder.algorithm)
+                .type(JOSEObjectType.JWT);
+        if (builder.keyId != null) {
+            headerBuilder.keyID(builder.keyId);
+        }
+        this.header = headerBuilder.build();
+        this.encodedHeader = header.toBase64URL().toString()
+                .getBytes(StandardCharsets.US_ASCII);
+        this.issuer = builder.issuer;
+        this.audience = builder.audience;
+        this.ttlSeconds = builder.ttl.toSeconds();
+        this.clock = builder.clock;
+        this.tokenIdGenerator = builder.tokenIdGenerator;
+    }
+
+    public static Builder builder(JWSSigner signer, JWSAlgorithm algorithm) {
+        return new Builder(signer, algorithm);
+    }
+
+    public String issue(String subject) throws JOSEException {
+        return issue(subject, Map.of());
+    }
+
+    /**
+     * Issue a token with custom claims, values could be strings, numbers, booleans, collections and maps.
+     *
+     * @throws IllegalArgumentException if a registered claim managed by the issuer is given,
+     *                                  or a number claim is NaN or infinite
+     */
+    public String issue(String subject, Map<String, ?> claims) throws JOSEException {
+        var common = commonClaims(clock.millis() / 1000, claims);
+        return sign(subject, common, new StringBuilder(128 + common.length()));
+    }
+
+    /**
+     * Issue tokens for each subject, with the same timestamps.
+     */
+    public List<String> issueAll(Collection<String> subjects) throws JOSEException {
+        return issueAll(subjects, Map.of());
+    }
+
+    /**
+     * Issue tokens for each subject, with the same timestamps and custom claims.
+     */
+    public List<String> issueAll(Collection<String> subjects, Map<String, ?> claims) throws JOSEException {
+        var common = commonClaims(clock.millis() / 1000, claims);
+        var buf = new StringBuilder(128 + common.length());
+        var tokens = new ArrayList<String>(subjects.size());
+        for (var subject : subjects) {
+            buf.setLength(0);
+            tokens.add(sign(subject, common, buf));
+        }
+        return tokens;
+    }
+
+    private String sign(String subject, String commonClaims, StringBuilder json) throws JOSEException {
+        json.append("{\"sub\":");
+        appendString(json, subject);
+        if (tokenIdGenerator != null) {
+            json.append(",\"jti\":");
+            appendString(json, tokenIdGenerator.get());
+        }
+        json.append(commonClaims);
+        var payload = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        var headerLen = encodedHeader.length;
+        var input = new byte[headerLen + 1 + encodedLength(payload.length)];
+        System.arraycopy(encodedHeader, 0, input, 0, headerLen);
+        input[headerLen] = '.';
+        encodeBase64Url(payload, input, headerLen + 1);
+
+        var signature = signer.sign(header, input).toString();
+        return new String(input, StandardCharsets.US_ASCII)
+                .concat(".")
+                .concat(signature);
+    }
+
+    /**
+     * Claims shared by tokens issued at the same second, rendered as the tail of the JSON object.
+     */
+    private String commonClaims(long now, Map<String, ?> claims) {
+        var buf = new StringBuilder(64);
+        if (issuer != null) {
+            buf.append(",\"iss\":");
+            appendString(buf, issuer);
+        }
+        if (audience != null) {
+            buf.append(",\"aud\":");
+            appendString(buf, audience);
+        }
+        buf.append(",\"iat\":").append(now)
+                .append(",\"exp\":").append(now + ttlSeconds);
+        claims.forEach((name, value) -> {
+            if (RESERVED_CLAIMS.contains(name)) {
+                throw new IllegalArgumentException("Reserved claim: " + name);
+            }
+            buf.append(',');
+            appendString(buf, name);
+            buf.append(':');
+            appendValue(buf, value);
+        });
+        return buf.append('}').toString();
+    }
+
+    private static void appendValue(StringBuilder buf, @Nullable Object value) {
+        if (value == null) {
+            buf.append("null");
+        } else if (value instanceof Double || value instanceof Float) {
+            var number = ((Number) value).doubleValue();
+            if (!Double.isFinite(number)) {
+                throw new IllegalArgumentException("Non-finite number is not allowed in claims: " + value);
+            }
+            buf.append(value);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            buf.append(value);
+        } else if (value instanceof Collection<?> collection) {
+            buf.append('[');
+            var first = true;
+            for (var item : collection) {
+                if (!first) {
+                    buf.append(',');
+                }
+                first = false;
+                appendValue(buf, item);
+            }
+            buf.append(']');
+        } else if (value instanceof Map<?, ?> map) {
+            buf.append('{');
+            var first = true;
+            for (var entry : map.entrySet()) {
+                if (!first) {
+                    buf.append(',');
+                }
+                first = false;
+                appendString(buf, String.valueOf(entry.getKey()));
+                buf.append(':');
+                appendValue(buf, entry.getValue());
+            }
+            buf.append('}');
+        } else {
+            appendString(buf, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder buf, String value) {
+        buf.append('"');
+        for (int i = 0, len = value.length(); i < len; i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> buf.append("\\\"");
+                case '\\' -> buf.append("\\\\");
+                case '\n' -> buf.append("\\n");
+                case '\r' -> buf.append("\\r");
+                case '\t' -> buf.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        buf.append("\\u00")
+                                .append(HEX_DIGITS[c >> 4])
+                                .append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        buf.append(c);
+                    }
+                }
+            }
+        }
+        buf.append('"');
+    }
+
+    static int encodedLength(int len) {
+        return (len / 3) * 4 + switch (len % 3) {
+            case 1 -> 2;
+            case 2 -> 3;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Base64url without padding, into the given buffer at offset.
+     */
+    static void encodeBase64Url(byte[] src, byte[] dst, int offset) {
+        var len = src.length;
+        var i = 0;
+        var j = offset;
+        for (var end = len - len % 3; i < end; i += 3) {
+            var bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[j++] = BASE64_URL[bits >>> 18];
+            dst[j++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            dst[j++] = BASE64_URL[(bits >>> 6) & 0x3f];
+            dst[j++] = BASE64_URL[bits & 0x3f];
+        }
+        var remaining = len - i;
+        if (remaining == 1) {
+            var bits = (src[i] & 0xff) << 16;
+            dst[j++] = BASE64_URL[bits >>> 18];
+            dst[j] = BASE64_URL[(bits >>> 12) & 0x3f];
+        } else if (remaining == 2) {
+            var bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            dst[j++] = BASE64_URL[bits >>> 18];
+            dst[j++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            dst[j] = BASE64_URL[(bits >>> 6) & 0x3f];
+        }
+    }
+
+    /**
+     * Random 128-bit ID, base64url encoded, unique but not for secrets.
+     */
+    public static String randomTokenId() {
+        var random = ThreadLocalRandom.current();
+        var bytes = new byte[16];
+        random.nextBytes(bytes);
+        var dst = new byte[encodedLength(bytes.length)];
+        encodeBase64Url(bytes, dst, 0);
+        return new String(dst, StandardCharsets.US_ASCII);
+    }
+
+    public static class Builder {
+
+        private final JWSSigner signer;
+        private final JWSAlgorithm algorithm;
+
+        @Nullable
+        private String keyId;
+        @Nullable
+        private String issuer;
+        @Nullable
+        private String audience;
+        private Duration ttl = Duration.ofHours(1);
+        private Clock clock = Clock.systemUTC();
+        @Nullable
+        private Supplier<String> tokenIdGenerator = JwtIssuer::randomTokenId;
+
+        private Builder(JWSSigner signer, JWSAlgorithm algorithm) {
+            this.signer = signer;
+            this.algorithm = algorithm;
+        }
+
+        public Builder keyId(@Nullable String keyId) {
+            this.keyId = keyId;
+            return this;
+        }
+
+        public Builder issuer(@Nullable String issuer) {
+            this.issuer = issuer;
+            return this;
+        }
+
+        public Builder audience(@Nullable String audience) {
+            this.audience = audience;
+            return this;
+        }
+
+        /**
+         * Lifetime of tokens, defaults to 1 hour.
+         */
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Generator of {@code jti}, defaults to {@link #randomTokenId()}, {@code null} to omit.
+         */
+        public Builder tokenId(@Nullable Supplier<String> tokenIdGenerator) {
+            this.tokenIdGenerator = tokenIdGenerator;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the algorithm is not supported by the signer
+         */
+        public JwtIssuer build() {
+            if (!signer.supportedJWSAlgorithms().contains(algorithm)) {
+                throw new IllegalArgumentException("Algorithm not supported by signer: " + algorithm);
+            }
+            return new JwtIssuer(this);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JWSVerifier;
+import jakarta.annotation.Nullable;
+
+/**
+ * Source of signature verifiers, keyed by key ID ({@code kid}).
+ * <p>
+ * Verifiers are built once and shared, lookups are on the request path, should never block or parse keys.
+ */
+@FunctionalInterface
+public interface JwtKeySource {
+
+    /**
+     * Returns verifier of the given key.
+     *
+     * @param keyId key ID in the JWS header, {@code null} if absent
+     * @return {@code null} if the key is unknown
+     */
+    @Nullable
+    JWSVerifier getVerifier(@Nullable String keyId);
+}
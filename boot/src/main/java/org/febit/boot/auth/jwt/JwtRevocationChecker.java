@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Checks revoked token IDs ({@code jti}) by an in-memory Bloom filter, backed by exact lookups.
+ * <p>
+ * Most tokens are never revoked, they are cleared by the filter without touching the source;
+ * only IDs reported as possibly revoked go to {@link JwtRevocationSource#isRevoked(String)}.
+ * The filter has no false negatives, so revocation stays exact, as of the last refresh.
+ * Before the first load, all checks go to exact lookups, never fail open.
+ * <p>
+ * Revocations are polled every {@link Builder#pollInterval(Duration)} and added to the filter incrementally,
+ * the filter is rebuilt every {@link Builder#fullReloadInterval(Duration)},
+ * or once insertions exceed the expected, to drop expired revocations and keep the false positive rate.
+ * Revocations of this node, such as sign-out, could be applied immediately via {@link #revoke(String)}.
+ *
+ * @see JwtAuthSubjectResolver.Builder#revocation(JwtRevocationChecker)
+ */
+@Slf4j
+public class JwtRevocationChecker implements SmartLifecycle {
+
+    private final JwtRevocationSource source;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final long pollIntervalMillis;
+    private final long fullReloadIntervalNanos;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+
+    private volatile Filter filter;
+    private volatile boolean loaded;
+    private volatile long lastFullReloadNanos;
+    @Nullable
+    private volatile ScheduledExecutorService executor;
+
+    private JwtRevocationChecker(Builder builder) {
+        this.source = builder.source;
+        this.expectedInsertions = builder.expectedInsertions;
+        this.fpp = builder.fpp;
+        this.pollIntervalMillis = builder.pollInterval.toMillis();
+        this.fullReloadIntervalNanos = builder.fullReloadInterval.toNanos();
+        this.filter = new Filter(BloomFilter.create(expectedInsertions, fpp));
+    }
+
+    public static Builder builder(JwtRevocationSource source) {
+        return new Builder(source);
+    }
+
+    /**
+     * Whether the given token is revoked, tokens without ID are never revoked.
+     */
+    public boolean isRevoked(@Nullable String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        if (loaded && !filter.bloom.mightContain(tokenId)) {
+            filtered.increment();
+            return false;
+        }
+        lookups.increment();
+        return source.isRevoked(tokenId);
+    }
+
+    /**
+     * Adds a revocation to the filter immediately, the source should persist it as well.
+     * <p>
+     * Waits for a running load, otherwise the revocation could be lost by swapping to a filter loaded before it.
+     */
+    public void revoke(String tokenId) {
+        loadLock.lock();
+        try {
+            filter.put(tokenId);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild the filter from all revocations, synchronously.
+     */
+    public void reload() {
+        loadLock.lock();
+        try {
+            var revoked = source.loadAll();
+            var next = new Filter(BloomFilter.create(Math.max(expectedInsertions, revoked.size() * 2L), fpp));
+            revoked.forEach(next::put);
+            this.filter = next;
+            this.lastFullReloadNanos = System.nanoTime();
+            this.loaded = true;
+            log.debug("Rebuilt revocation filter, size: {}", revoked.size());
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Add revocations since the last load, synchronously, falls back to rebuild if it's time to.
+     */
+    public void refresh() {
+        loadLock.lock();
+        try {
+            var current = this.filter;
+            if (!loaded
+                    || current.count.get() > current.capacity
+                    || System.nanoTime() - lastFullReloadNanos >= fullReloadIntervalNanos) {
+                reload();
+                return;
+            }
+            var revoked = source.loadChanged();
+            revoked.forEach(current::put);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Number of checks answered by the filter alone.
+     */
+    public long getFiltered() {
+        return filtered.sum();
+    }
+
+    /**
+     * Number of checks went to exact lookups.
+     */
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Loads all revocations synchronously, then starts polling.
+     */
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        reload();
+        var scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "febit-jwt-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly,
+                pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        this.executor = scheduler;
+    }
+
+    @Override
+    public synchronized void stop() {
+        var current = this.executor;
+        this.executor = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh revocations, keep the current filter.", e);
+        }
+    }
+
+    private static final class Filter {
+
+        final BloomFilter bloom;
+        final long capacity;
+        final AtomicLong count = new AtomicLong();
+
+        Filter(BloomFilter bloom) {
+            this.bloom = bloom;
+            this.capacity = (long) (bloom.bitCount() * Math.log(2) / bloom.hashCount());
+        }
+
+        void put(String tokenId) {
+            bloom.put(tokenId);
+            count.incrementAndGet();
+        }
+    }
+
+    public static class Builder {
+
+        private final JwtRevocationSource source;
+        private long expectedInsertions = 100_000;
+        private double fpp = 0.001;
+        private Duration pollInterval = Duration.ofSeconds(5);
+        private Duration fullReloadInterval = Duration.ofHours(1);
+
+        private Builder(JwtRevocationSource source) {
+            this.source = source;
+        }
+
+        /**
+         * Expected revocations in the filter, defaults to 100000.
+         */
+        public Builder expectedInsertions(long expectedInsertions) {
+            this.expectedInsertions = expectedInsertions;
+            return this;
+        }
+
+        /**
+         * False positive probability, aka. the ratio of checks went to exact lookups, defaults to 0.1%.
+         */
+        public Builder fpp(double fpp) {
+            this.fpp = fpp;
+            return this;
+        }
+
+        /**
+         * Defaults to 5 seconds.
+         */
+        public Builder pollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        /**
+         * Defaults to 1 hour.
+         */
+        public Builder fullReloadInterval(Duration fullReloadInterval) {
+            this.fullReloadInterval = fullReloadInterval;
+            return this;
+        }
+
+        public JwtRevocationChecker build() {
+            if (fpp <= 0 || fpp >= 1) {
+                throw new IllegalArgumentException("fpp should be in (0, 1)");
+            }
+            if (pollInterval.isNegative() || pollInterval.isZero()) {
+                throw new IllegalArgumentException("pollInterval should be positive");
+            }
+            return new JwtRevocationChecker(this);
+        }
+    }
+}
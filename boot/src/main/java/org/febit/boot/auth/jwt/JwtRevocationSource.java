@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import java.util.Collection;
+
+/**
+ * Source of revoked token IDs ({@code jti}), typically a revocation table.
+ * <p>
+ * Implementations keep the change cursor, and are called by one thread at a time, except {@link #isRevoked(String)}.
+ *
+ * @see JwtRevocationChecker
+ */
+public interface JwtRevocationSource {
+
+    /**
+     * Loads all revoked IDs, revocations of expired tokens could be omitted, and resets the change cursor.
+     */
+    Collection<String> loadAll();
+
+    /**
+     * Loads IDs revoked since the last load, and moves the change cursor.
+     */
+    Collection<String> loadChanged();
+
+    /**
+     * Exact lookup, only for IDs reported as possibly revoked by the filter, should be thread-safe.
+     */
+    boolean isRevoked(String tokenId);
+}
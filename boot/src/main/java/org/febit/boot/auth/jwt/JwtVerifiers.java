@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Builds thread-safe verifiers of keys, once per key.
+ */
+@UtilityClass
+public class JwtVerifiers {
+
+    /**
+     * Create verifier of the given JWK, supports {@code oct}, {@code RSA}, {@code EC} and Ed25519 {@code OKP}.
+     */
+    public static JWSVerifier of(JWK jwk) throws JOSEException {
+        if (jwk instanceof OctetSequenceKey oct) {
+            return new MACVerifier(oct.toByteArray());
+        }
+        if (jwk instanceof RSAKey rsa) {
+            return new RSASSAVerifier(rsa.toRSAPublicKey());
+        }
+        if (jwk instanceof ECKey ec) {
+            return new ECDSAVerifier(ec.toECPublicKey());
+        }
+        if (jwk instanceof OctetKeyPair okp && Curve.Ed25519.equals(okp.getCurve())) {
+            return EdDsaVerifier.create(okp.getX().decode());
+        }
+        throw new JOSEException("Unsupported JWK: " + jwk.getKeyType() + ", kid: " + jwk.getKeyID());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import jakarta.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Fixed keys, configured at startup.
+ */
+public final class StaticJwtKeySource implements JwtKeySource {
+
+    private final Map<String, JWSVerifier> verifiers;
+    @Nullable
+    private final JWSVerifier defaultVerifier;
+
+    private StaticJwtKeySource(Builder builder) {
+        this.verifiers = Map.copyOf(builder.verifiers);
+        this.defaultVerifier = builder.defaultVerifier;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nullable
+    @Override
+    public JWSVerifier getVerifier(@Nullable String keyId) {
+        return keyId != null
+                ? verifiers.get(keyId)
+                : defaultVerifier;
+    }
+
+    public static class Builder {
+
+        private final Map<String, JWSVerifier> verifiers = new HashMap<>();
+        @Nullable
+        private JWSVerifier defaultVerifier;
+
+        private Builder() {
+        }
+
+        public Builder key(String keyId, JWSVerifier verifier) {
+            this.verifiers.put(keyId, verifier);
+            return this;
+        }
+
+        /**
+         * Adds a JWK, requires its key ID.
+         */
+        public Builder key(JWK jwk) throws JOSEException {
+            var keyId = Objects.requireNonNull(jwk.getKeyID(), "kid is required");
+            return key(keyId, JwtVerifiers.of(jwk));
+        }
+
+        /**
+         * Verifier of tokens without key ID.
+         */
+        public Builder defaultKey(JWSVerifier verifier) {
+            this.defaultVerifier = verifier;
+            return this;
+        }
+
+        public StaticJwtKeySource build() {
+            return new StaticJwtKeySource(this);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.method;
+
+import jakarta.annotation.Nullable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.AuthSupplier;
+import org.febit.boot.permission.PermissionVerifier;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.util.AuthErrors;
+
+/**
+ * Verifies the permission of one method, resolved when the proxy created.
+ * <p>
+ * One instance per guarded method, so that an invocation only reads fields, no reflection or lookups.
+ *
+ * @see PermissionMethodPostProcessor
+ */
+public final class PermissionMethodInterceptor<T extends AuthSubject> implements MethodInterceptor {
+
+    private final ResolvedPermission permission;
+    private final AuthSupplier<T> authSupplier;
+    private final PermissionVerifier<T> permissionVerifier;
+
+    PermissionMethodInterceptor(
+            ResolvedPermission permission,
+            AuthSupplier<T> authSupplier,
+            PermissionVerifier<T> permissionVerifier
+    ) {
+        this.permission = permission;
+        this.authSupplier = authSupplier;
+        this.permissionVerifier = permissionVerifier;
+    }
+
+    public ResolvedPermission getPermission() {
+        return permission;
+    }
+
+    @Nullable
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        var auth = authSupplier.get();
+        if (auth.isEmpty()) {
+            throw AuthErrors.UNAUTHORIZED
+                    .exception(AuthErrors.UNAUTHORIZED.getCode());
+        }
+        if (!permissionVerifier.isAllow(auth.get(), permission)) {
+            throw AuthErrors.FORBIDDEN_NO_PERMISSION
+                    .exception(AuthErrors.FORBIDDEN_NO_PERMISSION.getCode());
+        }
+        return invocation.proceed();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.method;
+
+import lombok.extern.slf4j.Slf4j;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.AuthSupplier;
+import org.febit.boot.permission.AnnotatedMethodPermissionResolver;
+import org.febit.boot.permission.MethodPermissionResolver;
+import org.febit.boot.permission.MethodPermissionResolvers;
+import org.febit.boot.permission.PermissionVerifier;
+import org.febit.boot.permission.ResolvedPermission;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.AopInfrastructureBean;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.framework.ProxyProcessorSupport;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enforces {@code @Permission} on methods of service beans, e.g. called by message consumers and schedulers.
+ * <p>
+ * Permissions are resolved by {@link MethodPermissionResolvers} once per bean method when the proxy created,
+ * each guarded method gets its own {@link PermissionMethodInterceptor} which holds the resolved permission.
+ * Methods without permissions, or marked as {@code @AnonymousApi}, are not intercepted.
+ * Controllers are skipped, they are guarded by {@code AuthHandlerInterceptor} already.
+ * <p>
+ * The subject is taken from the given {@link AuthSupplier}, typically scoped or thread-local
+ * and propagated by {@link org.febit.boot.auth.AuthTaskDecorator}.
+ * <p>
+ * NOTE: register as a {@code static} bean, as other bean post processors.
+ */
+@Slf4j
+public class PermissionMethodPostProcessor<T extends AuthSubject>
+        extends ProxyProcessorSupport implements BeanPostProcessor {
+
+    private final List<MethodPermissionResolver> resolvers;
+    private final AuthSupplier<T> authSupplier;
+    private final PermissionVerifier<T> permissionVerifier;
+
+    private PermissionMethodPostProcessor(
+            List<MethodPermissionResolver> resolvers,
+            AuthSupplier<T> authSupplier,
+            PermissionVerifier<T> permissionVerifier
+    ) {
+        this.resolvers = List.copyOf(resolvers);
+        this.authSupplier = authSupplier;
+        this.permissionVerifier = permissionVerifier;
+    }
+
+    public static <T extends AuthSubject> PermissionMethodPostProcessor<T> create(
+            AuthSupplier<T> authSupplier,
+            PermissionVerifier<T> permissionVerifier
+    ) {
+        return create(List.of(new AnnotatedMethodPermissionResolver()), authSupplier, permissionVerifier);
+    }
+
+    public static <T extends AuthSubject> PermissionMethodPostProcessor<T> create(
+            List<MethodPermissionResolver> resolvers,
+            AuthSupplier<T> authSupplier,
+            PermissionVerifier<T> permissionVerifier
+    ) {
+        return new PermissionMethodPostProcessor<>(resolvers, authSupplier, permissionVerifier);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof AopInfrastructureBean) {
+            return bean;
+        }
+        var targetClass = AopUtils.getTargetClass(bean);
+        if (AnnotatedElementUtils.hasAnnotation(targetClass, Controller.class)) {
+            return bean;
+        }
+        var advisors = resolveAdvisors(targetClass);
+        if (advisors.isEmpty()) {
+            return bean;
+        }
+        log.debug("Guard {} method(s) of bean [{}] by permissions", advisors.size(), beanName);
+
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            // Verify permissions before other advices, such as transactions
+            for (int i = advisors.size() - 1; i >= 0; i--) {
+                advised.addAdvisor(0, advisors.get(i));
+            }
+            return bean;
+        }
+
+        var proxyFactory = new ProxyFactory(bean);
+        proxyFactory.copyFrom(this);
+        if (!proxyFactory.isProxyTargetClass()) {
+            evaluateProxyInterfaces(targetClass, proxyFactory);
+        }
+        advisors.forEach(proxyFactory::addAdvisor);
+        return proxyFactory.getProxy(getProxyClassLoader());
+    }
+
+    private List<Advisor> resolveAdvisors(Class<?> targetClass) {
+        var advisors = new ArrayList<Advisor>();
+        var methods = ReflectionUtils.getUniqueDeclaredMethods(targetClass, ReflectionUtils.USER_DECLARED_METHODS);
+        for (var method : methods) {
+            if (!Modifier.isPublic(method.getModifiers())
+                    || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (MethodPermissionResolvers.isAnonymous(resolvers, method)) {
+                continue;
+            }
+            var items = MethodPermissionResolvers.resolveItems(resolvers, method);
+            if (items.isEmpty()) {
+                continue;
+            }
+            var interceptor = new PermissionMethodInterceptor<>(
+                    ResolvedPermission.allow(items), authSupplier, permissionVerifier
+            );
+            advisors.add(new DefaultPointcutAdvisor(new MethodPointcut(method), interceptor));
+        }
+        return advisors;
+    }
+
+    private static final class MethodPointcut extends StaticMethodMatcherPointcut {
+
+        private final Method method;
+
+        MethodPointcut(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public boolean matches(Method candidate, Class<?> targetClass) {
+            return candidate.equals(method)
+                    || AopUtils.getMostSpecificMethod(candidate, targetClass).equals(method);
+        }
+    }
+}
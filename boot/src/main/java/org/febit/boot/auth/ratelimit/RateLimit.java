@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.ratelimit;
+
+import java.lang.annotation.*;
+
+/**
+ * Token bucket limit of a handler, on method or declaring class.
+ *
+ * @see RateLimitingWebAuthHandler
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RateLimit {
+
+    /**
+     * Max burst, aka. bucket capacity.
+     */
+    long capacity();
+
+    /**
+     * Refill rate, permits per second.
+     */
+    double permitsPerSecond();
+
+    RateLimitRule.Scope scope() default RateLimitRule.Scope.SUBJECT;
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.ratelimit;
+
+/**
+ * Token bucket rule.
+ *
+ * @param capacity         max burst
+ * @param permitsPerSecond refill rate
+ * @param scope            whom the bucket is shared by
+ */
+public record RateLimitRule(
+        long capacity,
+        double permitsPerSecond,
+        Scope scope
+) {
+
+    public RateLimitRule {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity should be positive: " + capacity);
+        }
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond should be positive: " + permitsPerSecond);
+        }
+    }
+
+    public static RateLimitRule of(RateLimit annotation) {
+        return new RateLimitRule(annotation.capacity(), annotation.permitsPerSecond(), annotation.scope());
+    }
+
+    public static RateLimitRule perSubject(long capacity, double permitsPerSecond) {
+        return new RateLimitRule(capacity, permitsPerSecond, Scope.SUBJECT);
+    }
+
+    public static RateLimitRule global(long capacity, double permitsPerSecond) {
+        return new RateLimitRule(capacity, permitsPerSecond, Scope.GLOBAL);
+    }
+
+    /**
+     * Nanoseconds to refill one permit.
+     */
+    long intervalNanos() {
+        return Math.max(1L, (long) (1_000_000_000D / permitsPerSecond));
+    }
+
+    /**
+     * Nanoseconds of burst tolerance.
+     */
+    long toleranceNanos() {
+        return intervalNanos() * (capacity - 1);
+    }
+
+    public enum Scope {
+        /**
+         * A bucket per subject, anonymous requests share one.
+         */
+        SUBJECT,
+        /**
+         * A bucket shared by all subjects.
+         */
+        GLOBAL,
+    }
+}
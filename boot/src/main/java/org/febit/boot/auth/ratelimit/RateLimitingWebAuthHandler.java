@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.ratelimit;
+
+import org.febit.boot.auth.AuthConstants;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.web.DeferredAuthSubject;
+import org.febit.boot.auth.web.WebAuthHandler;
+import org.febit.boot.permission.MethodPermissionTable;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.util.AuthErrors;
+import org.febit.boot.util.RenderedErrors;
+import org.febit.lang.protocol.IResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decorates a {@link WebAuthHandler} with token bucket limits, keyed by subject and handler.
+ * <p>
+ * Rules come from {@link RateLimit} on the handler, and per permission code, all matched ones are applied.
+ * Matched rules are cached in the permission table along with the handler, and re-resolved once it's rebuilt.
+ * Subjects deferred by the delegated handler are resolved only if a {@link RateLimitRule.Scope#SUBJECT} rule applies.
+ * Throttled requests are rejected with {@link AuthErrors#TOO_MANY_REQUESTS}, pre-rendered by {@link RenderedErrors},
+ * so that floods are neither formatted nor logged per request.
+ * <p>
+ * NOTE: requests failed by the delegated handler are not counted.
+ */
+public class RateLimitingWebAuthHandler<T extends AuthSubject> implements WebAuthHandler<T> {
+
+    private static final String ANONYMOUS = "";
+    private static final Bound[] NO_BOUNDS = new Bound[0];
+
+    private final WebAuthHandler<T> delegate;
+    private final PermissionManager permissionManager;
+    private final Map<String, RateLimitRule> codeRules;
+    private final TokenBucketTable buckets;
+    private final MethodPermissionTable.Attachment<Bound[]> bounds;
+
+    private RateLimitingWebAuthHandler(Builder<T> builder) {
+        this.delegate = builder.delegate;
+        this.permissionManager = builder.permissionManager;
+        this.codeRules = Map.copyOf(builder.codeRules);
+        this.buckets = TokenBucketTable.create(builder.idleTimeout);
+        this.bounds = new MethodPermissionTable.Attachment<>(this::resolveBounds);
+    }
+
+    public static <T extends AuthSubject> Builder<T> builder(
+            WebAuthHandler<T> delegate, PermissionManager permissionManager
+    ) {
+        return new Builder<>(delegate, permissionManager);
+    }
+
+    @Override
+    public IResponse<AuthSubject> verify(WebRequest request, Method handler) {
+        var result = delegate.verify(request, handler);
+        if (result.isFailed()) {
+            return result;
+        }
+        var rules = permissionManager.getAttachment(handler, bounds);
+        if (rules.length == 0) {
+            return result;
+        }
+        String subject = null;
+        for (var bound : rules) {
+            Object key;
+            if (bound.rule.scope() == RateLimitRule.Scope.GLOBAL) {
+                key = bound.target;
+            } else {
+                if (subject == null) {
+                    subject = subjectKey(result, request);
+                }
+                key = new SubjectKey(bound.target, subject);
+            }
+            if (!buckets.tryAcquire(key, bound.rule)) {
+                return throttled();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pre-rendered, neither formatted nor logged per throttled request.
+     */
+    private static IResponse<AuthSubject> throttled() {
+        return RenderedErrors.of(AuthErrors.TOO_MANY_REQUESTS, AuthErrors.TOO_MANY_REQUESTS.getCode())
+                .toResponse();
+    }
+
+    private static String subjectKey(IResponse<AuthSubject> result, WebRequest request) {
+        var auth = result.getData();
+        if (auth != null) {
+            return auth.identifier();
+        }
+        var id = request.getAttribute(AuthConstants.ATTR_AUTH_ID, RequestAttributes.SCOPE_REQUEST);
+        if (id == null && DeferredAuthSubject.resolveIfDeferred(request)) {
+            id = request.getAttribute(AuthConstants.ATTR_AUTH_ID, RequestAttributes.SCOPE_REQUEST);
+        }
+        return id != null ? id.toString() : ANONYMOUS;
+    }
+
+    private Bound[] resolveBounds(Method handler) {
+        var result = new ArrayList<Bound>();
+        var annotation = AnnotatedElementUtils.findMergedAnnotation(handler, RateLimit.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(handler.getDeclaringClass(), RateLimit.class);
+        }
+        if (annotation != null) {
+            result.add(new Bound(handler, RateLimitRule.of(annotation)));
+        }
+        for (var item : permissionManager.getPermission(handler).getItems()) {
+            var rule = codeRules.get(item.code());
+            if (rule != null) {
+                result.add(new Bound(item.code(), rule));
+            }
+        }
+        return result.isEmpty()
+                ? NO_BOUNDS
+                : result.toArray(NO_BOUNDS);
+    }
+
+    /**
+     * @param target handler method, or permission code
+     */
+    private record Bound(
+            Object target,
+            RateLimitRule rule
+    ) {
+    }
+
+    private record SubjectKey(
+            Object target,
+            String subject
+    ) {
+    }
+
+    public static class Builder<T extends AuthSubject> {
+
+        private final WebAuthHandler<T> delegate;
+        private final PermissionManager permissionManager;
+        private final Map<String, RateLimitRule> codeRules = new HashMap<>();
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        private Builder(WebAuthHandler<T> delegate, PermissionManager permissionManager) {
+            this.delegate = delegate;
+            this.permissionManager = permissionManager;
+        }
+
+        /**
+         * Limit handlers requiring the given permission code, a bucket per code shared by its handlers.
+         */
+        public Builder<T> limit(String code, RateLimitRule rule) {
+            this.codeRules.put(code, rule);
+            return this;
+        }
+
+        public Builder<T> limits(Map<String, RateLimitRule> rules) {
+            this.codeRules.putAll(rules);
+            return this;
+        }
+
+        /**
+         * Buckets refilled and untouched for this long are evicted, defaults to 10 minutes.
+         */
+        public Builder<T> idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public RateLimitingWebAuthHandler<T> build() {
+            return new RateLimitingWebAuthHandler<>(this);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token buckets, keyed by arbitrary objects.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} of the theoretical arrival time (GCRA),
+ * which behaves as a token bucket and is updated by CAS only.
+ * Buckets are held in a {@link ConcurrentHashMap}, idle ones are swept by callers in turn, without blocking.
+ */
+public final class TokenBucketTable {
+
+    private static final int SWEEP_EVERY = 4096;
+
+    private final Map<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long idleNanos;
+    private final LongAdder calls = new LongAdder();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private TokenBucketTable(long idleNanos) {
+        this.idleNanos = idleNanos;
+    }
+
+    /**
+     * @param idleTimeout buckets refilled and untouched for this long are evicted
+     */
+    public static TokenBucketTable create(Duration idleTimeout) {
+        return new TokenBucketTable(idleTimeout.toNanos());
+    }
+
+    public boolean tryAcquire(Object key, RateLimitRule rule) {
+        return tryAcquire(key, rule, System.nanoTime());
+    }
+
+    boolean tryAcquire(Object key, RateLimitRule rule, long now) {
+        maybeSweep(now);
+
+        var interval = rule.intervalNanos();
+        var tolerance = rule.toleranceNanos();
+        var bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            var tat = bucket.get();
+            var start = tat - now < 0 ? now : tat;
+            if (start - now > tolerance) {
+                return false;
+            }
+            if (bucket.compareAndSet(tat, start + interval)) {
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private void maybeSweep(long now) {
+        calls.increment();
+        if (calls.sum() < SWEEP_EVERY
+                || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            calls.reset();
+            sweep(now);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Evict buckets idle for the timeout, an evicted bucket is full anyway.
+     */
+    void sweep(long now) {
+        buckets.forEach((key, bucket) -> {
+            var tat = bucket.get();
+            if (now - tat >= idleNanos) {
+                buckets.remove(key, bucket);
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.reactive;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.util.RenderedErrors;
+import org.febit.lang.protocol.IResponse;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Reactive equivalent of {@link org.febit.boot.auth.web.AuthHandlerInterceptor}.
+ * <p>
+ * Handler is looked up from the given mapping ahead of dispatching,
+ * typically the {@code RequestMappingHandlerMapping} of WebFlux.
+ * The verified subject is available via {@link ReactiveAuthContext#getAuth()} downstream.
+ */
+@Slf4j
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class AuthWebFilter<T extends AuthSubject> implements WebFilter {
+
+    private static final IResponse<AuthSubject> PASS = IResponse.success(null);
+
+    private final ReactiveAuthHandler<T> authHandler;
+    private final HandlerMapping handlerMapping;
+
+    public static <T extends AuthSubject> AuthWebFilter<T> create(
+            ReactiveAuthHandler<T> authHandler, HandlerMapping handlerMapping
+    ) {
+        return new AuthWebFilter<>(authHandler, handlerMapping);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return handlerMapping.getHandler(exchange)
+                .ofType(HandlerMethod.class)
+                .flatMap(handler -> authHandler.verify(exchange, handler.getMethod()))
+                .defaultIfEmpty(PASS)
+                .flatMap(verify -> {
+                    if (verify.isFailed()) {
+                        return onFailed(verify, exchange);
+                    }
+                    return chain.filter(exchange)
+                            .contextWrite(ctx -> ReactiveAuthContext.write(ctx, exchange));
+                });
+    }
+
+    private static Mono<Void> onFailed(IResponse<?> result, ServerWebExchange exchange) {
+        log.debug("Authentication failed with code {}: {}", result.getCode(), result.getMessage());
+        var bytes = RenderedErrors.of(result).toBytes(Instant.now());
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(result.getStatus()));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(bytes.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.reactive;
+
+import lombok.experimental.UtilityClass;
+import org.febit.boot.auth.AuthSubject;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH;
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH_DEFERRED;
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH_ID;
+
+/**
+ * Auth subject of the reactive pipeline, kept in exchange attributes and the Reactor context.
+ */
+@UtilityClass
+public class ReactiveAuthContext {
+
+    private static final Class<?> CONTEXT_KEY = ReactiveAuthContext.class;
+
+    /**
+     * Current auth subject, from the Reactor context written by {@link AuthWebFilter}.
+     */
+    public static <T extends AuthSubject> Mono<T> getAuth() {
+        return Mono.deferContextual(ctx -> ctx.<Mono<T>>getOrEmpty(CONTEXT_KEY)
+                .orElse(Mono.empty())
+        );
+    }
+
+    /**
+     * Auth subject of the given exchange, the deferred one is resolved on subscribe.
+     */
+    public static <T extends AuthSubject> Mono<T> getAuth(ServerWebExchange exchange) {
+        var auth = exchange.<T>getAttribute(ATTR_AUTH);
+        if (auth != null) {
+            return Mono.just(auth);
+        }
+        var deferred = exchange.<Mono<T>>getAttribute(ATTR_AUTH_DEFERRED);
+        if (deferred == null) {
+            return Mono.empty();
+        }
+        return deferred.doOnNext(resolved -> store(exchange, resolved));
+    }
+
+    public static void store(ServerWebExchange exchange, AuthSubject auth) {
+        var attrs = exchange.getAttributes();
+        attrs.remove(ATTR_AUTH_DEFERRED);
+        attrs.put(ATTR_AUTH, auth);
+        attrs.put(ATTR_AUTH_ID, auth.identifier());
+    }
+
+    /**
+     * Defer resolving, till the first subscription to {@link #getAuth(ServerWebExchange)}.
+     */
+    public static void defer(ServerWebExchange exchange, Mono<? extends AuthSubject> auth) {
+        exchange.getAttributes().put(ATTR_AUTH_DEFERRED, auth.cache());
+    }
+
+    static Context write(Context context, ServerWebExchange exchange) {
+        return context.put(CONTEXT_KEY, getAuth(exchange).cache());
+    }
+}
@@ -15,28 +15,50 @@
  */
 package org.febit.boot.auth.web;
 
+import jakarta.annotation.Nullable;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.febit.boot.auth.AuthConstants;
 import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.ScopedValueAuthSupplier;
+import org.febit.boot.util.RenderedErrors;
+import org.febit.boot.web.util.ResponseUtils;
 import org.febit.lang.protocol.IResponse;
-import org.febit.lang.util.JacksonUtils;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Slf4j
-@RequiredArgsConstructor(staticName = "create")
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class AuthHandlerInterceptor<T extends AuthSubject> implements HandlerInterceptor {
 
     private final WebAuthHandler<T> authHandler;
 
+    @Nullable
+    private final ScopedValueAuthSupplier<T> scopedAuth;
+
+    public static <T extends AuthSubject> AuthHandlerInterceptor<T> create(WebAuthHandler<T> authHandler) {
+        return new AuthHandlerInterceptor<>(authHandler, null);
+    }
+
+    /**
+     * Also binds the verified subject to the scope of handler, or the deferred one if resolving is deferred.
+     * <p>
+     * NOTE: requires {@link ScopedAuthFilter} to open the scope.
+     */
+    public static <T extends AuthSubject> AuthHandlerInterceptor<T> create(
+            WebAuthHandler<T> authHandler, ScopedValueAuthSupplier<T> scopedAuth
+    ) {
+        return new AuthHandlerInterceptor<>(authHandler, scopedAuth);
+    }
+
     @Override
     public boolean preHandle(
             HttpServletRequest request, HttpServletResponse response, Object handler
@@ -53,14 +75,36 @@ public class AuthHandlerInterceptor<T extends AuthSubject> implements HandlerInt
         if (verify.isFailed()) {
             return onFailed(verify, response);
         }
+        if (scopedAuth != null) {
+            bindScoped(scopedAuth, verify.getData(), request);
+        }
         return true;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T extends AuthSubject> void bindScoped(
+            ScopedValueAuthSupplier<T> scopedAuth, @Nullable AuthSubject verified, HttpServletRequest request
+    ) {
+        var auth = verified != null
+                ? verified
+                : request.getAttribute(AuthConstants.ATTR_AUTH);
+        boolean bound;
+        if (auth != null) {
+            bound = scopedAuth.bind((T) auth);
+        } else if (request.getAttribute(AuthConstants.ATTR_AUTH_DEFERRED) instanceof DeferredAuthSubject<?> deferred) {
+            // Resolved on the first demand in scope, or never
+            bound = scopedAuth.bindDeferred(() -> (Optional<T>) deferred.resolve());
+        } else {
+            return;
+        }
+        if (!bound) {
+            log.warn("Auth scope is absent or already bound, missing ScopedAuthFilter?");
+        }
+    }
+
     private boolean onFailed(IResponse<?> result, HttpServletResponse response) throws IOException {
         log.debug("Authentication failed with code {}: {}", result.getCode(), result.getMessage());
-        response.setStatus(result.getStatus());
-        response.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-        response.getWriter().write(JacksonUtils.toJsonString(result));
+        ResponseUtils.write(response, RenderedErrors.of(result));
         return false;
     }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.web;
+
+import jakarta.annotation.Nullable;
+import lombok.experimental.UtilityClass;
+import org.febit.boot.auth.AuthSubject;
+import org.springframework.web.context.request.RequestAttributes;
+
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH;
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH_DEFERRED;
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH_ID;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+
+@UtilityClass
+public class AuthRequestAttributes {
+
+    public static void store(RequestAttributes attrs, @Nullable AuthSubject auth) {
+        attrs.removeAttribute(ATTR_AUTH_DEFERRED, SCOPE_REQUEST);
+        if (auth == null) {
+            attrs.removeAttribute(ATTR_AUTH, SCOPE_REQUEST);
+            attrs.removeAttribute(ATTR_AUTH_ID, SCOPE_REQUEST);
+            return;
+        }
+        attrs.setAttribute(ATTR_AUTH, auth, SCOPE_REQUEST);
+        attrs.setAttribute(ATTR_AUTH_ID, auth.identifier(), SCOPE_REQUEST);
+    }
+}
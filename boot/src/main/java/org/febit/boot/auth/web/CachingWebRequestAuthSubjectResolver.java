@@ -0,0 +1,199 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.Nullable;
+import jakarta.servlet.http.HttpServletRequest;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.util.Digests;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.WebUtils;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caches subjects resolved by the delegated resolver, keyed by the SHA-256 digest of the credential.
+ * <p>
+ * Concurrent requests with the same credential share one resolving, absent subjects (aka. invalid credentials)
+ * are cached with a separated TTL. Requests without credential always pass through to the delegated resolver.
+ * <p>
+ * NOTE: requires {@code com.github.ben-manes.caffeine:caffeine}.
+ */
+public class CachingWebRequestAuthSubjectResolver<T extends AuthSubject> implements WebRequestAuthSubjectResolver<T> {
+
+    private final WebRequestAuthSubjectResolver<T> delegate;
+    private final Function<WebRequest, String> credentialResolver;
+    private final Cache<String, Optional<T>> cache;
+
+    private CachingWebRequestAuthSubjectResolver(Builder<T> builder) {
+        this.delegate = builder.delegate;
+        this.credentialResolver = Objects.requireNonNull(builder.credentialResolver,
+                "credential resolver is required");
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(builder.maximumSize)
+                .expireAfter(new TtlExpiry<T>(builder.ttl, builder.negativeTtl))
+                .recordStats()
+                .build();
+    }
+
+    public static <T extends AuthSubject> Builder<T> builder(WebRequestAuthSubjectResolver<T> delegate) {
+        return new Builder<>(delegate);
+    }
+
+    @Override
+    public Optional<T> resolveAuth(WebRequest request) {
+        var credential = credentialResolver.apply(request);
+        if (credential == null || credential.isEmpty()) {
+            return delegate.resolveAuth(request);
+        }
+        return cache.get(Digests.sha256Hex(credential), key -> delegate.resolveAuth(request));
+    }
+
+    @Override
+    public boolean isDeferrable() {
+        return delegate.isDeferrable();
+    }
+
+    /**
+     * Evict the subject of the given credential, for example on sign-out.
+     */
+    public void invalidate(String credential) {
+        cache.invalidate(Digests.sha256Hex(credential));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Hit/miss statistics.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Resolve credential from the given request header.
+     */
+    public static Function<WebRequest, String> header(String name) {
+        return request -> request.getHeader(name);
+    }
+
+    /**
+     * Resolve credential from the given cookie, only servlet requests are supported.
+     */
+    public static Function<WebRequest, String> cookie(String name) {
+        return request -> {
+            if (!(request instanceof NativeWebRequest nativeRequest)) {
+                return null;
+            }
+            var servletRequest = nativeRequest.getNativeRequest(HttpServletRequest.class);
+            if (servletRequest == null) {
+                return null;
+            }
+            var cookie = WebUtils.getCookie(servletRequest, name);
+            return cookie != null ? cookie.getValue() : null;
+        };
+    }
+
+    private record TtlExpiry<T>(
+            Duration ttl,
+            Duration negativeTtl
+    ) implements Expiry<String, Optional<T>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<T> value, long currentTime) {
+            return value.isPresent()
+                    ? ttl.toNanos()
+                    : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<T> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<T> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    public static class Builder<T extends AuthSubject> {
+
+        private final WebRequestAuthSubjectResolver<T> delegate;
+
+        @Nullable
+        private Function<WebRequest, String> credentialResolver;
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(1);
+        private Duration negativeTtl = Duration.ofSeconds(10);
+
+        private Builder(WebRequestAuthSubjectResolver<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        public Builder<T> credential(Function<WebRequest, String> credentialResolver) {
+            this.credentialResolver = credentialResolver;
+            return this;
+        }
+
+        public Builder<T> header(String name) {
+            return credential(CachingWebRequestAuthSubjectResolver.header(name));
+        }
+
+        public Builder<T> cookie(String name) {
+            return credential(CachingWebRequestAuthSubjectResolver.cookie(name));
+        }
+
+        public Builder<T> maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * TTL of resolved subjects, should be shorter than the lifetime of credentials.
+         */
+        public Builder<T> ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * TTL of absent subjects, aka. negative caching.
+         */
+        public Builder<T> negativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+            return this;
+        }
+
+        public CachingWebRequestAuthSubjectResolver<T> build() {
+            return new CachingWebRequestAuthSubjectResolver<>(this);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.web;
+
+import jakarta.annotation.Nullable;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.febit.boot.auth.AuthSubject;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH;
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH_DEFERRED;
+import static org.febit.boot.auth.AuthConstants.ATTR_AUTH_ID;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+
+/**
+ * Auth subject resolving deferred to the first demand, then memoized into request attributes.
+ *
+ * @see WebRequestAuthSubjectResolver#isDeferrable()
+ * @see RequestAttributeAuthSupplier
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class DeferredAuthSubject<T extends AuthSubject> {
+
+    private final WebRequest request;
+    private final WebRequestAuthSubjectResolver<T> resolver;
+
+    private boolean resolved;
+    @Nullable
+    private T auth;
+
+    /**
+     * Bind a deferred resolving to the given request, instead of resolving now.
+     */
+    public static <T extends AuthSubject> DeferredAuthSubject<T> defer(
+            WebRequest request, WebRequestAuthSubjectResolver<T> resolver
+    ) {
+        var deferred = new DeferredAuthSubject<>(request, resolver);
+        request.removeAttribute(ATTR_AUTH, SCOPE_REQUEST);
+        request.removeAttribute(ATTR_AUTH_ID, SCOPE_REQUEST);
+        request.setAttribute(ATTR_AUTH_DEFERRED, deferred, SCOPE_REQUEST);
+        return deferred;
+    }
+
+    /**
+     * Resolve the deferred subject bound to the given attributes, if any.
+     *
+     * @return {@code true} if there was a deferred subject, and it's resolved now
+     */
+    public static boolean resolveIfDeferred(RequestAttributes attrs) {
+        var deferred = attrs.getAttribute(ATTR_AUTH_DEFERRED, SCOPE_REQUEST);
+        if (!(deferred instanceof DeferredAuthSubject<?> subject)) {
+            return false;
+        }
+        subject.resolve();
+        return true;
+    }
+
+    /**
+     * Resolve once, and store into request attributes if the request is still active.
+     */
+    public synchronized Optional<T> resolve() {
+        if (!this.resolved) {
+            this.auth = resolver.resolveAuth(request).orElse(null);
+            this.resolved = true;
+            try {
+                AuthRequestAttributes.store(request, this.auth);
+            } catch (IllegalStateException e) {
+                // Request completed, resolved by tasks captured it, memoized here only
+            }
+        }
+        return Optional.ofNullable(this.auth);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.febit.boot.auth.web;
 
+import jakarta.annotation.Nullable;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
@@ -26,6 +27,7 @@ import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public class RequestAttributeAuthSupplier<T extends AuthSubject> implements AuthSupplier<T> {
@@ -34,20 +36,45 @@ public class RequestAttributeAuthSupplier<T extends AuthSubject> implements Auth
     private final Class<T> authType;
 
     @Override
-    @SuppressWarnings("unchecked")
     public Optional<T> get() {
         val attrs = RequestContextHolder.getRequestAttributes();
         if (attrs == null) {
             return Optional.empty();
         }
         var raw = attrs.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+        if (raw == null && DeferredAuthSubject.resolveIfDeferred(attrs)) {
+            raw = attrs.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+        }
         if (raw == null) {
             return Optional.empty();
         }
+        return Optional.of(cast(raw));
+    }
+
+    /**
+     * Captures the deferred subject unresolved, resolved by the first demand of the returned supplier.
+     */
+    @Nullable
+    @Override
+    public Supplier<Optional<T>> capture() {
+        val attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs != null
+                && AuthConstants.ATTR_AUTH.equals(key)
+                && attrs.getAttribute(key, RequestAttributes.SCOPE_REQUEST) == null) {
+            var raw = attrs.getAttribute(AuthConstants.ATTR_AUTH_DEFERRED, RequestAttributes.SCOPE_REQUEST);
+            if (raw instanceof DeferredAuthSubject<?> deferred) {
+                return () -> deferred.resolve().map(this::cast);
+            }
+        }
+        return AuthSupplier.super.capture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object raw) {
         if (!authType.isInstance(raw)) {
             throw Errors.SYSTEM.exception("Auth type not matched.");
         }
-        return Optional.of((T) raw);
+        return (T) raw;
     }
 
     public static <T extends AuthSubject> RequestAttributeAuthSupplier<T> create(
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.CompositeAuthSupplier;
+import org.febit.boot.auth.ScopedValueAuthSupplier;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Opens an auth scope for each request, the subject is bound later by {@link AuthHandlerInterceptor}.
+ *
+ * @see AuthHandlerInterceptor#create(WebAuthHandler, ScopedValueAuthSupplier)
+ * @see CompositeAuthSupplier
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ScopedAuthFilter<T extends AuthSubject> extends OncePerRequestFilter {
+
+    private final Consumer<Runnable> opener;
+
+    public static <T extends AuthSubject> ScopedAuthFilter<T> create(ScopedValueAuthSupplier<T> authSupplier) {
+        return new ScopedAuthFilter<>(authSupplier::open);
+    }
+
+    /**
+     * Opens a memoizing scope of the composite supplier for each request.
+     */
+    public static <T extends AuthSubject> ScopedAuthFilter<T> create(CompositeAuthSupplier<T> authSupplier) {
+        return new ScopedAuthFilter<>(authSupplier::open);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain chain
+    ) throws ServletException, IOException {
+        try {
+            opener.accept(() -> {
+                try {
+                    chain.doFilter(request, response);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ServletException e) {
+                    throw new WrappedServletException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (WrappedServletException e) {
+            throw (ServletException) e.getCause();
+        }
+    }
+
+    private static class WrappedServletException extends RuntimeException {
+
+        WrappedServletException(ServletException cause) {
+            super(cause);
+        }
+    }
+}
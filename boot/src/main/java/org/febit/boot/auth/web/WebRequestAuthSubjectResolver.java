@@ -23,4 +23,14 @@ import java.util.Optional;
 public interface WebRequestAuthSubjectResolver<T extends AuthSubject> {
 
     Optional<T> resolveAuth(WebRequest request);
+
+    /**
+     * Whether resolving could be deferred, for handlers not requiring a subject.
+     * <p>
+     * If {@code true}, the subject of ignored and forbidden handlers will be resolved
+     * on the first demand, see {@link DeferredAuthSubject}.
+     */
+    default boolean isDeferrable() {
+        return false;
+    }
 }
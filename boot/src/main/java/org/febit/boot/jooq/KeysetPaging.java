@@ -0,0 +1,372 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.jooq;
+
+import jakarta.annotation.Nullable;
+import org.febit.boot.model.SeekCursor;
+import org.febit.boot.util.Errors;
+import org.febit.lang.protocol.Pagination;
+import org.febit.lang.protocol.Sort;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SortField;
+import org.jooq.Table;
+import org.jooq.exception.DataTypeException;
+import org.jooq.impl.DSL;
+import org.jooq.tools.Convert;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination of a table, driven by {@link Pagination#getSorts()} and {@link SeekCursor}.
+ * <p>
+ * Instead of skipping {@code OFFSET} rows, a page starts right after the sort key of the last row of previous page,
+ * as {@code WHERE (a, b) > (?, ?)}, so that every page costs the same regardless of depth,
+ * given an index on the sort columns.
+ * A unique tie-breaker column is appended to the sorts if absent, to keep the order total.
+ * <p>
+ * Only columns exposed by {@link Builder#column(String, Field)}, and the tie-breaker, are sortable,
+ * since values of sort columns are carried to clients by cursors, encoded but not encrypted.
+ * <p>
+ * Instances are immutable and meant to be shared, for example:
+ * <pre>{@code
+ * var seek = PAGING.seek(pagination, cursor);
+ * var rows = dsl.selectFrom(TABLE)
+ *         .where(condition, seek.condition())
+ *         .orderBy(seek.orderBy())
+ *         .limit(seek.limit())
+ *         .fetch();
+ * var next = seek.next(rows);
+ * }</pre>
+ */
+public final class KeysetPaging {
+
+    private static final Map<Class<?>, Function<String, Object>> PARSERS = Map.of(
+            Timestamp.class, raw -> Timestamp.valueOf(LocalDateTime.parse(raw)),
+            Time.class, raw -> Time.valueOf(LocalTime.parse(raw)),
+            Date.class, raw -> Date.valueOf(LocalDate.parse(raw)),
+            LocalDateTime.class, LocalDateTime::parse,
+            OffsetDateTime.class, OffsetDateTime::parse,
+            LocalDate.class, LocalDate::parse,
+            LocalTime.class, LocalTime::parse,
+            OffsetTime.class, OffsetTime::parse,
+            Instant.class, Instant::parse,
+            BigDecimal.class, BigDecimal::new
+    );
+
+    private final Map<String, Field<?>> columns;
+    private final String tieBreaker;
+    private final List<Sort> defaultSorts;
+
+    private KeysetPaging(Builder builder) {
+        var resolved = new HashMap<>(builder.columns);
+        if (!resolved.containsKey(builder.tieBreaker)) {
+            var field = builder.table.field(builder.tieBreaker);
+            if (field == null) {
+                throw new IllegalArgumentException("Tie-breaker column not found: " + builder.tieBreaker);
+            }
+            resolved.put(builder.tieBreaker, field);
+        }
+        this.columns = Map.copyOf(resolved);
+        this.tieBreaker = builder.tieBreaker;
+        this.defaultSorts = List.copyOf(builder.defaultSorts);
+        for (var sort : defaultSorts) {
+            if (!columns.containsKey(sort.getColumn())) {
+                throw new IllegalArgumentException("Default sort column is not exposed: " + sort.getColumn());
+            }
+        }
+    }
+
+    /**
+     * @param table      the table to query, or its alias
+     * @param tieBreaker a unique and non-null column, typically the primary key,
+     *                   resolved by name from the table unless exposed as a column
+     */
+    public static Builder builder(Table<?> table, String tieBreaker) {
+        return new Builder(table, tieBreaker);
+    }
+
+    /**
+     * Plan a page.
+     *
+     * @param cursor the cursor of previous page, or {@code null} for the first page
+     * @throws org.febit.lang.protocol.BusinessException if sort columns are unknown,
+     *                                                   or the cursor doesn't match the sorts
+     */
+    public Seek seek(Pagination pagination, @Nullable SeekCursor cursor) {
+        var sorts = resolveSorts(pagination.getSorts());
+        var fields = new ArrayList<Field<?>>(sorts.size());
+        for (var sort : sorts) {
+            fields.add(field(sort.getColumn()));
+        }
+        var condition = cursor == null
+                ? DSL.noCondition()
+                : condition(sorts, fields, cursor);
+        return new Seek(sorts, List.copyOf(fields), condition, pagination.getSize());
+    }
+
+    List<Sort> resolveSorts(@Nullable List<Sort> requested) {
+        var resolved = new LinkedHashMap<String, Sort>();
+        var sorts = requested == null || requested.isEmpty()
+                ? defaultSorts
+                : requested;
+        for (var sort : sorts) {
+            resolved.putIfAbsent(sort.getColumn(), sort);
+        }
+        if (!resolved.containsKey(tieBreaker)) {
+            // Follow the last direction, keeps the key comparable as a single row value
+            var direction = resolved.isEmpty()
+                    ? Sort.Direction.DESC
+                    : sorts.get(sorts.size() - 1).getDirection();
+            resolved.put(tieBreaker, Sort.of(tieBreaker, direction));
+        }
+        return List.copyOf(resolved.values());
+    }
+
+    private Field<?> field(String column) {
+        var field = columns.get(column);
+        if (field == null) {
+            throw Errors.ILLEGAL_ARG.exception("Unsupported sort column ''{0}''", column);
+        }
+        return field;
+    }
+
+    private static Condition condition(List<Sort> sorts, List<Field<?>> fields, SeekCursor cursor) {
+        if (!cursor.matches(sorts)) {
+            throw Errors.ILLEGAL_ARG.exception(
+                    "Parameter ''{0}'' doesn''t match the sort criteria", SeekCursor.PARAM);
+        }
+        var keys = cursor.getKeys();
+        var values = new Object[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = convert(fields.get(i), keys.get(i).value());
+        }
+
+        var direction = sorts.get(0).getDirection();
+        if (sorts.stream().allMatch(sort -> sort.getDirection() == direction)) {
+            var row = DSL.row(fields);
+            return direction == Sort.Direction.ASC
+                    ? row.gt(values)
+                    : row.lt(values);
+        }
+
+        // Mixed directions: (a > ?) OR (a = ? AND b < ?) OR ...
+        var conditions = new ArrayList<Condition>(fields.size());
+        for (int i = 0; i < values.length; i++) {
+            var step = new ArrayList<Condition>(i + 1);
+            for (int j = 0; j < i; j++) {
+                step.add(equalTo(fields.get(j), values[j]));
+            }
+            step.add(after(fields.get(i), values[i], sorts.get(i).getDirection()));
+            conditions.add(DSL.and(step));
+        }
+        return DSL.or(conditions);
+    }
+
+    private static Object convert(Field<?> field, String raw) {
+        Object value;
+        try {
+            var parser = PARSERS.get(field.getType());
+            value = parser != null
+                    ? parser.apply(raw)
+                    : field.getDataType().convert(raw);
+        } catch (DataTypeException | DateTimeParseException | NumberFormatException ex) {
+            value = null;
+        }
+        if (value == null) {
+            throw Errors.ILLEGAL_ARG.exception("Malformed value of parameter ''{0}''", SeekCursor.PARAM);
+        }
+        return value;
+    }
+
+    /**
+     * Format values of sort columns explicitly, as the string forms by {@link Convert} don't round trip for all types,
+     * for example temporals, parsed back by {@link #PARSERS}.
+     */
+    static String format(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp.toLocalDateTime());
+        }
+        if (value instanceof Time time) {
+            return DateTimeFormatter.ISO_LOCAL_TIME.format(time.toLocalTime());
+        }
+        if (value instanceof Date date) {
+            return DateTimeFormatter.ISO_LOCAL_DATE.format(date.toLocalDate());
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime);
+        }
+        if (value instanceof OffsetDateTime dateTime) {
+            return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(dateTime);
+        }
+        if (value instanceof LocalTime time) {
+            return DateTimeFormatter.ISO_LOCAL_TIME.format(time);
+        }
+        if (value instanceof OffsetTime time) {
+            return DateTimeFormatter.ISO_OFFSET_TIME.format(time);
+        }
+        if (value instanceof Instant instant) {
+            return DateTimeFormatter.ISO_INSTANT.format(instant);
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return Convert.convert(value, String.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Condition equalTo(Field<T> field, Object value) {
+        return field.eq((T) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Condition after(Field<T> field, Object value, Sort.Direction direction) {
+        return direction == Sort.Direction.ASC
+                ? field.gt((T) value)
+                : field.lt((T) value);
+    }
+
+    /**
+     * A planned page.
+     */
+    public static final class Seek {
+
+        private final List<Sort> sorts;
+        private final List<Field<?>> fields;
+        private final Condition condition;
+        private final int limit;
+
+        private Seek(List<Sort> sorts, List<Field<?>> fields, Condition condition, int limit) {
+            this.sorts = sorts;
+            this.fields = fields;
+            this.condition = condition;
+            this.limit = limit;
+        }
+
+        /**
+         * Effective sorts, including the tie-breaker.
+         */
+        public List<Sort> getSorts() {
+            return sorts;
+        }
+
+        /**
+         * Condition to start after the cursor, or {@link DSL#noCondition()} for the first page.
+         */
+        public Condition condition() {
+            return condition;
+        }
+
+        public List<SortField<?>> orderBy() {
+            var orderBy = new ArrayList<SortField<?>>(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                var field = fields.get(i);
+                orderBy.add(sorts.get(i).getDirection() == Sort.Direction.ASC
+                        ? field.asc()
+                        : field.desc()
+                );
+            }
+            return orderBy;
+        }
+
+        public int limit() {
+            return limit;
+        }
+
+        /**
+         * Cursor of the given row, which should be selected with all sort columns.
+         *
+         * @throws IllegalStateException if a sort column of the row is null
+         */
+        public SeekCursor cursorOf(Record row) {
+            var keys = new ArrayList<SeekCursor.Key>(fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                var sort = sorts.get(i);
+                var value = row.get(fields.get(i));
+                if (value == null) {
+                    throw new IllegalStateException(
+                            "Keyset pagination requires non-null sort column: " + sort.getColumn());
+                }
+                keys.add(new SeekCursor.Key(sort.getColumn(), sort.getDirection(), format(value)));
+            }
+            return SeekCursor.of(keys);
+        }
+
+        /**
+         * Cursor of the next page, or {@code null} if the given page is the last one.
+         *
+         * @param rows rows of this page
+         */
+        @Nullable
+        public SeekCursor next(List<? extends Record> rows) {
+            if (rows.isEmpty() || rows.size() < limit) {
+                return null;
+            }
+            return cursorOf(rows.get(rows.size() - 1));
+        }
+    }
+
+    public static final class Builder {
+
+        private final Table<?> table;
+        private final String tieBreaker;
+        private final Map<String, Field<?>> columns = new HashMap<>();
+        private final List<Sort> defaultSorts = new ArrayList<>();
+
+        private Builder(Table<?> table, String tieBreaker) {
+            this.table = table;
+            this.tieBreaker = tieBreaker;
+        }
+
+        /**
+         * Expose a field as sort column by the given name, its values are visible to clients via cursors.
+         */
+        public Builder column(String name, Field<?> field) {
+            this.columns.put(name, field);
+            return this;
+        }
+
+        /**
+         * Sort used if absent in request, the tie-breaker alone in descending order by default.
+         */
+        public Builder defaultSort(Sort sort) {
+            this.defaultSorts.add(sort);
+            return this;
+        }
+
+        public KeysetPaging build() {
+            return new KeysetPaging(this);
+        }
+    }
+}
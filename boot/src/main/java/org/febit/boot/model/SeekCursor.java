@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.model;
+
+import org.febit.boot.util.Errors;
+import org.febit.lang.annotation.NonNullApi;
+import org.febit.lang.protocol.BusinessException;
+import org.febit.lang.protocol.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Seek key of keyset pagination, aka. the sort columns and values of the last row of previous page.
+ * <p>
+ * Transferred as an opaque base64url token, values are kept in their string form,
+ * and converted back to column types by the consumer, hence sort columns should be non-null.
+ * Columns and directions are carried along, so that a cursor can't be replayed against another sort.
+ */
+@NonNullApi
+public final class SeekCursor {
+
+    public static final String PARAM = "cursor";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_KEYS = 255;
+    private static final int MAX_ENCODED_LENGTH = 4096;
+
+    private final List<Key> keys;
+
+    private SeekCursor(List<Key> keys) {
+        this.keys = keys;
+    }
+
+    public static SeekCursor of(List<Key> keys) {
+        if (keys.isEmpty() || keys.size() > MAX_KEYS) {
+            throw new IllegalArgumentException(
+                    "Seek cursor requires 1 to " + MAX_KEYS + " keys, but got: " + keys.size());
+        }
+        return new SeekCursor(List.copyOf(keys));
+    }
+
+    public List<Key> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Whether this cursor is taken from the given sorts, in order.
+     */
+    public boolean matches(List<Sort> sorts) {
+        if (sorts.size() != keys.size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            var key = keys.get(i);
+            var sort = sorts.get(i);
+            if (!key.column().equals(sort.getColumn())
+                    || key.direction() != sort.getDirection()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String encode() {
+        var buf = new ByteArrayOutputStream(64);
+        try (var out = new DataOutputStream(buf)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(keys.size());
+            for (var key : keys) {
+                out.writeUTF(key.column());
+                out.writeBoolean(key.direction() == Sort.Direction.DESC);
+                out.writeUTF(key.value());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(buf.toByteArray());
+    }
+
+    /**
+     * Decode a cursor from request.
+     *
+     * @throws BusinessException if the given token is malformed
+     */
+    public static SeekCursor decode(String encoded) {
+        if (encoded.length() > MAX_ENCODED_LENGTH) {
+            throw malformed();
+        }
+        try (var in = new DataInputStream(new ByteArrayInputStream(
+                Base64.getUrlDecoder().decode(encoded)
+        ))) {
+            if (in.readUnsignedByte() != FORMAT_VERSION) {
+                throw malformed();
+            }
+            var size = in.readUnsignedByte();
+            if (size == 0) {
+                throw malformed();
+            }
+            var keys = new ArrayList<Key>(size);
+            for (int i = 0; i < size; i++) {
+                var column = in.readUTF();
+                var direction = in.readBoolean() ? Sort.Direction.DESC : Sort.Direction.ASC;
+                var value = in.readUTF();
+                keys.add(new Key(column, direction, value));
+            }
+            if (in.available() != 0) {
+                throw malformed();
+            }
+            return new SeekCursor(List.copyOf(keys));
+        } catch (IOException | IllegalArgumentException ex) {
+            throw malformed();
+        }
+    }
+
+    private static BusinessException malformed() {
+        return Errors.ILLEGAL_ARG.exception("Malformed value of parameter ''{0}''", PARAM);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SeekCursor other
+                && keys.equals(other.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return keys.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+
+    public record Key(
+            String column,
+            Sort.Direction direction,
+            String value
+    ) {
+    }
+}
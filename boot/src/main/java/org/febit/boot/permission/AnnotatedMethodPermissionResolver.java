@@ -21,10 +21,20 @@ import javax.annotation.Nullable;
 import java.lang.reflect.Method;
 import java.util.function.Consumer;
 
+/**
+ * Resolves by {@link Permission} and {@link AnonymousApi}.
+ * <p>
+ * Uses the build-time {@link PermissionAnnotationIndex} of the declaring class if present, otherwise reflection.
+ */
 public class AnnotatedMethodPermissionResolver implements MethodPermissionResolver {
 
     @Override
     public void collect(Method method, Consumer<PermissionItem> consumer) {
+        var index = PermissionAnnotationIndex.of(method.getDeclaringClass());
+        if (index != null) {
+            index.getPermissions(method).forEach(consumer);
+            return;
+        }
         AnnotatedElementUtils
                 .getAllMergedAnnotations(method, Permission.class)
                 .stream()
@@ -36,6 +46,10 @@ public class AnnotatedMethodPermissionResolver implements MethodPermissionResolv
     @Nullable
     @Override
     public Boolean isAnonymous(Method method) {
+        var index = PermissionAnnotationIndex.of(method.getDeclaringClass());
+        if (index != null) {
+            return index.isAnonymous(method);
+        }
         var anonymous = method.getAnnotation(AnonymousApi.class);
         if (anonymous == null) {
             anonymous = method.getDeclaringClass()
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Verifies allow lists by AND-ing the bitsets of subject and {@link ResolvedPermission#getMask()},
+ * instead of comparing codes.
+ */
+@RequiredArgsConstructor(staticName = "create")
+public class BitSetPermissionVerifier<T extends BitSetAuthSubject> implements PermissionVerifier<T> {
+
+    private final PermissionManager permissionManager;
+
+    @Override
+    public boolean isAllow(T auth, ResolvedPermission permission) {
+        var mask = permission.getMask();
+        if (mask == null) {
+            return isAllow(auth, permission.getItems());
+        }
+        return PermissionIndex.intersects(auth.permissionBits(), mask);
+    }
+
+    @Override
+    public boolean isAllow(T auth, Collection<PermissionItem> permissions) {
+        var index = permissionManager.getPermissionIndex();
+        var bits = auth.permissionBits();
+        for (var item : permissions) {
+            if (PermissionIndex.get(bits, index.ordinal(item))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public BitSet isAllowEachItem(T auth, List<PermissionItem> items) {
+        var index = permissionManager.getPermissionIndex();
+        var bits = auth.permissionBits();
+        var result = new BitSet(items.size());
+        for (int i = 0, len = items.size(); i < len; i++) {
+            if (PermissionIndex.get(bits, index.ordinal(items.get(i)))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.febit.boot.auth.AuthSubject;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToLongFunction;
+
+/**
+ * Caches allow/deny decisions of the delegated verifier, per subject and {@link ResolvedPermission}.
+ * <p>
+ * Decisions are invalidated when the global version, or the version of subject, changed.
+ * Applications should bump versions after grants changed,
+ * via {@link #invalidateAll()}, {@link #invalidate(String)}, or a version carried by the subject.
+ * <p>
+ * Decisions of a subject are kept in a copy-on-write array, matched by the reference of the resolved permission,
+ * which is stable per {@link MethodPermissionTable}, reads are lock-free.
+ * <p>
+ * NOTE: requires {@code com.github.ben-manes.caffeine:caffeine}.
+ */
+public class CachingPermissionVerifier<T extends AuthSubject> implements PermissionVerifier<T> {
+
+    private final PermissionVerifier<T> delegate;
+    private final ToLongFunction<T> versionResolver;
+    private final int maxDecisionsPerSubject;
+
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final Cache<String, Decisions> cache;
+
+    private CachingPermissionVerifier(Builder<T> builder) {
+        this.delegate = builder.delegate;
+        this.versionResolver = builder.versionResolver;
+        this.maxDecisionsPerSubject = builder.maxDecisionsPerSubject;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(builder.maximumSubjects)
+                .expireAfterAccess(builder.expireAfterAccess)
+                .build();
+    }
+
+    public static <T extends AuthSubject> Builder<T> builder(PermissionVerifier<T> delegate) {
+        return new Builder<>(delegate);
+    }
+
+    @Override
+    public boolean isAllow(T auth, Collection<PermissionItem> permissions) {
+        return delegate.isAllow(auth, permissions);
+    }
+
+    @Override
+    public boolean isAllow(T auth, ResolvedPermission permission) {
+        var global = globalVersion.get();
+        var version = versionResolver.applyAsLong(auth);
+        var identifier = auth.identifier();
+
+        var decisions = cache.getIfPresent(identifier);
+        if (decisions == null
+                || decisions.globalVersion != global
+                || decisions.version != version) {
+            decisions = new Decisions(global, version);
+            cache.put(identifier, decisions);
+        }
+
+        var cached = decisions.find(permission);
+        if (cached != null) {
+            return cached.allowed();
+        }
+        var allowed = delegate.isAllow(auth, permission);
+        decisions.add(new Decision(permission, allowed), maxDecisionsPerSubject);
+        return allowed;
+    }
+
+    /**
+     * Bulk evaluations bypass the cache, to keep per subject decisions for the hot handlers.
+     */
+    @Override
+    public BitSet isAllowEach(T auth, List<ResolvedPermission> permissions) {
+        return delegate.isAllowEach(auth, permissions);
+    }
+
+    @Override
+    public BitSet isAllowEachItem(T auth, List<PermissionItem> items) {
+        return delegate.isAllowEachItem(auth, items);
+    }
+
+    /**
+     * Bump the global version, all cached decisions will be dropped lazily.
+     */
+    public void invalidateAll() {
+        globalVersion.incrementAndGet();
+    }
+
+    /**
+     * Drop decisions of the given subject.
+     */
+    public void invalidate(String identifier) {
+        cache.invalidate(identifier);
+    }
+
+    public long getGlobalVersion() {
+        return globalVersion.get();
+    }
+
+    private record Decision(
+            ResolvedPermission permission,
+            boolean allowed
+    ) {
+    }
+
+    private static final class Decisions {
+
+        private static final Decision[] EMPTY = new Decision[0];
+
+        final long globalVersion;
+        final long version;
+        final AtomicReference<Decision[]> slots = new AtomicReference<>(EMPTY);
+
+        Decisions(long globalVersion, long version) {
+            this.globalVersion = globalVersion;
+            this.version = version;
+        }
+
+        @Nullable
+        Decision find(ResolvedPermission permission) {
+            return find(slots.get(), permission);
+        }
+
+        void add(Decision decision, int max) {
+            var current = slots.get();
+            while (current.length < max && find(current, decision.permission()) == null) {
+                var next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = decision;
+                if (slots.compareAndSet(current, next)) {
+                    return;
+                }
+                current = slots.get();
+            }
+        }
+
+        @Nullable
+        private static Decision find(Decision[] decisions, ResolvedPermission permission) {
+            for (var decision : decisions) {
+                if (decision.permission() == permission) {
+                    return decision;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static class Builder<T extends AuthSubject> {
+
+        private final PermissionVerifier<T> delegate;
+
+        private ToLongFunction<T> versionResolver = auth -> 0L;
+        private long maximumSubjects = 10_000;
+        private int maxDecisionsPerSubject = 256;
+        private Duration expireAfterAccess = Duration.ofMinutes(30);
+
+        private Builder(PermissionVerifier<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Version of the subject grants, decisions are dropped once it changed.
+         */
+        public Builder<T> version(ToLongFunction<T> versionResolver) {
+            this.versionResolver = versionResolver;
+            return this;
+        }
+
+        public Builder<T> maximumSubjects(long maximumSubjects) {
+            this.maximumSubjects = maximumSubjects;
+            return this;
+        }
+
+        /**
+         * Limits decisions per subject, the exceeding ones are verified by the delegated without caching.
+         */
+        public Builder<T> maxDecisionsPerSubject(int maxDecisionsPerSubject) {
+            this.maxDecisionsPerSubject = maxDecisionsPerSubject;
+            return this;
+        }
+
+        public Builder<T> expireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        public CachingPermissionVerifier<T> build() {
+            return new CachingPermissionVerifier<>(this);
+        }
+    }
+}
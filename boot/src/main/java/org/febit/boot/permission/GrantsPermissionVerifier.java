@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import lombok.NoArgsConstructor;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Verifies allow lists against {@link PermissionGrants} of subject, supports wildcard grants.
+ */
+@NoArgsConstructor(staticName = "create")
+public class GrantsPermissionVerifier<T extends GrantsAuthSubject> implements PermissionVerifier<T> {
+
+    @Override
+    public boolean isAllow(T auth, Collection<PermissionItem> permissions) {
+        return auth.permissionGrants().matchesAny(permissions);
+    }
+
+    @Override
+    public BitSet isAllowEachItem(T auth, List<PermissionItem> items) {
+        var grants = auth.permissionGrants();
+        var result = new BitSet(items.size());
+        for (int i = 0, len = items.size(); i < len; i++) {
+            if (grants.matches(items.get(i))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+}
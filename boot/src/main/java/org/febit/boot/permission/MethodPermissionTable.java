@@ -0,0 +1,281 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of resolved permissions, keyed by handler method.
+ * <p>
+ * Entries are grouped into a small array per declaring class and published by a {@link ClassValue},
+ * so that a lookup compares method references only, without hashing {@link Method} or taking locks.
+ * Allow lists are indexed by {@link #getIndex()}, and carry their {@link ResolvedPermission#getMask()}.
+ * Succeeding tables, see {@link #newBuilder()} and {@link #toBuilder()}, keep ordinals of the index.
+ * <p>
+ * Values derived from a resolved permission can be cached in its slot, see {@link Attachment},
+ * they are dropped together with the table.
+ */
+public final class MethodPermissionTable {
+
+    public static final MethodPermissionTable EMPTY = builder().build();
+
+    private static final Slot[] NO_SLOTS = new Slot[0];
+
+    private final Map<Method, ResolvedPermission> mapping;
+    private final List<PermissionItem> items;
+    private final PermissionIndex index;
+    private final ClassValue<Slot[]> slots;
+
+    private MethodPermissionTable(
+            Map<Method, ResolvedPermission> mapping,
+            PermissionIndex baseIndex,
+            Map<Method, ResolvedPermission> previous
+    ) {
+        var items = mapping.values().stream()
+                .flatMap(permission -> permission.getItems().stream())
+                .distinct()
+                .sorted()
+                .toList();
+        var index = baseIndex.extend(items);
+        mapping.replaceAll((method, permission) -> {
+            if (!permission.isAllowList()) {
+                return permission;
+            }
+            // Masks of the base index are still valid, since ordinals are stable
+            var prior = previous.get(method);
+            return prior != null && prior.getMask() != null && isSameRule(prior, permission)
+                    ? prior
+                    : permission.withMask(index);
+        });
+        this.items = items;
+        this.index = index;
+        this.mapping = Collections.unmodifiableMap(mapping);
+
+        var grouped = new HashMap<Class<?>, Slot[]>();
+        mapping.forEach((method, permission) -> grouped.merge(
+                method.getDeclaringClass(),
+                new Slot[]{new Slot(method, permission)},
+                MethodPermissionTable::concat
+        ));
+        this.slots = new ClassValue<>() {
+            @Override
+            protected Slot[] computeValue(Class<?> type) {
+                return grouped.getOrDefault(type, NO_SLOTS);
+            }
+        };
+    }
+
+    public static Builder builder() {
+        return new Builder(PermissionIndex.EMPTY, Map.of());
+    }
+
+    /**
+     * Returns a builder pre-filled with entries of this table, for building an updated copy.
+     *
+     * @see #newBuilder()
+     */
+    public Builder toBuilder() {
+        return newBuilder().putAll(mapping);
+    }
+
+    /**
+     * Returns an empty builder succeeding this table, for a rebuild from scratch.
+     * <p>
+     * The built table extends the index of this table, so ordinals are stable,
+     * and reuses resolved permissions unchanged since, so they are still the same instances
+     * for caches keyed by reference, see {@link CachingPermissionVerifier}.
+     */
+    public Builder newBuilder() {
+        return new Builder(index, mapping);
+    }
+
+    private static boolean isSameRule(ResolvedPermission a, ResolvedPermission b) {
+        return a.getType() == b.getType()
+                && Objects.equals(a.getMessage(), b.getMessage())
+                && a.getItems().equals(b.getItems());
+    }
+
+    private static Slot[] concat(Slot[] a, Slot[] b) {
+        var result = new Slot[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * Returns the resolved permission of the given method.
+     * <p>
+     * Handler methods registered by Spring MVC are shared instances,
+     * so the reference comparison is expected to hit, the {@code equals} pass
+     * only serves copies obtained by reflection elsewhere.
+     */
+    public ResolvedPermission get(Method method, ResolvedPermission defaultValue) {
+        var slot = find(method);
+        return slot != null ? slot.permission : defaultValue;
+    }
+
+    /**
+     * Returns the attached value of the given method, loaded and cached in its slot on first demand.
+     * <p>
+     * Methods not in this table are loaded on every call, without caching.
+     */
+    public <V> V getAttachment(Method method, Attachment<V> attachment) {
+        var slot = find(method);
+        return slot != null
+                ? slot.attachment(attachment)
+                : attachment.load(method);
+    }
+
+    @Nullable
+    private Slot find(Method method) {
+        var candidates = this.slots.get(method.getDeclaringClass());
+        for (var slot : candidates) {
+            if (slot.method == method) {
+                return slot;
+            }
+        }
+        for (var slot : candidates) {
+            if (slot.method.equals(method)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * All unique permission items, sorted.
+     */
+    public List<PermissionItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Index of items, ordinals of which are stable across tables built by {@link #newBuilder()}.
+     */
+    public PermissionIndex getIndex() {
+        return index;
+    }
+
+    public Map<Method, ResolvedPermission> asMap() {
+        return mapping;
+    }
+
+    public int size() {
+        return mapping.size();
+    }
+
+    /**
+     * Key of a value derived from the resolved permission of a method, e.g. rules of the method.
+     * <p>
+     * Each instance takes a separate place in slots, so instances should be held as long-lived singletons.
+     *
+     * @param <V> type of value
+     */
+    public static final class Attachment<V> {
+
+        private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+        private final int id = NEXT_ID.getAndIncrement();
+        private final Function<Method, V> loader;
+
+        /**
+         * @param loader loads the value of a method, should not return {@code null}
+         */
+        public Attachment(Function<Method, V> loader) {
+            this.loader = loader;
+        }
+
+        public V load(Method method) {
+            return Objects.requireNonNull(loader.apply(method), "attachment should not be null");
+        }
+    }
+
+    private static final class Slot {
+
+        private static final Object[] NO_ATTACHMENTS = new Object[0];
+
+        private final Method method;
+        private final ResolvedPermission permission;
+        private volatile Object[] attachments = NO_ATTACHMENTS;
+
+        private Slot(Method method, ResolvedPermission permission) {
+            this.method = method;
+            this.permission = permission;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V> V attachment(Attachment<V> attachment) {
+            var id = attachment.id;
+            var values = this.attachments;
+            if (id < values.length && values[id] != null) {
+                return (V) values[id];
+            }
+            // Loaded outside the lock, a racing load is discarded
+            var value = attachment.load(method);
+            synchronized (this) {
+                values = this.attachments;
+                if (id < values.length && values[id] != null) {
+                    return (V) values[id];
+                }
+                values = Arrays.copyOf(values, Math.max(values.length, id + 1));
+                values[id] = value;
+                this.attachments = values;
+            }
+            return value;
+        }
+    }
+
+    public static final class Builder {
+
+        private final Map<Method, ResolvedPermission> mapping = new LinkedHashMap<>();
+        private final PermissionIndex baseIndex;
+        private final Map<Method, ResolvedPermission> previous;
+
+        private Builder(PermissionIndex baseIndex, Map<Method, ResolvedPermission> previous) {
+            this.baseIndex = baseIndex;
+            this.previous = previous;
+        }
+
+        public Builder put(Method method, ResolvedPermission permission) {
+            this.mapping.put(method, permission);
+            return this;
+        }
+
+        public Builder putAll(Map<Method, ResolvedPermission> mapping) {
+            this.mapping.putAll(mapping);
+            return this;
+        }
+
+        public Builder remove(Method method) {
+            this.mapping.remove(method);
+            return this;
+        }
+
+        public MethodPermissionTable build() {
+            return new MethodPermissionTable(new LinkedHashMap<>(mapping), baseIndex, previous);
+        }
+    }
+}
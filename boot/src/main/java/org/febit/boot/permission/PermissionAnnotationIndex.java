@@ -0,0 +1,155 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Build-time index of {@link Permission} and {@link AnonymousApi} on methods of a class,
+ * emitted by {@code febit-boot-devkit-permission-processor}.
+ * <p>
+ * One resource per class, at {@value #LOCATION}{@code <binary-name>}{@value #SUFFIX}, tab separated lines:
+ * <pre>
+ * type       anonymous   true|false
+ * method     name(param-types)   anonymous   true|false
+ * method     name(param-types)   permission  module  resource  action  separator
+ * </pre>
+ * A present index covers all methods declared in the class.
+ */
+@Slf4j
+public final class PermissionAnnotationIndex {
+
+    public static final String LOCATION = "META-INF/febit-boot/permission-index/";
+    public static final String SUFFIX = ".idx";
+
+    private static final ClassValue<Optional<PermissionAnnotationIndex>> INDEXES = new ClassValue<>() {
+        @Override
+        protected Optional<PermissionAnnotationIndex> computeValue(Class<?> type) {
+            return Optional.ofNullable(load(type));
+        }
+    };
+
+    @Nullable
+    private final Boolean typeAnonymous;
+    private final Map<String, Boolean> methodAnonymous;
+    private final Map<String, List<PermissionItem>> methodPermissions;
+
+    private PermissionAnnotationIndex(
+            @Nullable Boolean typeAnonymous,
+            Map<String, Boolean> methodAnonymous,
+            Map<String, List<PermissionItem>> methodPermissions
+    ) {
+        this.typeAnonymous = typeAnonymous;
+        this.methodAnonymous = methodAnonymous;
+        this.methodPermissions = methodPermissions;
+    }
+
+    /**
+     * Returns the index of the given class, or {@code null} if not indexed.
+     */
+    @Nullable
+    public static PermissionAnnotationIndex of(Class<?> type) {
+        return INDEXES.get(type).orElse(null);
+    }
+
+    public List<PermissionItem> getPermissions(Method method) {
+        return methodPermissions.getOrDefault(methodKey(method), List.of());
+    }
+
+    /**
+     * Same as {@link AnonymousApi} lookup on the method, then on the declaring class.
+     */
+    @Nullable
+    public Boolean isAnonymous(Method method) {
+        var anonymous = methodAnonymous.get(methodKey(method));
+        return anonymous != null ? anonymous : typeAnonymous;
+    }
+
+    /**
+     * Key of method, as {@code name(param-types)}, types in canonical names.
+     */
+    public static String methodKey(Method method) {
+        var buf = new StringBuilder(64)
+                .append(method.getName())
+                .append('(');
+        var params = method.getParameterTypes();
+        for (int i = 0; i < params.length; i++) {
+            if (i != 0) {
+                buf.append(',');
+            }
+            var name = params[i].getCanonicalName();
+            buf.append(name != null ? name : params[i].getName());
+        }
+        return buf.append(')').toString();
+    }
+
+    @Nullable
+    private static PermissionAnnotationIndex load(Class<?> type) {
+        var loader = type.getClassLoader();
+        if (loader == null) {
+            return null;
+        }
+        var in = loader.getResourceAsStream(LOCATION + type.getName() + SUFFIX);
+        if (in == null) {
+            return null;
+        }
+        try (var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read permission index of " + type.getName(), e);
+        }
+    }
+
+    static PermissionAnnotationIndex parse(BufferedReader reader) throws IOException {
+        Boolean typeAnonymous = null;
+        var methodAnonymous = new HashMap<String, Boolean>();
+        var methodPermissions = new HashMap<String, List<PermissionItem>>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            var parts = line.split("\t", -1);
+            if (parts.length == 3 && "type".equals(parts[0]) && "anonymous".equals(parts[1])) {
+                typeAnonymous = Boolean.valueOf(parts[2]);
+            } else if (parts.length == 4 && "method".equals(parts[0]) && "anonymous".equals(parts[2])) {
+                methodAnonymous.put(parts[1], Boolean.valueOf(parts[3]));
+            } else if (parts.length == 7 && "method".equals(parts[0]) && "permission".equals(parts[2])) {
+                methodPermissions.computeIfAbsent(parts[1], k -> new ArrayList<>())
+                        .add(PermissionItem.of(parts[3], parts[4], parts[5], parts[6]));
+            } else {
+                throw new IOException("Malformed permission index line: " + line);
+            }
+        }
+        methodPermissions.replaceAll((k, items) -> items.stream().distinct().toList());
+        return new PermissionAnnotationIndex(typeAnonymous,
+                Map.copyOf(methodAnonymous), Map.copyOf(methodPermissions));
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled grants, a trie over {@link PermissionItem#module()}, {@link PermissionItem#resource()}
+ * and {@link PermissionItem#action()}.
+ * <p>
+ * A wildcard grant is a single node covering its whole subtree, and exact actions share one leaf,
+ * a lookup walks at most three levels without allocating.
+ * Exact patterns are also kept as codes and matched against {@link PermissionItem#code()},
+ * so that stored codes of items without module, e.g. {@code order:read}, are granted as declared.
+ * Instances are immutable, compile grants of a role once and {@link Builder#merge(PermissionGrants)} them per subject.
+ */
+public final class PermissionGrants {
+
+    public static final String WILDCARD = "*";
+
+    /**
+     * Default separator of patterns, same as the default of {@link Permission#separator()}.
+     */
+    public static final String SEPARATOR = ":";
+
+    private static final Node ALL_NODE = new Node(true, Map.of());
+    private static final Node EMPTY_NODE = new Node(false, Map.of());
+
+    public static final PermissionGrants ALL = new PermissionGrants(ALL_NODE, Set.of());
+    public static final PermissionGrants EMPTY = new PermissionGrants(EMPTY_NODE, Set.of());
+
+    private final Node root;
+    private final Set<String> codes;
+
+    private PermissionGrants(Node root, Set<String> codes) {
+        this.root = root;
+        this.codes = codes;
+    }
+
+    public static Builder builder() {
+        return builder(SEPARATOR);
+    }
+
+    /**
+     * @param separator separator of patterns, should be the one of permission codes, see {@link Permission#separator()}
+     */
+    public static Builder builder(String separator) {
+        return new Builder(separator);
+    }
+
+    /**
+     * Compile the given patterns, separated by {@link #SEPARATOR}.
+     *
+     * @see Builder#grant(String)
+     */
+    public static PermissionGrants of(Collection<String> patterns) {
+        return of(patterns, SEPARATOR);
+    }
+
+    /**
+     * Compile the given patterns, separated by the given separator.
+     *
+     * @see Builder#grant(String)
+     */
+    public static PermissionGrants of(Collection<String> patterns, String separator) {
+        var builder = builder(separator);
+        patterns.forEach(builder::grant);
+        return builder.build();
+    }
+
+    public boolean isEmpty() {
+        return root == EMPTY_NODE && codes.isEmpty();
+    }
+
+    public boolean matches(PermissionItem item) {
+        if (!codes.isEmpty() && codes.contains(item.code())) {
+            return true;
+        }
+        return matches(item.module(), item.resource(), item.action());
+    }
+
+    /**
+     * Positional match, codes of exact patterns are not involved.
+     */
+    public boolean matches(String module, String resource, String action) {
+        var node = root;
+        if (node.all) {
+            return true;
+        }
+        node = node.children.get(module);
+        if (node == null) {
+            return false;
+        }
+        if (node.all) {
+            return true;
+        }
+        node = node.children.get(resource);
+        if (node == null) {
+            return false;
+        }
+        if (node.all) {
+            return true;
+        }
+        return node.children.containsKey(action);
+    }
+
+    /**
+     * Whether any of the given items is granted.
+     */
+    public boolean matchesAny(Collection<PermissionItem> items) {
+        for (var item : items) {
+            if (matches(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Node(
+            boolean all,
+            Map<String, Node> children
+    ) {
+    }
+
+    private static final class MutableNode {
+
+        boolean all;
+
+        @Nullable
+        Map<String, MutableNode> children;
+
+        MutableNode child(String key) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(key, k -> new MutableNode());
+        }
+
+        void grantAll() {
+            all = true;
+            children = null;
+        }
+
+        void merge(Node node) {
+            if (all) {
+                return;
+            }
+            if (node.all) {
+                grantAll();
+                return;
+            }
+            node.children.forEach((key, child) -> child(key).merge(child));
+        }
+
+        Node compile() {
+            if (all) {
+                return ALL_NODE;
+            }
+            if (children == null || children.isEmpty()) {
+                return EMPTY_NODE;
+            }
+            var compiled = new HashMap<String, Node>(children.size() * 2);
+            children.forEach((key, child) -> {
+                var node = child.compile();
+                if (node != EMPTY_NODE) {
+                    compiled.put(key, node);
+                }
+            });
+            return compiled.isEmpty()
+                    ? EMPTY_NODE
+                    : new Node(false, Map.copyOf(compiled));
+        }
+    }
+
+    public static final class Builder {
+
+        private final MutableNode root = new MutableNode();
+        private final Set<String> codes = new HashSet<>();
+        private final Pattern splitter;
+
+        private Builder(String separator) {
+            if (separator.isEmpty()) {
+                throw new IllegalArgumentException("separator should not be empty");
+            }
+            this.splitter = Pattern.compile(Pattern.quote(separator));
+        }
+
+        /**
+         * Grant by pattern {@code module:resource:action}, segments are positional, separated by the separator.
+         * <p>
+         * A trailing {@code *} grants all below, e.g. {@code *}, {@code module:*} and {@code module:resource:*},
+         * missing trailing segments are treated as empty.
+         * Exact patterns are also matched as codes, so {@code order:read} grants the item declared by
+         * {@code @Permission(resource = "order", action = "read")}.
+         * For wildcards of items without module, lead with an empty module, e.g. {@code :order:*}.
+         */
+        public Builder grant(String pattern) {
+            var lower = pattern.toLowerCase();
+            var segments = splitter.split(lower, -1);
+            if (segments.length > 3) {
+                throw new IllegalArgumentException("Too many segments in permission pattern: " + pattern);
+            }
+            var node = root;
+            for (int i = 0; i < 3; i++) {
+                if (node.all) {
+                    return this;
+                }
+                var segment = i < segments.length ? segments[i] : "";
+                if (WILDCARD.equals(segment)) {
+                    if (i != segments.length - 1) {
+                        throw new IllegalArgumentException("Wildcard should be the last segment: " + pattern);
+                    }
+                    node.grantAll();
+                    return this;
+                }
+                node = node.child(segment);
+            }
+            node.grantAll();
+            codes.add(lower);
+            return this;
+        }
+
+        /**
+         * Grant an exact permission, {@code null} as wildcard of the level and all below.
+         */
+        public Builder grant(@Nullable String module, @Nullable String resource, @Nullable String action) {
+            var segments = new String[]{module, resource, action};
+            var node = root;
+            for (var segment : segments) {
+                if (node.all) {
+                    return this;
+                }
+                if (segment == null) {
+                    break;
+                }
+                node = node.child(segment.toLowerCase());
+            }
+            node.grantAll();
+            return this;
+        }
+
+        public Builder grant(PermissionItem item) {
+            return grant(item.module(), item.resource(), item.action());
+        }
+
+        public Builder merge(PermissionGrants grants) {
+            root.merge(grants.root);
+            codes.addAll(grants.codes);
+            return this;
+        }
+
+        public PermissionGrants build() {
+            var node = root.compile();
+            if (node == ALL_NODE) {
+                return ALL;
+            }
+            if (node == EMPTY_NODE && codes.isEmpty()) {
+                return EMPTY;
+            }
+            return new PermissionGrants(node, Set.copyOf(codes));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense ordinals of a permission universe, used to encode grants as bitsets.
+ * <p>
+ * Ordinals are assigned per distinct {@link PermissionItem#code()}, in the order of the given items,
+ * items sharing a code are treated as the same permission, as code based verifiers do.
+ * <p>
+ * Ordinals are stable across {@link #extend(Collection)}, so that bitsets encoded by an earlier index,
+ * for example cached in auth subjects, stay valid against masks of a later one.
+ */
+public final class PermissionIndex {
+
+    public static final PermissionIndex EMPTY = of(List.of());
+
+    private final List<PermissionItem> items;
+    private final Map<String, Integer> ordinals;
+
+    private PermissionIndex(List<PermissionItem> items, Map<String, Integer> ordinals) {
+        this.items = items;
+        this.ordinals = ordinals;
+    }
+
+    /**
+     * Create index of the given universe.
+     *
+     * @param items sorted and distinct items, as {@link PermissionManager#getAllPermissionItems()}
+     */
+    public static PermissionIndex of(List<PermissionItem> items) {
+        var ordinals = new HashMap<String, Integer>();
+        for (var item : items) {
+            ordinals.putIfAbsent(item.code(), ordinals.size());
+        }
+        return new PermissionIndex(List.copyOf(items), Map.copyOf(ordinals));
+    }
+
+    /**
+     * Returns an index keeping all ordinals of this one, with new codes of the given items appended,
+     * or this index itself if there is no new code.
+     * <p>
+     * Codes are never removed, so ordinals are not reused by another permission.
+     */
+    public PermissionIndex extend(Collection<PermissionItem> items) {
+        HashMap<String, Integer> extended = null;
+        List<PermissionItem> extendedItems = null;
+        for (var item : items) {
+            if (ordinals.containsKey(item.code())
+                    || (extended != null && extended.containsKey(item.code()))) {
+                continue;
+            }
+            if (extended == null) {
+                extended = new HashMap<>(ordinals);
+                extendedItems = new ArrayList<>(this.items);
+            }
+            extended.put(item.code(), extended.size());
+            extendedItems.add(item);
+        }
+        if (extended == null) {
+            return this;
+        }
+        return new PermissionIndex(List.copyOf(extendedItems), Map.copyOf(extended));
+    }
+
+    /**
+     * All items ever indexed, in the order of ordinals.
+     */
+    public List<PermissionItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Number of ordinals, aka. distinct codes.
+     */
+    public int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * Returns the ordinal of the given code, or {@code -1} if out of this universe.
+     */
+    public int ordinal(String code) {
+        var ordinal = ordinals.get(code);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public int ordinal(PermissionItem item) {
+        return ordinal(item.code());
+    }
+
+    /**
+     * Encode the given items into a bitset, items out of this universe are skipped.
+     */
+    public long[] encodeItems(Collection<PermissionItem> items) {
+        var bits = new long[words(size())];
+        for (var item : items) {
+            set(bits, ordinal(item));
+        }
+        return bits;
+    }
+
+    /**
+     * Encode the given codes into a bitset, codes out of this universe are skipped.
+     */
+    public long[] encodeCodes(Collection<String> codes) {
+        var bits = new long[words(size())];
+        for (var code : codes) {
+            set(bits, ordinal(code));
+        }
+        return bits;
+    }
+
+    public static int words(int bitCount) {
+        return (bitCount + 63) >>> 6;
+    }
+
+    public static void set(long[] bits, int ordinal) {
+        if (ordinal < 0) {
+            return;
+        }
+        bits[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    public static boolean get(long[] bits, int ordinal) {
+        if (ordinal < 0) {
+            return false;
+        }
+        var word = ordinal >>> 6;
+        return word < bits.length
+                && (bits[word] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * Whether the two bitsets have any bit in common.
+     */
+    public static boolean intersects(long[] a, long[] b) {
+        var len = Math.min(a.length, b.length);
+        for (int i = 0; i < len; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
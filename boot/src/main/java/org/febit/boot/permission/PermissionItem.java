@@ -30,10 +30,13 @@ public record PermissionItem(
             .thenComparing(PermissionItem::action);
 
     public static PermissionItem of(Permission permission) {
-        var module = permission.module().toLowerCase();
-        var resource = permission.resource().toLowerCase();
-        var action = permission.action().toLowerCase();
-        var separator = permission.separator();
+        return of(permission.module(), permission.resource(), permission.action(), permission.separator());
+    }
+
+    public static PermissionItem of(String rawModule, String rawResource, String rawAction, String separator) {
+        var module = rawModule.toLowerCase();
+        var resource = rawResource.toLowerCase();
+        var action = rawAction.toLowerCase();
 
         String code;
         if (module.isEmpty() && action.isEmpty()) {
@@ -15,12 +15,51 @@
  */
 package org.febit.boot.permission;
 
+import org.febit.boot.auth.AuthSubject;
+
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface PermissionManager {
 
     ResolvedPermission getPermission(Method method);
 
+    /**
+     * Value derived from the resolved permission of the given method, cached along with it if supported.
+     * <p>
+     * NOTE: default implementation loads on every call, implementations should cache it,
+     * see {@link MethodPermissionTable#getAttachment(Method, MethodPermissionTable.Attachment)}.
+     */
+    default <V> V getAttachment(Method method, MethodPermissionTable.Attachment<V> attachment) {
+        return attachment.load(method);
+    }
+
     List<PermissionItem> getAllPermissionItems();
+
+    /**
+     * Ordinals of {@link #getAllPermissionItems()}, may cover items removed since, whose ordinals are kept.
+     * <p>
+     * NOTE: default implementation rebuilds the index on every call, implementations should hold it.
+     */
+    default PermissionIndex getPermissionIndex() {
+        return PermissionIndex.of(getAllPermissionItems());
+    }
+
+    /**
+     * Items of {@link #getAllPermissionItems()} granted to the given subject, evaluated in one pass.
+     *
+     * @see PermissionVerifier#isAllowEachItem(AuthSubject, List)
+     */
+    default <T extends AuthSubject> List<PermissionItem> getAllowedPermissionItems(
+            T auth, PermissionVerifier<T> verifier
+    ) {
+        var items = getAllPermissionItems();
+        var allowed = verifier.isAllowEachItem(auth, items);
+        var result = new ArrayList<PermissionItem>(allowed.cardinality());
+        for (int i = allowed.nextSetBit(0); i >= 0; i = allowed.nextSetBit(i + 1)) {
+            result.add(items.get(i));
+        }
+        return result;
+    }
 }
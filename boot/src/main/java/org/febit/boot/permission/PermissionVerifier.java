@@ -17,9 +17,54 @@ package org.febit.boot.permission;
 
 import org.febit.boot.auth.AuthSubject;
 
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public interface PermissionVerifier<T extends AuthSubject> {
 
     boolean isAllow(T auth, Collection<PermissionItem> permissions);
+
+    /**
+     * Verify an allow list, implementations could take advantage of {@link ResolvedPermission#getMask()}.
+     */
+    default boolean isAllow(T auth, ResolvedPermission permission) {
+        return isAllow(auth, permission.getItems());
+    }
+
+    /**
+     * Evaluate the given permissions in one pass, e.g. to render menus.
+     * <p>
+     * Ignored ones are allowed and forbidden ones denied, as {@code WebAuthHandler} does,
+     * implementations could load grants of the subject once.
+     *
+     * @return bit {@code i} set if {@code permissions.get(i)} is allowed
+     */
+    default BitSet isAllowEach(T auth, List<ResolvedPermission> permissions) {
+        var result = new BitSet(permissions.size());
+        for (int i = 0, len = permissions.size(); i < len; i++) {
+            var permission = permissions.get(i);
+            if (permission.isIgnored()
+                    || (permission.isAllowList() && isAllow(auth, permission))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the given items in one pass, typically {@link PermissionManager#getAllPermissionItems()}.
+     *
+     * @return bit {@code i} set if {@code items.get(i)} is granted
+     */
+    default BitSet isAllowEachItem(T auth, List<PermissionItem> items) {
+        var result = new BitSet(items.size());
+        for (int i = 0, len = items.size(); i < len; i++) {
+            if (isAllow(auth, Collections.singletonList(items.get(i)))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
 }
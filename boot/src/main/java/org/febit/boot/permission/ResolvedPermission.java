@@ -20,6 +20,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.List;
 
@@ -31,21 +32,27 @@ import java.util.List;
 public class ResolvedPermission {
 
     public static final ResolvedPermission IGNORED
-            = of(Type.IGNORED, "Ignored", List.of());
+            = of(Type.IGNORED, "Ignored", List.of(), null);
 
     public static final ResolvedPermission ANONYMOUS
-            = of(Type.IGNORED, "Anonymous", List.of());
+            = of(Type.IGNORED, "Anonymous", List.of(), null);
 
     public static final ResolvedPermission FORBIDDEN_ABSENT
-            = of(Type.FORBIDDEN, "Forbidden: permission is absent.", List.of());
+            = of(Type.FORBIDDEN, "Forbidden: permission is absent.", List.of(), null);
 
     public static final ResolvedPermission FORBIDDEN_NOT_IN_CHARGE
-            = of(Type.FORBIDDEN, "Forbidden: not in charge.", List.of());
+            = of(Type.FORBIDDEN, "Forbidden: not in charge.", List.of(), null);
 
     private final Type type;
     private final String message;
     private final List<PermissionItem> items;
 
+    /**
+     * Bitset of items, encoded by {@link PermissionIndex}, {@code null} if not indexed.
+     */
+    @Nullable
+    private final long[] mask;
+
     public boolean isIgnored() {
         return type == Type.IGNORED;
     }
@@ -62,6 +69,13 @@ public class ResolvedPermission {
         return this.items.size();
     }
 
+    /**
+     * Returns a copy carrying the bitset of items, encoded by the given index.
+     */
+    public ResolvedPermission withMask(PermissionIndex index) {
+        return of(type, message, items, index.encodeItems(items));
+    }
+
     public enum Type {
         IGNORED,
         FORBIDDEN,
@@ -76,6 +90,6 @@ public class ResolvedPermission {
                 ? List.copyOf(permissions)
                 : permissions.stream().sorted().toList();
 
-        return of(Type.ALLOW_LIST, "Allow permissions", sorted);
+        return of(Type.ALLOW_LIST, "Allow permissions", sorted, null);
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission.data;
+
+import org.febit.boot.auth.AuthSubject;
+import org.jooq.Condition;
+import org.jooq.Table;
+
+import javax.annotation.Nullable;
+
+/**
+ * Row level permission rule, restricts rows of a table visible to the subject.
+ * <p>
+ * Rules are evaluated once per subject and table, the result is cached by {@link DataPermissions},
+ * so implementations should depend on the subject and the table metadata only.
+ *
+ * @see DataPermissionRules
+ */
+@FunctionalInterface
+public interface DataPermissionRule<T extends AuthSubject> {
+
+    /**
+     * Returns the condition to restrict rows of the given table.
+     *
+     * @param auth  subject, {@code null} if anonymous
+     * @param table table, generated table or its alias
+     * @return {@code null} if not applicable to the table
+     */
+    @Nullable
+    Condition condition(@Nullable T auth, Table<?> table);
+}
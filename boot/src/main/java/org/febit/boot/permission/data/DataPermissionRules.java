@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission.data;
+
+import lombok.experimental.UtilityClass;
+import org.febit.boot.auth.AuthSubject;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Rules restricting rows by a column.
+ * <p>
+ * Rows are invisible to anonymous subjects, or if the subject has no value for the column.
+ * Rules fail closed, all rows are invisible if the table has no such column, for example a misspelled one.
+ * Limit rules to tables explicitly by {@link #when(Predicate, DataPermissionRule)}, for example:
+ * <pre>{@code
+ * .rule(when(hasColumn("tenant_id"), eq("tenant_id", auth -> auth.getTenantId())))
+ * }</pre>
+ */
+@UtilityClass
+public class DataPermissionRules {
+
+    /**
+     * Rows owned by the subject, aka. the column equals to {@link AuthSubject#identifier()}.
+     */
+    public static <T extends AuthSubject> DataPermissionRule<T> owner(String column) {
+        return eq(column, AuthSubject::identifier);
+    }
+
+    /**
+     * Rows whose column equals to the value of subject, for example a tenant or department id.
+     */
+    public static <T extends AuthSubject> DataPermissionRule<T> eq(
+            String column, Function<T, ?> valueResolver
+    ) {
+        return (auth, table) -> {
+            var field = table.field(column);
+            if (field == null) {
+                return DSL.falseCondition();
+            }
+            var value = auth != null ? valueResolver.apply(auth) : null;
+            return value != null
+                    ? equalTo(field, value)
+                    : DSL.falseCondition();
+        };
+    }
+
+    /**
+     * Rows whose column in the values of subject.
+     */
+    public static <T extends AuthSubject> DataPermissionRule<T> in(
+            String column, Function<T, ? extends Collection<?>> valuesResolver
+    ) {
+        return (auth, table) -> {
+            var field = table.field(column);
+            if (field == null) {
+                return DSL.falseCondition();
+            }
+            var values = auth != null ? valuesResolver.apply(auth) : null;
+            return values != null && !values.isEmpty()
+                    ? field.in(values)
+                    : DSL.falseCondition();
+        };
+    }
+
+    /**
+     * Applies the rule to tables matching the given predicate only, other tables are not restricted by it.
+     */
+    public static <T extends AuthSubject> DataPermissionRule<T> when(
+            Predicate<Table<?>> applicable, DataPermissionRule<T> rule
+    ) {
+        return (auth, table) -> applicable.test(table)
+                ? rule.condition(auth, table)
+                : null;
+    }
+
+    /**
+     * Tables which have the given column.
+     */
+    public static Predicate<Table<?>> hasColumn(String column) {
+        return table -> table.field(column) != null;
+    }
+
+    private static <V> Condition equalTo(Field<V> field, Object value) {
+        return field.eq(field.getDataType().convert(value));
+    }
+}
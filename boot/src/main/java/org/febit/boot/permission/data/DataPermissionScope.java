@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission.data;
+
+import org.jooq.Condition;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Compiled data permission conditions of a subject, per table.
+ * <p>
+ * Conditions are kept in a copy-on-write array, matched by the reference of table only,
+ * generated tables are singletons, so that lookups are lock-free and without hashing.
+ * <p>
+ * NOTE: jOOQ tables are equal by their (alias) names, {@code LOG.as("t")} equals to {@code ORDER.as("t")},
+ * hence never matched by equality. Each {@code as(...)} call creates a new instance,
+ * declare aliases as constants to benefit from the cache.
+ */
+public final class DataPermissionScope {
+
+    private static final Slot[] EMPTY = new Slot[0];
+
+    final long globalVersion;
+    final long version;
+
+    private final Function<Table<?>, Condition> compiler;
+    private final int maxTables;
+    private final AtomicReference<Slot[]> slots = new AtomicReference<>(EMPTY);
+
+    DataPermissionScope(
+            Function<Table<?>, Condition> compiler,
+            long globalVersion, long version, int maxTables
+    ) {
+        this.compiler = compiler;
+        this.globalVersion = globalVersion;
+        this.version = version;
+        this.maxTables = maxTables;
+    }
+
+    /**
+     * Returns the condition restricting rows of the given table, {@code noCondition()} if no rule applicable.
+     */
+    public Condition condition(Table<?> table) {
+        var current = slots.get();
+        var cached = find(current, table);
+        if (cached != null) {
+            return cached.condition;
+        }
+        var condition = compiler.apply(table);
+        add(current, new Slot(table, condition));
+        return condition;
+    }
+
+    /**
+     * Returns the combined conditions of the given tables, for joins.
+     */
+    public Condition condition(Table<?>... tables) {
+        var conditions = new Condition[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            conditions[i] = condition(tables[i]);
+        }
+        return DSL.and(conditions);
+    }
+
+    private void add(Slot[] current, Slot slot) {
+        while (current.length < maxTables && find(current, slot.table) == null) {
+            var next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = slot;
+            if (slots.compareAndSet(current, next)) {
+                return;
+            }
+            current = slots.get();
+        }
+    }
+
+    @Nullable
+    private static Slot find(Slot[] candidates, Table<?> table) {
+        for (var slot : candidates) {
+            if (slot.table == table) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private record Slot(
+            Table<?> table,
+            Condition condition
+    ) {
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission.data;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.febit.boot.auth.AuthSubject;
+import org.jooq.Condition;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compiles {@link DataPermissionRule}s into jOOQ conditions, cached per subject scope and table.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * var scope = dataPermissions.scope(auth);
+ * dsl.selectFrom(T_ORDER)
+ *         .where(scope.condition(T_ORDER))
+ *         .and(...)
+ * }</pre>
+ * Scopes are invalidated when the global version, or the version of subject, changed,
+ * as {@link org.febit.boot.permission.CachingPermissionVerifier}.
+ * Scopes of subjects are not cached unless {@link Builder#version(ToLongFunction)} is given,
+ * since rules usually depend on subject attributes, e.g. tenant or department, which may change.
+ * <p>
+ * NOTE: requires {@code com.github.ben-manes.caffeine:caffeine}.
+ */
+public class DataPermissions<T extends AuthSubject> {
+
+    private final List<DataPermissionRule<T>> rules;
+    @Nullable
+    private final ToLongFunction<T> versionResolver;
+    private final int maxTablesPerSubject;
+
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final Cache<String, DataPermissionScope> cache;
+    private volatile DataPermissionScope anonymous;
+
+    private DataPermissions(Builder<T> builder) {
+        this.rules = List.copyOf(builder.rules);
+        this.versionResolver = builder.versionResolver;
+        this.maxTablesPerSubject = builder.maxTablesPerSubject;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(builder.maximumSubjects)
+                .expireAfterAccess(builder.expireAfterAccess)
+                .build();
+        this.anonymous = newScope(null, 0L, 0L);
+    }
+
+    public static <T extends AuthSubject> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Returns the condition scope of the given subject.
+     * <p>
+     * Hold the scope for a unit of work, e.g. a request, if the version is not given.
+     *
+     * @param auth subject, {@code null} if anonymous
+     */
+    public DataPermissionScope scope(@Nullable T auth) {
+        var global = globalVersion.get();
+        if (auth == null) {
+            var scope = anonymous;
+            if (scope.globalVersion != global) {
+                scope = newScope(null, global, 0L);
+                anonymous = scope;
+            }
+            return scope;
+        }
+        if (versionResolver == null) {
+            return newScope(auth, global, 0L);
+        }
+        var version = versionResolver.applyAsLong(auth);
+        var identifier = auth.identifier();
+
+        var scope = cache.getIfPresent(identifier);
+        if (scope == null
+                || scope.globalVersion != global
+                || scope.version != version) {
+            scope = newScope(auth, global, version);
+            cache.put(identifier, scope);
+        }
+        return scope;
+    }
+
+    /**
+     * Shortcut of {@code scope(auth).condition(table)}.
+     */
+    public Condition condition(@Nullable T auth, Table<?> table) {
+        return scope(auth).condition(table);
+    }
+
+    /**
+     * Bump the global version, all cached conditions will be dropped lazily.
+     */
+    public void invalidateAll() {
+        globalVersion.incrementAndGet();
+    }
+
+    /**
+     * Drop conditions of the given subject.
+     */
+    public void invalidate(String identifier) {
+        cache.invalidate(identifier);
+    }
+
+    private DataPermissionScope newScope(@Nullable T auth, long global, long version) {
+        return new DataPermissionScope(
+                table -> compile(auth, table),
+                global, version, maxTablesPerSubject
+        );
+    }
+
+    private Condition compile(@Nullable T auth, Table<?> table) {
+        var conditions = new ArrayList<Condition>(rules.size());
+        for (var rule : rules) {
+            var condition = rule.condition(auth, table);
+            if (condition != null) {
+                conditions.add(condition);
+            }
+        }
+        return conditions.isEmpty()
+                ? DSL.noCondition()
+                : DSL.and(conditions);
+    }
+
+    public static class Builder<T extends AuthSubject> {
+
+        private final List<DataPermissionRule<T>> rules = new ArrayList<>();
+
+        @Nullable
+        private ToLongFunction<T> versionResolver;
+        private long maximumSubjects = 10_000;
+        private int maxTablesPerSubject = 64;
+        private Duration expireAfterAccess = Duration.ofMinutes(30);
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a rule, conditions of all applicable rules are combined with {@code AND}.
+         */
+        public Builder<T> rule(DataPermissionRule<T> rule) {
+            this.rules.add(rule);
+            return this;
+        }
+
+        /**
+         * Version of the subject attributes used by rules, conditions are dropped once it changed.
+         * <p>
+         * Required to cache scopes of subjects, if absent a new scope is created per call of
+         * {@link DataPermissions#scope(AuthSubject)}.
+         */
+        public Builder<T> version(ToLongFunction<T> versionResolver) {
+            this.versionResolver = versionResolver;
+            return this;
+        }
+
+        public Builder<T> maximumSubjects(long maximumSubjects) {
+            this.maximumSubjects = maximumSubjects;
+            return this;
+        }
+
+        /**
+         * Limits cached conditions per subject, the exceeding ones are compiled on each call.
+         */
+        public Builder<T> maxTablesPerSubject(int maxTablesPerSubject) {
+            this.maxTablesPerSubject = maxTablesPerSubject;
+            return this;
+        }
+
+        public Builder<T> expireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        public DataPermissions<T> build() {
+            return new DataPermissions<>(this);
+        }
+    }
+}
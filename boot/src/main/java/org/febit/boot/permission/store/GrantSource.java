@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission.store;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of subject grants, loaded by {@link GrantStore} in background.
+ * <p>
+ * Grants are patterns of {@link org.febit.boot.permission.PermissionGrants}, keyed by subject identifier.
+ * Implementations keep the change cursor, and are called by one thread at a time.
+ *
+ * @see JooqGrantSource
+ */
+public interface GrantSource {
+
+    /**
+     * Loads grants of all subjects, and resets the change cursor.
+     */
+    Map<String, List<String>> loadAll();
+
+    /**
+     * Loads complete grants of subjects changed since the last load, and moves the change cursor.
+     *
+     * @return changed subjects only, with an empty list if all grants of the subject revoked
+     */
+    Map<String, List<String>> loadChanged();
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.febit.boot.permission.PermissionGrants;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory grants of subjects, loaded from {@link GrantSource} and refreshed incrementally in background.
+ * <p>
+ * Grants are published as an immutable snapshot, lookups on the request path are a volatile read and
+ * a map lookup, never touch the source.
+ * Stored patterns are compiled by {@link PermissionGrants#of(java.util.Collection, String)},
+ * exact ones are matched by {@link org.febit.boot.permission.PermissionItem#code()}.
+ * Changes are polled every {@link Builder#pollInterval(Duration)}, and a full reload is performed
+ * every {@link Builder#fullReloadInterval(Duration)} to catch up changes missed by the cursor.
+ * Push notifications, for example PostgreSQL {@code LISTEN/NOTIFY} or a message bus,
+ * could trigger an immediate refresh via {@link #notifyChanged()}.
+ *
+ * @see GrantStorePermissionVerifier
+ */
+@Slf4j
+public class GrantStore implements SmartLifecycle {
+
+    private final GrantSource source;
+    private final long pollIntervalMillis;
+    private final long fullReloadIntervalNanos;
+    private final String separator;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private volatile Map<String, PermissionGrants> snapshot = Map.of();
+    private volatile boolean loaded;
+    private volatile long lastFullReloadNanos;
+    private volatile long version;
+    private volatile ScheduledExecutorService executor;
+
+    private GrantStore(Builder builder) {
+        this.source = builder.source;
+        this.pollIntervalMillis = builder.pollInterval.toMillis();
+        this.fullReloadIntervalNanos = builder.fullReloadInterval.toNanos();
+        this.separator = builder.separator;
+    }
+
+    public static Builder builder(GrantSource source) {
+        return new Builder(source);
+    }
+
+    /**
+     * Returns grants of the given subject, {@link PermissionGrants#EMPTY} if absent.
+     */
+    public PermissionGrants grantsOf(String identifier) {
+        return snapshot.getOrDefault(identifier, PermissionGrants.EMPTY);
+    }
+
+    /**
+     * Number of subjects in the current snapshot.
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Number of snapshots published.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Reload grants of all subjects from source, synchronously.
+     */
+    public void reload() {
+        loadLock.lock();
+        try {
+            var rows = source.loadAll();
+            var next = new HashMap<String, PermissionGrants>(rows.size() * 4 / 3 + 1);
+            rows.forEach((id, patterns) -> put(next, id, patterns));
+            publish(next);
+            this.lastFullReloadNanos = System.nanoTime();
+            this.loaded = true;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Apply changes from source, synchronously, falls back to full reload if it's time to.
+     */
+    public void refresh() {
+        loadLock.lock();
+        try {
+            if (!loaded || System.nanoTime() - lastFullReloadNanos >= fullReloadIntervalNanos) {
+                reload();
+                return;
+            }
+            var changes = source.loadChanged();
+            if (changes.isEmpty()) {
+                return;
+            }
+            var next = new HashMap<>(snapshot);
+            changes.forEach((id, patterns) -> put(next, id, patterns));
+            publish(next);
+            log.debug("Applied grant changes of {} subject(s)", changes.size());
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Schedules an immediate refresh in background, for push notifications.
+     */
+    public void notifyChanged() {
+        var current = this.executor;
+        if (current != null) {
+            current.execute(this::refreshQuietly);
+        }
+    }
+
+    /**
+     * Loads all grants synchronously, then starts polling.
+     */
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        reload();
+        var scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "febit-grant-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly,
+                pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        this.executor = scheduler;
+    }
+
+    /**
+     * Stop polling, the last snapshot is kept.
+     */
+    @Override
+    public synchronized void stop() {
+        var current = this.executor;
+        this.executor = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh grants, keep the last snapshot.", e);
+        }
+    }
+
+    private void publish(Map<String, PermissionGrants> next) {
+        snapshot = Map.copyOf(next);
+        version++;
+    }
+
+    private void put(Map<String, PermissionGrants> target, String id, List<String> patterns) {
+        if (patterns.isEmpty()) {
+            target.remove(id);
+            return;
+        }
+        try {
+            target.put(id, PermissionGrants.of(patterns, separator));
+        } catch (IllegalArgumentException e) {
+            // Fail closed, a malformed pattern should not block grants of others
+            target.remove(id);
+            log.warn("Invalid grants of subject [{}], revoked all: {}", id, e.getMessage());
+        }
+    }
+
+    public static class Builder {
+
+        private final GrantSource source;
+        private Duration pollInterval = Duration.ofSeconds(2);
+        private Duration fullReloadInterval = Duration.ofMinutes(10);
+        private String separator = PermissionGrants.SEPARATOR;
+
+        private Builder(GrantSource source) {
+            this.source = source;
+        }
+
+        /**
+         * Interval of polling changes, defaults to 2 seconds.
+         */
+        public Builder pollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        /**
+         * Interval of full reloads, defaults to 10 minutes.
+         */
+        public Builder fullReloadInterval(Duration fullReloadInterval) {
+            this.fullReloadInterval = fullReloadInterval;
+            return this;
+        }
+
+        /**
+         * Separator of stored patterns, defaults to {@link PermissionGrants#SEPARATOR},
+         * should be the one of permission codes.
+         */
+        public Builder separator(String separator) {
+            this.separator = separator;
+            return this;
+        }
+
+        public GrantStore build() {
+            if (pollInterval.isNegative() || pollInterval.isZero()) {
+                throw new IllegalArgumentException("pollInterval should be positive");
+            }
+            return new GrantStore(this);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.permission.store;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Loads grants from a table, one row per subject and pattern, changes are detected by a version column.
+ * <p>
+ * The version column, for example {@code updated_at} or a sequence backed counter,
+ * should be bumped on every insert and update, revoked rows should be soft deleted
+ * and filtered by {@link Builder#where(Condition)}, so that they are detected as changes.
+ * Rows missed by the cursor, such as physical deletes, are picked up by the periodic full reload of
+ * {@link GrantStore}.
+ * <p>
+ * Without {@link Builder#lookback(UnaryOperator)}, the version should come from a commit-ordered sequence,
+ * since a row committed later with a lower version than the cursor is skipped till the next full reload.
+ * Otherwise, for example with {@code updated_at}, set a lookback window covering the longest transaction,
+ * rows in the window are re-read on every poll, and only unseen ones are reported as changes.
+ * <p>
+ * NOTE: requires {@code org.jooq:jooq}.
+ */
+public class JooqGrantSource<V extends Comparable<? super V>> implements GrantSource {
+
+    private final DSLContext dsl;
+    private final Table<?> table;
+    private final Field<String> subject;
+    private final Field<String> pattern;
+    private final Field<V> version;
+    private final Condition condition;
+    @Nullable
+    private final UnaryOperator<V> lookback;
+
+    @Nullable
+    private V cursor;
+    /**
+     * Rows seen within the lookback window of the cursor.
+     */
+    private Set<Row<V>> window = Set.of();
+
+    private JooqGrantSource(Builder<V> builder) {
+        this.dsl = builder.dsl;
+        this.table = builder.table;
+        this.subject = builder.subject;
+        this.pattern = builder.pattern;
+        this.version = builder.version;
+        this.condition = builder.condition;
+        this.lookback = builder.lookback;
+    }
+
+    public static <V extends Comparable<? super V>> Builder<V> builder(
+            DSLContext dsl, Table<?> table,
+            Field<String> subject, Field<String> pattern, Field<V> version
+    ) {
+        return new Builder<>(dsl, table, subject, pattern, version);
+    }
+
+    @Override
+    public Map<String, List<String>> loadAll() {
+        var result = new HashMap<String, List<String>>();
+        var rows = new HashSet<Row<V>>();
+        var max = collect(condition, result, rows);
+        if (max != null) {
+            cursor = max;
+        }
+        window = inWindow(rows);
+        return result;
+    }
+
+    @Override
+    public Map<String, List<String>> loadChanged() {
+        var since = cursor;
+        if (since == null) {
+            return loadAll();
+        }
+        var where = lookback != null
+                ? version.ge(lookback.apply(since))
+                : version.gt(since);
+        var changed = new HashSet<String>();
+        var rows = new HashSet<Row<V>>();
+        V max = since;
+        for (var rec : dsl.select(subject, pattern, version)
+                .from(table)
+                .where(where)
+                .fetch()) {
+            var row = new Row<>(rec.value1(), rec.value2(), rec.value3());
+            rows.add(row);
+            if (!window.contains(row)) {
+                changed.add(row.subject);
+            }
+            max = max(max, row.version);
+        }
+        if (changed.isEmpty()) {
+            cursor = max;
+            window = inWindow(rows);
+            return Map.of();
+        }
+
+        var result = new HashMap<String, List<String>>();
+        for (var id : changed) {
+            result.put(id, new ArrayList<>());
+        }
+        max = max(max, collect(condition.and(subject.in(changed)), result, rows));
+        cursor = max;
+        window = inWindow(rows);
+        return result;
+    }
+
+    private Set<Row<V>> inWindow(Set<Row<V>> rows) {
+        var current = cursor;
+        if (lookback == null || current == null || rows.isEmpty()) {
+            return Set.of();
+        }
+        var from = lookback.apply(current);
+        var result = new HashSet<Row<V>>();
+        for (var row : rows) {
+            if (row.version != null && row.version.compareTo(from) >= 0) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    private V collect(Condition where, Map<String, List<String>> result, Set<Row<V>> rows) {
+        V max = null;
+        for (var rec : dsl.select(subject, pattern, version)
+                .from(table)
+                .where(where)
+                .fetch()) {
+            result.computeIfAbsent(rec.value1(), k -> new ArrayList<>())
+                    .add(rec.value2());
+            rows.add(new Row<>(rec.value1(), rec.value2(), rec.value3()));
+            max = max(max, rec.value3());
+        }
+        return max;
+    }
+
+    @Nullable
+    private static <V extends Comparable<? super V>> V max(@Nullable V a, @Nullable V b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private record Row<V>(
+            String subject,
+            String pattern,
+            @Nullable V version
+    ) {
+    }
+
+    public static class Builder<V extends Comparable<? super V>> {
+
+        private final DSLContext dsl;
+        private final Table<?> table;
+        private final Field<String> subject;
+        private final Field<String> pattern;
+        private final Field<V> version;
+        private Condition condition = DSL.noCondition();
+        @Nullable
+        private UnaryOperator<V> lookback;
+
+        private Builder(
+                DSLContext dsl, Table<?> table,
+                Field<String> subject, Field<String> pattern, Field<V> version
+        ) {
+            this.dsl = dsl;
+            this.table = table;
+            this.subject = subject;
+            this.pattern = pattern;
+            this.version = version;
+        }
+
+        /**
+         * Filters effective rows, for example not deleted and not expired.
+         */
+        public Builder<V> where(Condition condition) {
+            this.condition = condition;
+            return this;
+        }
+
+        /**
+         * Lower bound of versions re-read on every poll, from the cursor,
+         * for example {@code v -> v.minusSeconds(30)} of {@code updated_at}, disabled by default.
+         */
+        public Builder<V> lookback(@Nullable UnaryOperator<V> lookback) {
+            this.lookback = lookback;
+            return this;
+        }
+
+        public JooqGrantSource<V> build() {
+            return new JooqGrantSource<>(this);
+        }
+    }
+}
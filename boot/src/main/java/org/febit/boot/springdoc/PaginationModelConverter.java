@@ -16,8 +16,10 @@
 package org.febit.boot.springdoc;
 
 import lombok.RequiredArgsConstructor;
+import org.febit.boot.model.SeekCursor;
 import org.febit.lang.protocol.Pagination;
 import org.springdoc.core.converters.AdditionalModelsConverter;
+import org.springdoc.core.utils.SpringDocUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.stereotype.Component;
@@ -32,5 +34,7 @@ public class PaginationModelConverter implements InitializingBean {
     @Override
     public void afterPropertiesSet() {
         AdditionalModelsConverter.replaceParameterObjectWithClass(Pagination.class, PaginationProto.class);
+        // Documented as a field of PaginationProto
+        SpringDocUtils.getConfig().addRequestWrapperToIgnore(SeekCursor.class);
     }
 }
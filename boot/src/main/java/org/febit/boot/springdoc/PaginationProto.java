@@ -62,4 +62,12 @@ public class PaginationProto {
     )
     private List<String> sort;
 
+    @Parameter(
+            in = ParameterIn.QUERY,
+            description = "Opaque seek cursor of keyset pagination, as returned along with the previous page. "
+                    + "Param 'page' is ignored if present, and sort criteria must be kept unchanged.",
+            schema = @Schema(type = "string")
+    )
+    private String cursor;
+
 }
@@ -47,6 +47,9 @@ public enum AuthErrors implements IErrors {
     FORBIDDEN_NO_PERMISSION(403, Logger.INFO,
             "auth.forbidden.no-permission"
     ),
+    TOO_MANY_REQUESTS(429, Logger.INFO,
+            "auth.too-many-requests"
+    ),
     ;
 
     private final int status;
@@ -54,7 +54,18 @@ public class I18nUtils {
      * @see MessageSource#getMessage(String, Object[], String, Locale)
      */
     public static String format(final String code, final Object... args) {
-        var locale = LocaleContextHolder.getLocale();
+        return format(LocaleContextHolder.getLocale(), code, args);
+    }
+
+    /**
+     * Format the given arguments with the given pattern/code, in the given locale.
+     *
+     * @param locale locale
+     * @param code   pattern/code
+     * @param args   arguments
+     * @see MessageSource#getMessage(String, Object[], String, Locale)
+     */
+    public static String format(final Locale locale, final String code, final Object... args) {
         var msg = MESSAGE_SOURCE.getMessage(code, args, code, locale);
         return msg != null ? msg : code;
     }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.util;
+
+import jakarta.annotation.Nullable;
+import lombok.experimental.UtilityClass;
+import org.febit.lang.protocol.BusinessException;
+import org.febit.lang.protocol.IResponse;
+import org.febit.lang.util.JacksonUtils;
+import org.springframework.context.i18n.LocaleContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Failed responses of arg-less errors, pre-rendered to UTF-8 JSON.
+ * <p>
+ * Body is rendered by {@link JacksonUtils} once per error, pattern and locale,
+ * only the {@code timestamp} is written per response.
+ * Render errors via {@link #of(IErrors, String)}, and hand them out by {@link Rendered#toResponse()}
+ * or {@link Rendered#toException()},
+ * so that the message is neither formatted nor logged per request,
+ * and the writer finds the pre-rendered body back by {@link #of(IResponse)}.
+ * <p>
+ * Caches are bounded, the exceeding ones are rendered on demand.
+ * Other failed responses, for example of business exceptions with arguments, are never cached.
+ */
+@UtilityClass
+public class RenderedErrors {
+
+    private static final int MAX_CACHED = 1024;
+    private static final String TIMESTAMP_KEY = "\"timestamp\":";
+
+    private static final Map<ErrorKey, Rendered> ERRORS = new ConcurrentHashMap<>();
+    private static final Map<ResponseKey, Rendered> RENDERED = new ConcurrentHashMap<>();
+
+    /**
+     * Rendered error without arguments, in the current locale.
+     *
+     * @param error   error
+     * @param pattern message pattern/code
+     * @see LocaleContextHolder#getLocale()
+     */
+    public static Rendered of(IErrors error, String pattern) {
+        return of(error, pattern, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Rendered error without arguments, in the given locale.
+     */
+    public static Rendered of(IErrors error, String pattern, Locale locale) {
+        var key = new ErrorKey(error, pattern, locale);
+        var rendered = ERRORS.get(key);
+        if (rendered != null) {
+            return rendered;
+        }
+        rendered = render(error.getStatus(), error.name(), I18nUtils.format(locale, pattern));
+        if (ERRORS.size() < MAX_CACHED) {
+            var existing = ERRORS.putIfAbsent(key, rendered);
+            if (existing != null) {
+                return existing;
+            }
+            RENDERED.putIfAbsent(rendered.key, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Rendered failed response, pre-rendered one if it's of {@link Rendered#toResponse()},
+     * otherwise rendered on demand.
+     */
+    public static Rendered of(IResponse<?> response) {
+        var rendered = find(response);
+        if (rendered != null) {
+            return rendered;
+        }
+        return render(response.getStatus(), response.getCode(), response.getMessage());
+    }
+
+    /**
+     * Pre-rendered one of the failed response,
+     * if it's of {@link Rendered#toResponse()} or {@link Rendered#toException()}.
+     */
+    @Nullable
+    public static Rendered find(IResponse<?> response) {
+        return RENDERED.get(new ResponseKey(response.getStatus(), response.getCode(), response.getMessage()));
+    }
+
+    /**
+     * Rendered by {@link JacksonUtils} as is the response, split around the timestamp.
+     */
+    private static Rendered render(int status, @Nullable String code, @Nullable String message) {
+        var response = IResponse.failed(status, code, message);
+        var json = JacksonUtils.toJsonString(response);
+        var time = TIMESTAMP_KEY + JacksonUtils.toJsonString(response.getTimestamp());
+        var index = json.indexOf(time);
+        if (index < 0) {
+            throw new IllegalStateException("Timestamp not found in rendered response: " + json);
+        }
+        return new Rendered(
+                new ResponseKey(status, code, message),
+                json.substring(0, index + TIMESTAMP_KEY.length()).getBytes(StandardCharsets.UTF_8),
+                json.substring(index + time.length()).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private record ErrorKey(
+            IErrors error,
+            String pattern,
+            Locale locale
+    ) {
+    }
+
+    private record ResponseKey(
+            int status,
+            @Nullable String code,
+            @Nullable String message
+    ) {
+    }
+
+    public static final class Rendered {
+
+        private final ResponseKey key;
+        private final byte[] head;
+        private final byte[] tail;
+
+        private Rendered(ResponseKey key, byte[] head, byte[] tail) {
+            this.key = key;
+            this.head = head;
+            this.tail = tail;
+        }
+
+        public int getStatus() {
+            return key.status;
+        }
+
+        /**
+         * Failed response of this error, without formatting nor logging.
+         */
+        public <T> IResponse<T> toResponse() {
+            return IResponse.failed(key.status, key.code, key.message);
+        }
+
+        /**
+         * Business exception of this error, without formatting nor logging.
+         */
+        public BusinessException toException() {
+            return new BusinessException(key.status, key.code, key.message);
+        }
+
+        /**
+         * Same as {@link JacksonUtils#toJsonString(Object)} of the response with the given timestamp, in UTF-8.
+         */
+        public byte[] toBytes(Instant timestamp) {
+            var time = JacksonUtils.toJsonString(timestamp)
+                    .getBytes(StandardCharsets.UTF_8);
+            var bytes = new byte[head.length + time.length + tail.length];
+            System.arraycopy(head, 0, bytes, 0, head.length);
+            System.arraycopy(time, 0, bytes, head.length, time.length);
+            System.arraycopy(tail, 0, bytes, head.length + time.length, tail.length);
+            return bytes;
+        }
+    }
+}
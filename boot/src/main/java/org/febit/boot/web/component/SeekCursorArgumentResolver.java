@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.web.component;
+
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.febit.boot.model.SeekCursor;
+import org.febit.boot.util.Priority;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves the {@link SeekCursor} of keyset pagination, from parameter {@value SeekCursor#PARAM}.
+ * <p>
+ * Resolved to {@code null} for the first page.
+ */
+@Component
+@Order(Priority.HIGHER)
+public class SeekCursorArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Nullable
+    static SeekCursor parseCursor(@Nullable String raw) {
+        if (StringUtils.isBlank(raw)) {
+            return null;
+        }
+        return SeekCursor.decode(raw.trim());
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter param) {
+        return param.getParameterType().equals(SeekCursor.class);
+    }
+
+    @Nullable
+    @Override
+    public SeekCursor resolveArgument(
+            MethodParameter methodParam,
+            @Nullable ModelAndViewContainer modelAndView,
+            NativeWebRequest req,
+            @Nullable WebDataBinderFactory binderFactory
+    ) {
+        return parseCursor(req.getParameter(SeekCursor.PARAM));
+    }
+}
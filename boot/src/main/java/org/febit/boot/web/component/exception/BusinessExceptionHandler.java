@@ -15,14 +15,19 @@
  */
 package org.febit.boot.web.component.exception;
 
+import jakarta.annotation.Nullable;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.febit.boot.util.Priority;
+import org.febit.boot.util.RenderedErrors;
+import org.febit.boot.web.util.ResponseUtils;
 import org.febit.lang.protocol.BusinessException;
 import org.febit.lang.protocol.IResponse;
 import org.springframework.core.annotation.Order;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.io.IOException;
 import java.util.Arrays;
 
 @Slf4j
@@ -51,8 +56,13 @@ public class BusinessExceptionHandler {
         }
     }
 
+    /**
+     * Pre-rendered errors, thrown by {@link RenderedErrors.Rendered#toException()},
+     * are written as is, others go through the message converters.
+     */
+    @Nullable
     @ExceptionHandler(BusinessException.class)
-    public IResponse<Void> handler(BusinessException ex) {
+    public IResponse<Void> handler(BusinessException ex, HttpServletResponse response) throws IOException {
         if (log.isDebugEnabled()) {
             if (!log.isTraceEnabled()) {
                 try {
@@ -63,6 +73,12 @@ public class BusinessExceptionHandler {
             }
             log.debug("Business exception:", ex);
         }
-        return ex.toResponse();
+        IResponse<Void> result = ex.toResponse();
+        var rendered = RenderedErrors.find(result);
+        if (rendered != null) {
+            ResponseUtils.write(response, rendered);
+            return null;
+        }
+        return result;
     }
 }
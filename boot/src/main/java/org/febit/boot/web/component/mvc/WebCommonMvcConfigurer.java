@@ -18,6 +18,7 @@ package org.febit.boot.web.component.mvc;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.febit.boot.web.component.PaginationArgumentResolver;
+import org.febit.boot.web.component.SeekCursorArgumentResolver;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
@@ -32,9 +33,11 @@ import java.util.List;
 public class WebCommonMvcConfigurer implements WebMvcConfigurer {
 
     private final PaginationArgumentResolver paginationArgumentResolver;
+    private final SeekCursorArgumentResolver seekCursorArgumentResolver;
 
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
         resolvers.add(this.paginationArgumentResolver);
+        resolvers.add(this.seekCursorArgumentResolver);
     }
 }
@@ -16,11 +16,17 @@
 package org.febit.boot.web.util;
 
 import jakarta.annotation.Nullable;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.experimental.UtilityClass;
+import org.febit.boot.util.RenderedErrors;
 import org.febit.lang.protocol.IResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.ServerHttpResponse;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -49,4 +55,15 @@ public class ResponseUtils {
             response.setStatusCode(status);
         }
     }
+
+    /**
+     * Write the pre-rendered error to the servlet output stream, bypassing message converters.
+     */
+    public void write(HttpServletResponse response, RenderedErrors.Rendered rendered) throws IOException {
+        response.setStatus(rendered.getStatus());
+        var bytes = rendered.toBytes(Instant.now());
+        response.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthTaskDecoratorTest {
+
+    final ThreadLocalAuthSupplier<TestAuthSubject> source = new ThreadLocalAuthSupplier<>();
+    final ThreadLocalAuthSupplier<TestAuthSubject> target = new ThreadLocalAuthSupplier<>();
+
+    @Test
+    void decorate() throws Exception {
+        var decorator = AuthTaskDecorator.create(source, target);
+        var foo = new TestAuthSubject("foo", "Foo");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Runnable plain = () -> {
+            };
+            assertSame(plain, decorator.decorate(plain));
+
+            var task = source.scoped(foo, () -> decorator.decorate(() ->
+                    assertSame(foo, target.get().orElseThrow())
+            ));
+            CompletableFuture.runAsync(task, executor).get();
+            CompletableFuture.runAsync(() -> assertTrue(target.get().isEmpty()), executor).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void deferred() throws Exception {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var resolved = new AtomicInteger();
+        var deferredSource = new AuthSupplier<TestAuthSubject>() {
+            @Override
+            public Optional<TestAuthSubject> get() {
+                resolved.incrementAndGet();
+                return Optional.of(foo);
+            }
+
+            @Override
+            public Supplier<Optional<TestAuthSubject>> capture() {
+                return this::get;
+            }
+        };
+        var scopedTarget = new ScopedValueAuthSupplier<TestAuthSubject>();
+        var decorator = AuthTaskDecorator.create(deferredSource, scopedTarget);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            var task = decorator.decorate(() -> {
+                assertEquals(0, resolved.get());
+                assertSame(foo, scopedTarget.get().orElseThrow());
+            });
+            assertEquals(0, resolved.get());
+            CompletableFuture.runAsync(task, executor).get();
+            assertEquals(1, resolved.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void contextPropagation() throws Exception {
+        var registry = new ContextRegistry()
+                .registerThreadLocalAccessor(AuthThreadLocalAccessor.create(source, target));
+        var snapshots = ContextSnapshotFactory.builder()
+                .contextRegistry(registry)
+                .build();
+        var foo = new TestAuthSubject("foo", "Foo");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            var task = source.scoped(foo, () -> snapshots.captureAll().wrap(() ->
+                    assertSame(foo, target.get().orElseThrow())
+            ));
+            CompletableFuture.runAsync(task, executor).get();
+            CompletableFuture.runAsync(() -> assertTrue(target.get().isEmpty()), executor).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
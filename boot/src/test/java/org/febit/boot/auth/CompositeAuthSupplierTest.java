@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompositeAuthSupplierTest {
+
+    final AtomicReference<TestAuthSubject> first = new AtomicReference<>();
+    final AtomicReference<TestAuthSubject> second = new AtomicReference<>();
+    final AtomicInteger calls = new AtomicInteger();
+
+    final CompositeAuthSupplier<TestAuthSubject> supplier = CompositeAuthSupplier.create(
+            new CountingSupplier("first", first),
+            new CountingSupplier("second", second)
+    );
+
+    @Test
+    void firstWins() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+
+        assertTrue(supplier.get().isEmpty());
+        assertTrue(supplier.getSource().isEmpty());
+
+        second.set(bar);
+        assertSame(bar, supplier.get().orElseThrow());
+        assertEquals("second", supplier.getSource().orElseThrow());
+
+        first.set(foo);
+        assertSame(foo, supplier.get().orElseThrow());
+        assertEquals("first", supplier.getSource().orElseThrow());
+    }
+
+    @Test
+    void memoizedInScope() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+        second.set(foo);
+
+        var result = supplier.open(() -> {
+            for (int i = 0; i < 10; i++) {
+                assertSame(foo, supplier.get().orElseThrow());
+            }
+            assertEquals("second", supplier.getSource().orElseThrow());
+            assertEquals(2, calls.get());
+
+            // Stale until invalidated
+            first.set(bar);
+            assertSame(foo, supplier.get().orElseThrow());
+            supplier.invalidate();
+            assertSame(bar, supplier.get().orElseThrow());
+            assertEquals("first", supplier.getSource().orElseThrow());
+            return "done";
+        });
+        assertEquals("done", result);
+
+        calls.set(0);
+        supplier.get();
+        supplier.get();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void missNotMemoized() {
+        var foo = new TestAuthSubject("foo", "Foo");
+
+        supplier.open(() -> {
+            assertTrue(supplier.get().isEmpty());
+            first.set(foo);
+            assertSame(foo, supplier.get().orElseThrow());
+        });
+    }
+
+    @Test
+    void nestedScopes() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+        first.set(foo);
+
+        supplier.open(() -> {
+            assertSame(foo, supplier.get().orElseThrow());
+            first.set(bar);
+            supplier.open(() -> assertSame(bar, supplier.get().orElseThrow()));
+            assertSame(foo, supplier.get().orElseThrow());
+        });
+        assertSame(bar, supplier.get().orElseThrow());
+    }
+
+    @Test
+    void nestedOverrides() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+        var runAs = new ThreadLocalAuthSupplier<TestAuthSubject>();
+        var composite = CompositeAuthSupplier.create(runAs, new CountingSupplier("second", second));
+        second.set(foo);
+
+        composite.open(() -> {
+            assertSame(foo, composite.get().orElseThrow());
+            runAs.scoped(bar, () -> {
+                assertSame(bar, composite.get().orElseThrow());
+                assertEquals(runAs.getSupplierName(), composite.getSource().orElseThrow());
+            });
+            assertSame(foo, composite.get().orElseThrow());
+            assertEquals(1, calls.get());
+
+            // Scoped suppliers are never memoized, even if the winner
+            runAs.scoped(bar, () -> {
+                composite.invalidate();
+                assertSame(bar, composite.get().orElseThrow());
+                runAs.scoped(foo, () -> assertSame(foo, composite.get().orElseThrow()));
+            });
+        });
+    }
+
+    private class CountingSupplier implements AuthSupplier<TestAuthSubject> {
+
+        final String name;
+        final AtomicReference<TestAuthSubject> ref;
+
+        CountingSupplier(String name, AtomicReference<TestAuthSubject> ref) {
+            this.name = name;
+            this.ref = ref;
+        }
+
+        @Override
+        public Optional<TestAuthSubject> get() {
+            calls.incrementAndGet();
+            return Optional.ofNullable(ref.get());
+        }
+
+        @Override
+        public String getSupplierName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.febit.boot.permission.PermissionIndex;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.util.AuthErrors;
+import org.febit.lang.protocol.IResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.febit.boot.auth.AuthMetrics.Outcome.ALLOWED;
+import static org.febit.boot.auth.AuthMetrics.Outcome.FORBIDDEN;
+import static org.febit.boot.auth.AuthMetrics.Outcome.UNAUTHORIZED;
+import static org.febit.boot.auth.MicrometerAuthMetrics.DECISIONS;
+import static org.febit.boot.auth.MicrometerAuthMetrics.PERMISSIONS;
+import static org.febit.boot.auth.MicrometerAuthMetrics.RESOLVE;
+import static org.febit.boot.auth.MicrometerAuthMetrics.VERIFY;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MicrometerAuthMetricsTest {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+    static final PermissionItem BAR = new PermissionItem("bar", "", "bar", "");
+
+    @Test
+    void outcome() {
+        assertEquals(ALLOWED, AuthMetrics.Outcome.of(IResponse.success(null)));
+        assertEquals(UNAUTHORIZED, AuthMetrics.Outcome.of(AuthErrors.UNAUTHORIZED.response("x")));
+        assertEquals(FORBIDDEN, AuthMetrics.Outcome.of(AuthErrors.FORBIDDEN_NO_PERMISSION.response("x")));
+        assertFalse(AuthMetrics.NOOP.isEnabled());
+    }
+
+    @Test
+    void record() {
+        var registry = new SimpleMeterRegistry();
+        var metrics = MicrometerAuthMetrics.create(registry);
+        assertTrue(metrics.isEnabled());
+
+        var fooBar = ResolvedPermission.allow(List.of(FOO, BAR));
+        metrics.recordResolve(1000, true);
+        metrics.recordResolve(1000, false);
+        metrics.recordVerify(2000, fooBar, ALLOWED);
+        metrics.recordVerify(2000, fooBar, FORBIDDEN);
+        metrics.recordVerify(2000, ResolvedPermission.IGNORED, ALLOWED);
+
+        assertEquals(1, registry.get(RESOLVE).tag("found", "true").timer().count());
+        assertEquals(1, registry.get(RESOLVE).tag("found", "false").timer().count());
+        assertEquals(2, registry.get(VERIFY).tag("outcome", "allowed").timer().count());
+        assertEquals(1, registry.get(VERIFY).tag("outcome", "forbidden").timer().count());
+
+        assertEquals(1, registry.get(DECISIONS)
+                .tags("type", "allow_list", "outcome", "allowed").counter().count());
+        assertEquals(1, registry.get(DECISIONS)
+                .tags("type", "ignored", "outcome", "allowed").counter().count());
+        assertEquals(1, registry.get(PERMISSIONS)
+                .tags("code", "foo", "outcome", "forbidden").counter().count());
+        assertEquals(1, registry.get(PERMISSIONS)
+                .tags("code", "bar", "outcome", "allowed").counter().count());
+    }
+
+    @Test
+    void boundedCodes() {
+        var registry = new SimpleMeterRegistry();
+        var metrics = MicrometerAuthMetrics.create(registry, 1);
+
+        metrics.recordVerify(1, ResolvedPermission.allow(List.of(FOO)), ALLOWED);
+        metrics.recordVerify(1, ResolvedPermission.allow(List.of(BAR)), ALLOWED);
+        metrics.recordVerify(1, ResolvedPermission.allow(List.of(BAR)), ALLOWED);
+
+        assertEquals(1, registry.get(PERMISSIONS)
+                .tags("code", "foo", "outcome", "allowed").counter().count());
+        assertEquals(2, registry.get(PERMISSIONS)
+                .tags("code", MicrometerAuthMetrics.OTHER_CODE, "outcome", "allowed").counter().count());
+        assertNull(registry.find(PERMISSIONS).tag("code", "bar").counter());
+    }
+
+    @Test
+    void indexed() {
+        var baz = new PermissionItem("baz", "", "baz", "");
+        var items = new ArrayList<PermissionItem>();
+        for (int i = 0; i < 70; i++) {
+            items.add(new PermissionItem("p" + i, "", "p" + i, ""));
+        }
+        items.add(FOO);
+        items.add(BAR);
+        var index = new AtomicReference<>(PermissionIndex.of(items));
+        var registry = new SimpleMeterRegistry();
+        var metrics = MicrometerAuthMetrics.create(registry, 200, index::get);
+
+        var fooBar = ResolvedPermission.allow(List.of(FOO, BAR)).withMask(index.get());
+        metrics.recordVerify(1, fooBar, ALLOWED);
+        metrics.recordVerify(1, fooBar, FORBIDDEN);
+
+        // Extended later
+        index.set(index.get().extend(List.of(baz)));
+        metrics.recordVerify(1, ResolvedPermission.allow(List.of(baz, FOO)).withMask(index.get()), ALLOWED);
+
+        assertEquals(2, registry.get(PERMISSIONS)
+                .tags("code", "foo", "outcome", "allowed").counter().count());
+        assertEquals(1, registry.get(PERMISSIONS)
+                .tags("code", "bar", "outcome", "forbidden").counter().count());
+        assertEquals(1, registry.get(PERMISSIONS)
+                .tags("code", "baz", "outcome", "allowed").counter().count());
+        assertNull(registry.find(PERMISSIONS).tag("code", "p0").counter());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth;
+
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScopedValueAuthSupplierTest {
+
+    final ScopedValueAuthSupplier<TestAuthSubject> supplier = new ScopedValueAuthSupplier<>();
+
+    @Test
+    void scoped() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+
+        assertTrue(supplier.get().isEmpty());
+        var result = supplier.scoped(foo, () -> {
+            assertSame(foo, supplier.get().orElseThrow());
+            supplier.scoped(bar, () -> assertSame(bar, supplier.get().orElseThrow()));
+            assertSame(foo, supplier.get().orElseThrow());
+            return "done";
+        });
+        assertEquals("done", result);
+        assertTrue(supplier.get().isEmpty());
+    }
+
+    @Test
+    void openAndBind() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+
+        assertFalse(supplier.bind(foo));
+        supplier.open(() -> {
+            assertTrue(supplier.get().isEmpty());
+            assertTrue(supplier.bind(foo));
+            assertFalse(supplier.bind(bar));
+            assertSame(foo, supplier.get().orElseThrow());
+        });
+        assertTrue(supplier.get().isEmpty());
+    }
+
+    @Test
+    void nestedNeverRebindsOuter() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+
+        supplier.open(() -> {
+            supplier.scoped(bar, () -> {
+                assertFalse(supplier.bind(foo));
+                assertSame(bar, supplier.get().orElseThrow());
+            });
+            supplier.open(() -> assertTrue(supplier.bind(bar)));
+            assertTrue(supplier.get().isEmpty());
+            assertTrue(supplier.bind(foo));
+            assertSame(foo, supplier.get().orElseThrow());
+        });
+    }
+
+    @Test
+    void bindDeferred() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var resolves = new AtomicInteger();
+
+        supplier.open(() -> {
+            assertTrue(supplier.bindDeferred(() -> {
+                resolves.incrementAndGet();
+                return Optional.of(foo);
+            }));
+            assertFalse(supplier.bind(foo));
+            assertEquals(0, resolves.get());
+            assertSame(foo, supplier.get().orElseThrow());
+            assertEquals(1, resolves.get());
+        });
+    }
+
+    @Test
+    void exception() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        Runnable failing = () -> {
+            throw new IllegalArgumentException();
+        };
+        assertThrows(IllegalArgumentException.class, () -> supplier.scoped(foo, failing));
+        assertTrue(supplier.get().isEmpty());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.audit;
+
+import org.febit.boot.auth.AuthMetrics;
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.web.WebAuthHandler;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.util.AuthErrors;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.febit.lang.protocol.IResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncAuthAuditorTest {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+
+    static AuthAuditEvent event(String subject) throws NoSuchMethodException {
+        return new AuthAuditEvent(subject, Object.class.getMethod("toString"),
+                ResolvedPermission.allow(List.of(FOO)), AuthMetrics.Outcome.ALLOWED, null, Instant.now());
+    }
+
+    @Test
+    void batches() throws Exception {
+        var batches = new CopyOnWriteArrayList<List<AuthAuditEvent>>();
+        var auditor = AsyncAuthAuditor.builder(batches::add)
+                .batchSize(4)
+                .build();
+
+        // Buffered before start
+        for (int i = 0; i < 10; i++) {
+            auditor.audit(event("u" + i));
+        }
+        assertEquals(10, auditor.getQueueDepth());
+
+        auditor.start();
+        assertTrue(auditor.isRunning());
+        auditor.stop();
+        assertFalse(auditor.isRunning());
+
+        var events = new ArrayList<AuthAuditEvent>();
+        batches.forEach(batch -> {
+            assertTrue(batch.size() <= 4);
+            events.addAll(batch);
+        });
+        assertEquals(10, events.size());
+        assertEquals("u0", events.get(0).subject());
+        assertEquals(List.of("foo"), events.get(0).permissionCodes());
+        assertEquals(10, auditor.getWritten());
+        assertEquals(0, auditor.getQueueDepth());
+    }
+
+    @Test
+    void stopWhileWriting() throws Exception {
+        var interrupted = new AtomicBoolean();
+        var writing = new CountDownLatch(1);
+        var auditor = AsyncAuthAuditor.builder(batch -> {
+                    writing.countDown();
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                        Thread.currentThread().interrupt();
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        interrupted.set(true);
+                    }
+                })
+                .batchSize(2)
+                .build();
+        auditor.start();
+        for (int i = 0; i < 10; i++) {
+            auditor.audit(event("u" + i));
+        }
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        auditor.stop();
+
+        assertFalse(interrupted.get(), "sink should never be interrupted");
+        assertEquals(10, auditor.getWritten());
+        assertEquals(0, auditor.getQueueDepth());
+    }
+
+    @Test
+    void dropOnOverflow() throws Exception {
+        var auditor = AsyncAuthAuditor.builder(batch -> {
+                })
+                .capacity(2)
+                .build();
+        for (int i = 0; i < 5; i++) {
+            auditor.audit(event("u" + i));
+        }
+        assertEquals(2, auditor.getQueueDepth());
+        assertEquals(3, auditor.getDropped());
+    }
+
+    @Test
+    void failedSink() throws Exception {
+        var written = new CountDownLatch(1);
+        var auditor = AsyncAuthAuditor.builder(batch -> {
+                    written.countDown();
+                    throw new IllegalStateException("down");
+                })
+                .build();
+        auditor.start();
+        try {
+            auditor.audit(event("foo"));
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+        } finally {
+            auditor.stop();
+        }
+        assertEquals(1, auditor.getFailed());
+        assertEquals(0, auditor.getWritten());
+    }
+
+    @Test
+    void decorator() throws Exception {
+        var events = new ArrayList<AuthAuditEvent>();
+        WebAuthHandler<TestAuthSubject> delegate = (request, method) -> "foo".equals(request.getHeader("X-User"))
+                ? IResponse.success(new TestAuthSubject("foo", "Foo"))
+                : AuthErrors.UNAUTHORIZED.response("none");
+        var manager = new PermissionManager() {
+            @Override
+            public ResolvedPermission getPermission(Method method) {
+                return ResolvedPermission.allow(List.of(FOO));
+            }
+
+            @Override
+            public List<PermissionItem> getAllPermissionItems() {
+                return List.of(FOO);
+            }
+        };
+        var handler = AuditingWebAuthHandler.create(delegate, manager, events::add);
+        var method = Object.class.getMethod("toString");
+
+        var request = new MockHttpServletRequest();
+        request.addHeader("X-User", "foo");
+        IResponse<AuthSubject> allowed = handler.verify(new ServletWebRequest(request), method);
+        IResponse<AuthSubject> denied = handler.verify(new ServletWebRequest(new MockHttpServletRequest()), method);
+
+        assertFalse(allowed.isFailed());
+        assertTrue(denied.isFailed());
+        assertEquals(2, events.size());
+        assertEquals("foo", events.get(0).subject());
+        assertEquals(AuthMetrics.Outcome.ALLOWED, events.get(0).outcome());
+        assertNull(events.get(0).code());
+        assertNull(events.get(1).subject());
+        assertEquals(AuthMetrics.Outcome.UNAUTHORIZED, events.get(1).outcome());
+        assertEquals(AuthErrors.UNAUTHORIZED.name(), events.get(1).code());
+    }
+}
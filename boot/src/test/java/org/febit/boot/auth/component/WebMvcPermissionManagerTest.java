@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.component;
+
+import org.febit.boot.permission.AnnotatedMethodPermissionResolver;
+import org.febit.boot.permission.Permission;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.ResolvedPermission;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebMvcPermissionManagerTest {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+    static final PermissionItem BAR = new PermissionItem("bar", "", "bar", "");
+
+    static class Api {
+
+        @Permission(resource = "foo")
+        public void foo() {
+        }
+
+        @Permission(resource = "bar")
+        public void bar() {
+        }
+    }
+
+    final Map<RequestMappingInfo, HandlerMethod> handlerMethods = new HashMap<>();
+
+    WebMvcPermissionManager manager() {
+        var mapping = mock(RequestMappingInfoHandlerMapping.class);
+        when(mapping.getHandlerMethods()).thenAnswer(invocation -> Map.copyOf(handlerMethods));
+        var app = mock(ApplicationContext.class);
+        when(app.getBeansOfType(RequestMappingInfoHandlerMapping.class))
+                .thenReturn(Map.of("mapping", mapping));
+        return new WebMvcPermissionManager(app, List.of(new AnnotatedMethodPermissionResolver()));
+    }
+
+    HandlerMethod handlerMethod(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Api(), Api.class.getMethod(name));
+    }
+
+    RequestMappingInfo info(String path) {
+        return RequestMappingInfo.paths(path).build();
+    }
+
+    @Test
+    void stopKeepsSnapshot() throws Exception {
+        var foo = handlerMethod("foo");
+        handlerMethods.put(info("/foo"), foo);
+
+        var manager = manager();
+        manager.start();
+        assertTrue(manager.isRunning());
+        assertEquals(List.of(FOO), manager.getPermission(foo.getMethod()).getItems());
+
+        manager.stop();
+        assertFalse(manager.isRunning());
+        assertEquals(List.of(FOO), manager.getPermission(foo.getMethod()).getItems());
+    }
+
+    @Test
+    void incremental() throws Exception {
+        var foo = handlerMethod("foo");
+        var bar = handlerMethod("bar");
+        handlerMethods.put(info("/foo"), foo);
+
+        var manager = manager();
+        manager.start();
+        var index = manager.getPermissionIndex();
+        var fooPermission = manager.getPermission(foo.getMethod());
+        assertSame(ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE, manager.getPermission(bar.getMethod()));
+
+        manager.register(info("/bar"), bar);
+        assertNotSame(index, manager.getPermissionIndex());
+        assertSame(fooPermission, manager.getPermission(foo.getMethod()));
+        assertEquals(0, manager.getPermissionIndex().ordinal(FOO));
+        assertEquals(1, manager.getPermissionIndex().ordinal(BAR));
+        assertEquals(List.of(BAR), manager.getPermission(bar.getMethod()).getItems());
+        assertEquals(List.of(BAR, FOO), manager.getAllPermissionItems());
+        assertNotNull(manager.getPermission(bar.getMethod()).getMask());
+
+        manager.unregister(foo.getMethod());
+        assertSame(ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE, manager.getPermission(foo.getMethod()));
+        assertEquals(List.of(BAR), manager.getAllPermissionItems());
+        // Ordinal of the removed one is not reused
+        assertEquals(1, manager.getPermissionIndex().ordinal(BAR));
+    }
+
+    @Test
+    void refresh() throws Exception {
+        var foo = handlerMethod("foo");
+        var bar = handlerMethod("bar");
+        handlerMethods.put(info("/foo"), foo);
+
+        var manager = manager();
+        manager.start();
+        var fooPermission = manager.getPermission(foo.getMethod());
+
+        manager.refresh();
+        assertSame(fooPermission, manager.getPermission(foo.getMethod()));
+
+        handlerMethods.clear();
+        handlerMethods.put(info("/bar"), bar);
+        manager.refresh();
+
+        assertSame(ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE, manager.getPermission(foo.getMethod()));
+        assertEquals(List.of(BAR), manager.getPermission(bar.getMethod()).getItems());
+        assertEquals(0, manager.getPermissionIndex().ordinal(FOO));
+        assertEquals(1, manager.getPermissionIndex().ordinal(BAR));
+    }
+}
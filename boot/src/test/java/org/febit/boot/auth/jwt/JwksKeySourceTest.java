@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksKeySourceTest {
+
+    @TempDir
+    Path dir;
+
+    static void write(Path file, JWK... keys) throws Exception {
+        var tmp = Files.createTempFile(file.getParent(), "jwks", ".tmp");
+        Files.writeString(tmp, new JWKSet(List.of(keys)).toPublicJWKSet().toString());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    void rotate() throws Exception {
+        var file = dir.resolve("jwks.json");
+        var k1 = new RSAKeyGenerator(2048).keyID("k1").generate();
+        var k2 = new ECKeyGenerator(Curve.P_256).keyID("k2").generate();
+        write(file, k1);
+
+        var clock = new MutableClock();
+        var source = JwksKeySource.builder(new FileSystemResource(file))
+                .gracePeriod(Duration.ofMinutes(5))
+                .clock(clock)
+                .build();
+
+        assertEquals(Set.of("k1"), source.getActiveKeyIds());
+        var v1 = source.getVerifier("k1");
+        assertNotNull(v1);
+        assertSame(v1, source.getVerifier(null), "sole key for tokens without kid");
+        assertNull(source.getVerifier("k2"));
+
+        write(file, k2);
+        source.reload();
+        assertEquals(Set.of("k2"), source.getActiveKeyIds());
+        assertNotNull(source.getVerifier("k2"));
+        assertSame(v1, source.getVerifier("k1"), "retired key within grace period");
+
+        clock.advance(Duration.ofMinutes(6));
+        assertNull(source.getVerifier("k1"));
+
+        // Broken file keeps the current keys
+        Files.writeString(file, "{broken");
+        assertThrows(IllegalStateException.class, source::reload);
+        assertNotNull(source.getVerifier("k2"));
+    }
+
+    @Test
+    void watch() throws Exception {
+        var file = dir.resolve("jwks.json");
+        write(file, new RSAKeyGenerator(2048).keyID("k1").generate());
+        var source = JwksKeySource.builder(new FileSystemResource(file)).build();
+
+        source.start();
+        try {
+            assertTrue(source.isRunning());
+            write(file, new ECKeyGenerator(Curve.P_256).keyID("k2").generate());
+
+            var deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+            while (source.getVerifier("k2") == null && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertNotNull(source.getVerifier("k2"));
+            assertNotNull(source.getVerifier("k1"));
+        } finally {
+            source.stop();
+        }
+        assertFalse(source.isRunning());
+    }
+
+    @Test
+    void watchSymlinkSwap() throws Exception {
+        // Layout of Kubernetes mounted secrets: jwks.json -> ..data/jwks.json, ..data -> ..v1
+        Files.createDirectory(dir.resolve("..v1"));
+        write(dir.resolve("..v1/jwks.json"), new RSAKeyGenerator(2048).keyID("k1").generate());
+        Files.createSymbolicLink(dir.resolve("..data"), Path.of("..v1"));
+        var file = Files.createSymbolicLink(dir.resolve("jwks.json"), Path.of("..data/jwks.json"));
+
+        var source = JwksKeySource.builder(new FileSystemResource(file))
+                .debounce(Duration.ofMillis(50))
+                .build();
+        assertFalse(source.reloadIfChanged());
+
+        source.start();
+        try {
+            Files.createDirectory(dir.resolve("..v2"));
+            write(dir.resolve("..v2/jwks.json"), new ECKeyGenerator(Curve.P_256).keyID("k2").generate());
+            Files.createSymbolicLink(dir.resolve("..data_tmp"), Path.of("..v2"));
+            Files.move(dir.resolve("..data_tmp"), dir.resolve("..data"), StandardCopyOption.ATOMIC_MOVE);
+
+            var deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+            while (source.getVerifier("k2") == null && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(Set.of("k2"), source.getActiveKeyIds());
+        } finally {
+            source.stop();
+        }
+    }
+
+    static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
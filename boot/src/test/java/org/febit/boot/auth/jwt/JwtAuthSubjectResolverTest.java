@@ -0,0 +1,162 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthSubjectResolverTest {
+
+    static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    final AtomicInteger lookups = new AtomicInteger();
+    final AtomicInteger mappings = new AtomicInteger();
+    final JwtKeySource keySource = keyId -> {
+        lookups.incrementAndGet();
+        return "k1".equals(keyId) ? macVerifier() : null;
+    };
+
+    final JwtAuthSubjectResolver<TestAuthSubject> resolver = JwtAuthSubjectResolver
+            .builder(keySource, claims -> {
+                mappings.incrementAndGet();
+                return new TestAuthSubject(claims.getSubject(), "Name");
+            })
+            .issuer("febit")
+            .audience("api")
+            .clock(Clock.fixed(NOW, ZoneOffset.UTC))
+            .build();
+
+    static JWSVerifier macVerifier() {
+        try {
+            return new MACVerifier(SECRET);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static JWTClaimsSet.Builder claims() {
+        return new JWTClaimsSet.Builder()
+                .subject("foo")
+                .issuer("febit")
+                .audience("api")
+                .expirationTime(Date.from(NOW.plusSeconds(600)));
+    }
+
+    static String hs256(String keyId, JWTClaimsSet claims) throws Exception {
+        var jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID(keyId).build(), claims);
+        jwt.sign(new MACSigner(SECRET));
+        return jwt.serialize();
+    }
+
+    @Test
+    void resolve() throws Exception {
+        var token = hs256("k1", claims().build());
+
+        assertEquals("foo", resolver.resolve(token).orElseThrow().identifier());
+        assertEquals(1, lookups.get());
+        assertEquals("foo", resolver.resolve(token).orElseThrow().identifier());
+        assertEquals(1, lookups.get(), "verified token should be cached");
+
+        resolver.invalidate(token);
+        assertTrue(resolver.resolve(token).isPresent());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void bearer() throws Exception {
+        var token = hs256("k1", claims().build());
+        var request = new MockHttpServletRequest();
+        var webRequest = new ServletWebRequest(request);
+        assertTrue(resolver.resolveAuth(webRequest).isEmpty());
+
+        request.addHeader("Authorization", "Bearer " + token);
+        assertEquals("foo", resolver.resolveAuth(webRequest).orElseThrow().identifier());
+    }
+
+    @Test
+    void rejected() throws Exception {
+        assertTrue(resolver.resolve("not-a-token").isEmpty());
+        assertTrue(resolver.resolve(hs256("unknown", claims().build())).isEmpty());
+        assertTrue(resolver.resolve(hs256("k1", claims().issuer("other").build())).isEmpty());
+        assertTrue(resolver.resolve(hs256("k1", claims().audience("other").build())).isEmpty());
+        assertTrue(resolver.resolve(hs256("k1", claims().expirationTime(null).build())).isEmpty());
+        assertTrue(resolver.resolve(hs256("k1", claims()
+                .expirationTime(Date.from(NOW.minusSeconds(60)))
+                .build())).isEmpty());
+        assertTrue(resolver.resolve(hs256("k1", claims()
+                .notBeforeTime(Date.from(NOW.plusSeconds(60)))
+                .build())).isEmpty());
+
+        assertEquals(0, mappings.get(), "claims of rejected tokens should not be mapped");
+
+        assertTrue(resolver.resolve(hs256("k1", claims()
+                .audience(List.of("web", "api"))
+                .build())).isPresent());
+
+        // Within clock skew
+        assertTrue(resolver.resolve(hs256("k1", claims()
+                .expirationTime(Date.from(NOW.minusSeconds(10)))
+                .build())).isPresent());
+
+        var token = hs256("k1", claims().build());
+        var tampered = token.substring(0, token.lastIndexOf('.') + 1)
+                + Base64URL.encode(new byte[32]);
+        assertTrue(resolver.resolve(tampered).isEmpty());
+    }
+
+    @Test
+    void eddsa() throws Exception {
+        var keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var header = new JWSHeader.Builder(JWSAlgorithm.EdDSA).keyID("ed").build();
+        var signingInput = header.toBase64URL() + "." + Base64URL.encode(claims().build().toString());
+        var signer = Signature.getInstance("Ed25519");
+        signer.initSign(keyPair.getPrivate());
+        signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        var token = signingInput + "." + Base64URL.encode(signer.sign());
+
+        var verifier = EdDsaVerifier.create(keyPair.getPublic());
+        var eddsa = JwtAuthSubjectResolver
+                .builder(StaticJwtKeySource.builder().key("ed", verifier).build(),
+                        claims -> new TestAuthSubject(claims.getSubject(), "Name"))
+                .clock(Clock.fixed(NOW, ZoneOffset.UTC))
+                .build();
+        assertEquals("foo", eddsa.resolve(token).orElseThrow().identifier());
+        assertTrue(resolver.resolve(token).isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.SignedJWT;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPairGenerator;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtIssuerTest {
+
+    final Clock clock = Clock.fixed(JwtAuthSubjectResolverTest.NOW, ZoneOffset.UTC);
+
+    @Test
+    void issue() throws Exception {
+        var issuer = JwtIssuer.builder(new MACSigner(JwtAuthSubjectResolverTest.SECRET), JWSAlgorithm.HS256)
+                .keyId("k1")
+                .issuer("febit")
+                .audience("api")
+                .ttl(Duration.ofMinutes(10))
+                .clock(clock)
+                .build();
+
+        var token = issuer.issue("foo", Map.of(
+                "name", "Foo \"Bar\"\n\u0001",
+                "roles", List.of("admin", 1, true),
+                "profile", Map.of("age", 18)
+        ));
+        var jwt = SignedJWT.parse(token);
+        assertTrue(jwt.verify(JwtAuthSubjectResolverTest.macVerifier()));
+        assertEquals("k1", jwt.getHeader().getKeyID());
+
+        var claims = jwt.getJWTClaimsSet();
+        assertEquals("foo", claims.getSubject());
+        assertEquals("febit", claims.getIssuer());
+        assertEquals(List.of("api"), claims.getAudience());
+        assertEquals(JwtAuthSubjectResolverTest.NOW.plusSeconds(600), claims.getExpirationTime().toInstant());
+        assertNotNull(claims.getJWTID());
+        assertEquals("Foo \"Bar\"\n\u0001", claims.getStringClaim("name"));
+        assertEquals(List.of("admin", 1L, true), claims.getListClaim("roles"));
+        assertEquals(Map.of("age", 18L), claims.getJSONObjectClaim("profile"));
+
+        assertThrows(IllegalArgumentException.class, () -> issuer.issue("foo", Map.of("exp", 1)));
+        assertThrows(IllegalArgumentException.class, () -> issuer.issue("foo", Map.of("score", Double.NaN)));
+        assertThrows(IllegalArgumentException.class, () -> issuer.issue("foo", Map.of(
+                "scores", List.of(1.5F, Float.POSITIVE_INFINITY)
+        )));
+        assertEquals(1.5D, SignedJWT.parse(issuer.issue("foo", Map.of("score", 1.5D)))
+                .getJWTClaimsSet().getDoubleClaim("score"));
+    }
+
+    @Test
+    void issueAll() throws Exception {
+        var issuer = JwtIssuer.builder(new MACSigner(JwtAuthSubjectResolverTest.SECRET), JWSAlgorithm.HS256)
+                .keyId("k1")
+                .issuer("febit")
+                .audience("api")
+                .clock(clock)
+                .build();
+        var resolver = JwtAuthSubjectResolver
+                .builder(StaticJwtKeySource.builder()
+                                .key("k1", JwtAuthSubjectResolverTest.macVerifier())
+                                .build(),
+                        claims -> new TestAuthSubject(claims.getSubject(), "Name"))
+                .issuer("febit")
+                .audience("api")
+                .clock(clock)
+                .build();
+
+        var subjects = List.of("a", "b", "中文");
+        var tokens = issuer.issueAll(subjects);
+        assertEquals(3, tokens.size());
+        for (int i = 0; i < subjects.size(); i++) {
+            assertEquals(subjects.get(i), resolver.resolve(tokens.get(i)).orElseThrow().identifier());
+        }
+        assertNotEquals(
+                SignedJWT.parse(tokens.get(0)).getJWTClaimsSet().getJWTID(),
+                SignedJWT.parse(tokens.get(1)).getJWTClaimsSet().getJWTID()
+        );
+    }
+
+    @Test
+    void eddsa() throws Exception {
+        var keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var issuer = JwtIssuer.builder(EdDsaSigner.create(keyPair.getPrivate()), JWSAlgorithm.EdDSA)
+                .clock(clock)
+                .tokenId(null)
+                .build();
+
+        var jwt = SignedJWT.parse(issuer.issue("foo"));
+        assertTrue(jwt.verify(EdDsaVerifier.create(keyPair.getPublic())));
+        assertNull(jwt.getJWTClaimsSet().getJWTID());
+
+        assertThrows(IllegalArgumentException.class, () -> JwtIssuer
+                .builder(EdDsaSigner.create(keyPair.getPrivate()), JWSAlgorithm.HS256)
+                .build());
+    }
+}
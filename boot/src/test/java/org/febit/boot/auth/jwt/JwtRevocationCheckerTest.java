@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.jwt;
+
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtRevocationCheckerTest {
+
+    @Test
+    void bloomFilter() {
+        var filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revoked-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("revoked-" + i));
+        }
+        var falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void check() {
+        var source = new FakeSource();
+        source.revoked.add("r1");
+        var checker = JwtRevocationChecker.builder(source)
+                .expectedInsertions(1000)
+                .fullReloadInterval(Duration.ofDays(1))
+                .build();
+        checker.refresh();
+
+        assertTrue(checker.isRevoked("r1"));
+        assertFalse(checker.isRevoked(null));
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(checker.isRevoked("valid-" + i));
+        }
+        assertTrue(checker.getFiltered() > 990);
+        assertTrue(checker.getLookups() < 10);
+
+        source.revoke("r2");
+        checker.refresh();
+        assertTrue(checker.isRevoked("r2"));
+
+        source.revoked.add("r3");
+        checker.revoke("r3");
+        assertTrue(checker.isRevoked("r3"));
+    }
+
+    @Test
+    void revokeWhileReloading() throws Exception {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var source = new FakeSource() {
+            @Override
+            public Collection<String> loadAll() {
+                var result = super.loadAll();
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return result;
+            }
+        };
+        var checker = JwtRevocationChecker.builder(source).build();
+
+        var reloading = new Thread(checker::reload);
+        reloading.start();
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        // Persisted after the snapshot of the running load
+        source.revoked.add("r1");
+        var revoking = new Thread(() -> checker.revoke("r1"));
+        revoking.start();
+        while (revoking.getState() != Thread.State.WAITING
+                && revoking.getState() != Thread.State.TERMINATED) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        reloading.join();
+        revoking.join();
+
+        assertTrue(checker.isRevoked("r1"));
+    }
+
+    @Test
+    void beforeLoad() {
+        var source = new FakeSource();
+        source.revoked.add("r1");
+        var checker = JwtRevocationChecker.builder(source).build();
+
+        assertTrue(checker.isRevoked("r1"));
+        assertFalse(checker.isRevoked("valid"));
+        assertEquals(2, checker.getLookups());
+        assertEquals(0, checker.getFiltered());
+    }
+
+    @Test
+    void resolver() throws Exception {
+        var source = new FakeSource();
+        var checker = JwtRevocationChecker.builder(source).build();
+        checker.refresh();
+
+        var resolver = JwtAuthSubjectResolver
+                .builder(StaticJwtKeySource.builder()
+                                .key("k1", JwtAuthSubjectResolverTest.macVerifier())
+                                .build(),
+                        claims -> new TestAuthSubject(claims.getSubject(), "Name"))
+                .clock(Clock.fixed(JwtAuthSubjectResolverTest.NOW, ZoneOffset.UTC))
+                .revocation(checker)
+                .build();
+        var token = JwtAuthSubjectResolverTest.hs256("k1", JwtAuthSubjectResolverTest.claims()
+                .jwtID("t1")
+                .build());
+
+        assertTrue(resolver.resolve(token).isPresent());
+
+        source.revoked.add("t1");
+        checker.revoke("t1");
+        assertTrue(resolver.resolve(token).isEmpty(), "cached token should be rejected once revoked");
+    }
+
+    static class FakeSource implements JwtRevocationSource {
+
+        final Set<String> revoked = new HashSet<>();
+        final List<String> changes = new ArrayList<>();
+
+        void revoke(String tokenId) {
+            revoked.add(tokenId);
+            changes.add(tokenId);
+        }
+
+        @Override
+        public Collection<String> loadAll() {
+            changes.clear();
+            return List.copyOf(revoked);
+        }
+
+        @Override
+        public Collection<String> loadChanged() {
+            var result = List.copyOf(changes);
+            changes.clear();
+            return result;
+        }
+
+        @Override
+        public boolean isRevoked(String tokenId) {
+            return revoked.contains(tokenId);
+        }
+    }
+}
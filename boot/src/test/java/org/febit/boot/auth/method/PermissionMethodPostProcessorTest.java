@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.method;
+
+import org.febit.boot.auth.ThreadLocalAuthSupplier;
+import org.febit.boot.permission.AnonymousApi;
+import org.febit.boot.permission.Permission;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionVerifier;
+import org.febit.boot.util.AuthErrors;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.febit.lang.protocol.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.web.bind.annotation.RestController;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionMethodPostProcessorTest {
+
+    final ThreadLocalAuthSupplier<TestAuthSubject> authSupplier = new ThreadLocalAuthSupplier<>();
+
+    final PermissionVerifier<TestAuthSubject> verifier = (auth, items) -> items.stream()
+            .map(PermissionItem::code)
+            .anyMatch(code -> code.startsWith(auth.identifier() + ":"));
+
+    final PermissionMethodPostProcessor<TestAuthSubject> processor
+            = PermissionMethodPostProcessor.create(authSupplier, verifier);
+
+    @Test
+    void guarded() {
+        var bean = processor.postProcessAfterInitialization(new OrderService(), "orderService");
+        assertTrue(AopUtils.isAopProxy(bean));
+        assertEquals(1, ((Advised) bean).getAdvisors().length);
+
+        var service = (OrderService) bean;
+        var admin = new TestAuthSubject("admin", "Admin");
+        var guest = new TestAuthSubject("guest", "Guest");
+
+        assertEquals("open", service.open());
+        assertEquals("free", service.free());
+
+        var unauthorized = assertThrows(BusinessException.class, service::remove);
+        assertEquals(AuthErrors.UNAUTHORIZED.getCode(), unauthorized.toResponse().getCode());
+
+        authSupplier.scoped(guest, () -> {
+            var forbidden = assertThrows(BusinessException.class, service::remove);
+            assertEquals(AuthErrors.FORBIDDEN_NO_PERMISSION.getCode(), forbidden.toResponse().getCode());
+        });
+        authSupplier.scoped(admin, () -> assertEquals("removed", service.remove()));
+    }
+
+    @Test
+    void skipped() {
+        var plain = new Object();
+        assertSame(plain, processor.postProcessAfterInitialization(plain, "plain"));
+
+        var controller = new OrderController();
+        assertSame(controller, processor.postProcessAfterInitialization(controller, "orderController"));
+
+        var anonymous = new AnonymousService();
+        assertSame(anonymous, processor.postProcessAfterInitialization(anonymous, "anonymousService"));
+    }
+
+    public static class OrderService {
+
+        @Permission(module = "admin", resource = "order", action = "remove")
+        public String remove() {
+            return "removed";
+        }
+
+        @AnonymousApi
+        public String open() {
+            return "open";
+        }
+
+        public String free() {
+            return "free";
+        }
+    }
+
+    @AnonymousApi
+    public static class AnonymousService {
+
+        @Permission(module = "admin", resource = "order", action = "remove")
+        public String remove() {
+            return "removed";
+        }
+    }
+
+    @RestController
+    public static class OrderController {
+
+        @Permission(module = "admin", resource = "order", action = "remove")
+        public String remove() {
+            return "removed";
+        }
+    }
+}
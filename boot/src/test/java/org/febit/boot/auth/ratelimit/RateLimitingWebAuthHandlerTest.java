@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.ratelimit;
+
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.web.DeferredAuthSubject;
+import org.febit.boot.auth.web.WebAuthHandler;
+import org.febit.boot.auth.web.WebRequestAuthSubjectResolver;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.util.AuthErrors;
+import org.febit.boot.util.RenderedErrors;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.febit.lang.protocol.IResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingWebAuthHandlerTest {
+
+    static final PermissionItem SEARCH = new PermissionItem("search", "", "search", "");
+
+    static class Api {
+
+        @RateLimit(capacity = 2, permitsPerSecond = 0.001)
+        public void annotated() {
+        }
+
+        public void search() {
+        }
+
+        public void free() {
+        }
+    }
+
+    static final PermissionManager MANAGER = new PermissionManager() {
+        @Override
+        public ResolvedPermission getPermission(Method method) {
+            return "search".equals(method.getName())
+                    ? ResolvedPermission.allow(List.of(SEARCH))
+                    : ResolvedPermission.IGNORED;
+        }
+
+        @Override
+        public List<PermissionItem> getAllPermissionItems() {
+            return List.of(SEARCH);
+        }
+    };
+
+    static IResponse<AuthSubject> verify(WebAuthHandler<TestAuthSubject> handler, String user, String method)
+            throws NoSuchMethodException {
+        var request = new MockHttpServletRequest();
+        request.addHeader("X-User", user);
+        return handler.verify(new ServletWebRequest(request), Api.class.getMethod(method));
+    }
+
+    static RateLimitingWebAuthHandler<TestAuthSubject> handler() {
+        WebAuthHandler<TestAuthSubject> delegate = (request, method) -> {
+            var user = request.getHeader("X-User");
+            return "blocked".equals(user)
+                    ? AuthErrors.FORBIDDEN.response("blocked")
+                    : IResponse.success(new TestAuthSubject(user, user));
+        };
+        return RateLimitingWebAuthHandler.builder(delegate, MANAGER)
+                .limit("search", RateLimitRule.global(1, 0.001))
+                .build();
+    }
+
+    @Test
+    void annotated() throws Exception {
+        var handler = handler();
+
+        assertFalse(verify(handler, "foo", "annotated").isFailed());
+        assertFalse(verify(handler, "foo", "annotated").isFailed());
+        var throttled = verify(handler, "foo", "annotated");
+        assertTrue(throttled.isFailed());
+        assertEquals(429, throttled.getStatus());
+        assertEquals(AuthErrors.TOO_MANY_REQUESTS.name(), throttled.getCode());
+
+        // Per subject
+        assertFalse(verify(handler, "bar", "annotated").isFailed());
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void throttledPreRendered(CapturedOutput output) throws Exception {
+        var handler = handler();
+
+        assertFalse(verify(handler, "foo", "search").isFailed());
+        var first = verify(handler, "foo", "search");
+        var second = verify(handler, "foo", "search");
+        assertEquals(429, first.getStatus());
+
+        var rendered = RenderedErrors.of(first);
+        assertSame(rendered, RenderedErrors.of(second));
+        assertSame(rendered, RenderedErrors.of(AuthErrors.TOO_MANY_REQUESTS, AuthErrors.TOO_MANY_REQUESTS.getCode()));
+        assertFalse(output.getAll().contains(AuthErrors.TOO_MANY_REQUESTS.name()),
+                "throttled requests should not be logged");
+    }
+
+    @Test
+    void byCode() throws Exception {
+        var handler = handler();
+
+        assertFalse(verify(handler, "foo", "search").isFailed());
+        // Global, shared by subjects
+        assertEquals(429, verify(handler, "bar", "search").getStatus());
+    }
+
+    @Test
+    void deferredSubject() throws Exception {
+        var resolves = new AtomicInteger();
+        WebRequestAuthSubjectResolver<TestAuthSubject> resolver = request -> {
+            resolves.incrementAndGet();
+            var user = request.getHeader("X-User");
+            return Optional.of(new TestAuthSubject(user, user));
+        };
+        WebAuthHandler<TestAuthSubject> delegate = (request, method) -> {
+            DeferredAuthSubject.defer(request, resolver);
+            return IResponse.success(null);
+        };
+        var handler = RateLimitingWebAuthHandler.builder(delegate, MANAGER)
+                .limit("search", RateLimitRule.global(10, 0.001))
+                .build();
+
+        // Global only, stays deferred
+        assertFalse(verify(handler, "foo", "search").isFailed());
+        assertEquals(0, resolves.get());
+
+        // Per subject, resolved to separate buckets
+        assertFalse(verify(handler, "foo", "annotated").isFailed());
+        assertFalse(verify(handler, "foo", "annotated").isFailed());
+        assertEquals(429, verify(handler, "foo", "annotated").getStatus());
+        assertFalse(verify(handler, "bar", "annotated").isFailed());
+        assertEquals(4, resolves.get());
+    }
+
+    @Test
+    void passThrough() throws Exception {
+        var handler = handler();
+        for (int i = 0; i < 10; i++) {
+            assertFalse(verify(handler, "foo", "free").isFailed());
+            assertEquals(403, verify(handler, "blocked", "annotated").getStatus());
+        }
+    }
+}
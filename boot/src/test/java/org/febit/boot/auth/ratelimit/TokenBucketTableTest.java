@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTableTest {
+
+    static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void burstAndRefill() {
+        var table = TokenBucketTable.create(Duration.ofMinutes(1));
+        var rule = RateLimitRule.perSubject(3, 1);
+        var now = 1000 * SECOND;
+
+        assertTrue(table.tryAcquire("a", rule, now));
+        assertTrue(table.tryAcquire("a", rule, now));
+        assertTrue(table.tryAcquire("a", rule, now));
+        assertFalse(table.tryAcquire("a", rule, now));
+
+        // Other keys have their own buckets
+        assertTrue(table.tryAcquire("b", rule, now));
+
+        // One permit per second
+        assertFalse(table.tryAcquire("a", rule, now + SECOND / 2));
+        assertTrue(table.tryAcquire("a", rule, now + SECOND));
+        assertFalse(table.tryAcquire("a", rule, now + SECOND));
+
+        // Never exceeds the capacity after a long idle
+        var later = now + 100 * SECOND;
+        assertTrue(table.tryAcquire("a", rule, later));
+        assertTrue(table.tryAcquire("a", rule, later));
+        assertTrue(table.tryAcquire("a", rule, later));
+        assertFalse(table.tryAcquire("a", rule, later));
+    }
+
+    @Test
+    void sweep() {
+        var table = TokenBucketTable.create(Duration.ofSeconds(10));
+        var rule = RateLimitRule.perSubject(1, 1);
+        var now = 1000 * SECOND;
+
+        assertTrue(table.tryAcquire("idle", rule, now));
+        assertTrue(table.tryAcquire("busy", rule, now + 10 * SECOND));
+        assertEquals(2, table.size());
+
+        table.sweep(now + 12 * SECOND);
+        assertEquals(1, table.size());
+        assertFalse(table.tryAcquire("busy", rule, now + 10 * SECOND));
+    }
+
+    @Test
+    void invalidRule() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimitRule.perSubject(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitRule.global(1, 0));
+    }
+}
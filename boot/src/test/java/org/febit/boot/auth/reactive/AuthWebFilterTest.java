@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.auth.reactive;
+
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.auth.component.ReactiveAuthHandlerImpl;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthWebFilterTest {
+
+    static final PermissionItem ADMIN = new PermissionItem("admin", "", "admin", "");
+
+    final AtomicInteger resolveTimes = new AtomicInteger();
+    final AtomicInteger chainTimes = new AtomicInteger();
+    final AtomicReference<AuthSubject> captured = new AtomicReference<>();
+
+    final ReactiveWebRequestAuthSubjectResolver<TestAuthSubject> resolver = exchange -> Mono
+            .justOrEmpty(exchange.getRequest().getHeaders().getFirst("X-Auth-Code"))
+            .doOnNext(code -> resolveTimes.incrementAndGet())
+            .map(code -> new TestAuthSubject(code, code));
+
+    final WebFilterChain capturingChain = exchange -> {
+        chainTimes.incrementAndGet();
+        return ReactiveAuthContext.getAuth()
+                .doOnNext(captured::set)
+                .then();
+    };
+
+    public void secured() {
+    }
+
+    public void open() {
+    }
+
+    static Method method(String name) throws NoSuchMethodException {
+        return AuthWebFilterTest.class.getMethod(name);
+    }
+
+    static PermissionManager permissionManager() throws NoSuchMethodException {
+        var mapping = Map.of(
+                method("secured"), ResolvedPermission.allow(List.of(ADMIN)),
+                method("open"), ResolvedPermission.IGNORED
+        );
+        return new PermissionManager() {
+            @Override
+            public ResolvedPermission getPermission(Method method) {
+                return mapping.getOrDefault(method, ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE);
+            }
+
+            @Override
+            public List<PermissionItem> getAllPermissionItems() {
+                return List.of(ADMIN);
+            }
+        };
+    }
+
+    AuthWebFilter<TestAuthSubject> filter(Object handler) throws NoSuchMethodException {
+        var authHandler = new ReactiveAuthHandlerImpl<TestAuthSubject>(
+                permissionManager(),
+                (auth, items) -> "admin".equals(auth.identifier()),
+                resolver
+        );
+        return AuthWebFilter.create(authHandler, exchange -> Mono.just(handler));
+    }
+
+    MockServerWebExchange exchange(String authCode) {
+        var request = MockServerHttpRequest.get("/");
+        if (authCode != null) {
+            request.header("X-Auth-Code", authCode);
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(this, method(name));
+    }
+
+    @Test
+    void unauthorized() throws Exception {
+        var exchange = exchange(null);
+        filter(handler("secured")).filter(exchange, capturingChain).block();
+
+        assertEquals(0, chainTimes.get());
+        assertEquals(401, exchange.getResponse().getStatusCode().value());
+        var body = exchange.getResponse().getBodyAsString().block();
+        assertNotNull(body);
+        assertTrue(body.contains("\"code\":\"UNAUTHORIZED\""));
+        assertTrue(body.contains("\"timestamp\":"));
+    }
+
+    @Test
+    void forbidden() throws Exception {
+        var exchange = exchange("guest");
+        filter(handler("secured")).filter(exchange, capturingChain).block();
+
+        assertEquals(0, chainTimes.get());
+        assertEquals(403, exchange.getResponse().getStatusCode().value());
+    }
+
+    @Test
+    void allowed() throws Exception {
+        var exchange = exchange("admin");
+        filter(handler("secured")).filter(exchange, capturingChain).block();
+
+        assertEquals(1, chainTimes.get());
+        assertEquals("admin", captured.get().identifier());
+        assertEquals(1, resolveTimes.get());
+    }
+
+    @Test
+    void deferred() throws Exception {
+        WebFilterChain ignoring = exchange -> Mono.empty();
+        filter(handler("open")).filter(exchange("guest"), ignoring).block();
+        assertEquals(0, resolveTimes.get());
+
+        filter(handler("open")).filter(exchange("guest"), capturingChain).block();
+        assertEquals(1, resolveTimes.get());
+        assertEquals("guest", captured.get().identifier());
+    }
+
+    @Test
+    void notHandlerMethod() throws Exception {
+        var exchange = exchange(null);
+        filter("static").filter(exchange, capturingChain).block();
+
+        assertEquals(1, chainTimes.get());
+        assertNull(captured.get());
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.auth.AuthSubject;
+import org.febit.boot.permission.BitSetAuthSubject;
+import org.febit.boot.permission.BitSetPermissionVerifier;
+import org.febit.boot.permission.GrantsAuthSubject;
+import org.febit.boot.permission.GrantsPermissionVerifier;
+import org.febit.boot.permission.PermissionGrants;
+import org.febit.boot.permission.PermissionIndex;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionManager;
+import org.febit.boot.permission.PermissionVerifier;
+import org.febit.boot.permission.ResolvedPermission;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkPermissionEvaluationTest {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+    static final PermissionItem BAR = new PermissionItem("shop:bar", "shop", "bar", "");
+    static final PermissionItem BAZ = new PermissionItem("shop:baz", "shop", "baz", "");
+
+    static final List<PermissionItem> ITEMS = List.of(FOO, BAR, BAZ);
+
+    record Subject(String identifier, long[] permissionBits, PermissionGrants permissionGrants)
+            implements BitSetAuthSubject, GrantsAuthSubject {
+    }
+
+    static final PermissionManager MANAGER = new PermissionManager() {
+        final PermissionIndex index = PermissionIndex.of(ITEMS);
+
+        @Override
+        public ResolvedPermission getPermission(Method method) {
+            return ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE;
+        }
+
+        @Override
+        public List<PermissionItem> getAllPermissionItems() {
+            return ITEMS;
+        }
+
+        @Override
+        public PermissionIndex getPermissionIndex() {
+            return index;
+        }
+    };
+
+    static BitSet bits(int... indexes) {
+        var bits = new BitSet();
+        for (var i : indexes) {
+            bits.set(i);
+        }
+        return bits;
+    }
+
+    @Test
+    void defaults() {
+        var granted = Set.of("foo");
+        PermissionVerifier<AuthSubject> verifier = (auth, items) -> items.stream()
+                .anyMatch(item -> granted.contains(item.code()));
+        AuthSubject auth = () -> "foo";
+
+        var permissions = List.of(
+                ResolvedPermission.allow(List.of(FOO)),
+                ResolvedPermission.allow(List.of(BAR)),
+                ResolvedPermission.IGNORED,
+                ResolvedPermission.FORBIDDEN_ABSENT,
+                ResolvedPermission.allow(List.of(BAR, FOO))
+        );
+        assertEquals(bits(0, 2, 4), verifier.isAllowEach(auth, permissions));
+        assertEquals(bits(0), verifier.isAllowEachItem(auth, ITEMS));
+        assertEquals(List.of(FOO), MANAGER.getAllowedPermissionItems(auth, verifier));
+    }
+
+    @Test
+    void bitSet() {
+        var verifier = BitSetPermissionVerifier.<Subject>create(MANAGER);
+        var auth = new Subject("foo",
+                MANAGER.getPermissionIndex().encodeCodes(List.of("foo", "shop:baz")),
+                PermissionGrants.EMPTY);
+
+        assertEquals(bits(0, 2), verifier.isAllowEachItem(auth, ITEMS));
+        assertEquals(List.of(FOO, BAZ), MANAGER.getAllowedPermissionItems(auth, verifier));
+    }
+
+    @Test
+    void grants() {
+        var verifier = GrantsPermissionVerifier.<Subject>create();
+        var auth = new Subject("foo", new long[0], PermissionGrants.of(List.of("shop:*")));
+
+        assertEquals(bits(1, 2), verifier.isAllowEachItem(auth, ITEMS));
+        assertEquals(List.of(BAR, BAZ), MANAGER.getAllowedPermissionItems(auth, verifier));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.permission.CachingPermissionVerifier;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.PermissionVerifier;
+import org.febit.boot.permission.ResolvedPermission;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingPermissionVerifierTest {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+    static final PermissionItem BAR = new PermissionItem("bar", "", "bar", "");
+
+    final AtomicInteger counter = new AtomicInteger();
+    final Map<String, Set<String>> grants = new HashMap<>(Map.of(
+            "alice", Set.of("foo")
+    ));
+
+    final PermissionVerifier<TestAuthSubject> delegate = new PermissionVerifier<>() {
+        @Override
+        public boolean isAllow(TestAuthSubject auth, Collection<PermissionItem> permissions) {
+            counter.incrementAndGet();
+            var granted = grants.getOrDefault(auth.identifier(), Set.of());
+            return permissions.stream().anyMatch(item -> granted.contains(item.code()));
+        }
+    };
+
+    @Test
+    void cached() {
+        var verifier = CachingPermissionVerifier.builder(delegate).build();
+        var alice = new TestAuthSubject("alice", "Alice");
+        var foo = ResolvedPermission.allow(List.of(FOO));
+        var bar = ResolvedPermission.allow(List.of(BAR));
+
+        assertTrue(verifier.isAllow(alice, foo));
+        assertTrue(verifier.isAllow(alice, foo));
+        assertFalse(verifier.isAllow(alice, bar));
+        assertFalse(verifier.isAllow(alice, bar));
+        assertEquals(2, counter.get());
+
+        grants.put("alice", Set.of("bar"));
+        assertTrue(verifier.isAllow(alice, foo));
+
+        verifier.invalidate("alice");
+        assertFalse(verifier.isAllow(alice, foo));
+        assertTrue(verifier.isAllow(alice, bar));
+        assertEquals(4, counter.get());
+
+        grants.put("alice", Set.of("foo", "bar"));
+        verifier.invalidateAll();
+        assertEquals(1, verifier.getGlobalVersion());
+        assertTrue(verifier.isAllow(alice, foo));
+        assertTrue(verifier.isAllow(alice, bar));
+        assertEquals(6, counter.get());
+    }
+
+    @Test
+    void subjectVersion() {
+        var version = new AtomicInteger();
+        var verifier = CachingPermissionVerifier.builder(delegate)
+                .version(auth -> version.get())
+                .build();
+        var alice = new TestAuthSubject("alice", "Alice");
+        var foo = ResolvedPermission.allow(List.of(FOO));
+
+        assertTrue(verifier.isAllow(alice, foo));
+        grants.remove("alice");
+        assertTrue(verifier.isAllow(alice, foo));
+        assertEquals(1, counter.get());
+
+        version.incrementAndGet();
+        assertFalse(verifier.isAllow(alice, foo));
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    void maxDecisions() {
+        var verifier = CachingPermissionVerifier.builder(delegate)
+                .maxDecisionsPerSubject(1)
+                .build();
+        var alice = new TestAuthSubject("alice", "Alice");
+        var foo = ResolvedPermission.allow(List.of(FOO));
+        var bar = ResolvedPermission.allow(List.of(BAR));
+
+        assertTrue(verifier.isAllow(alice, foo));
+        assertFalse(verifier.isAllow(alice, bar));
+        assertFalse(verifier.isAllow(alice, bar));
+        assertTrue(verifier.isAllow(alice, foo));
+        assertEquals(3, counter.get());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.permission.data.DataPermissionRules;
+import org.febit.boot.permission.data.DataPermissions;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataPermissionsTest {
+
+    static final OrderTable ORDER = new OrderTable();
+    static final LogTable LOG = new LogTable();
+
+    final DSLContext dsl = DSL.using(SQLDialect.H2);
+
+    final DataPermissions<TestAuthSubject> permissions = DataPermissions.<TestAuthSubject>builder()
+            .rule(DataPermissionRules.when(DataPermissionRules.hasColumn("owner_id"),
+                    DataPermissionRules.owner("owner_id")))
+            .rule(DataPermissionRules.when(DataPermissionRules.hasColumn("dept_id"),
+                    DataPermissionRules.in("dept_id", auth -> List.of(1, 2))))
+            .build();
+
+    @Test
+    void conditions() {
+        var foo = new TestAuthSubject("foo", "Foo");
+
+        assertSql(DSL.and(ORDER.OWNER_ID.eq("foo"), ORDER.DEPT_ID.in(1, 2)),
+                permissions.condition(foo, ORDER));
+        assertSql(DSL.noCondition(), permissions.condition(foo, LOG));
+
+        var alias = ORDER.as("o");
+        assertSql(DSL.and(alias.field(ORDER.OWNER_ID).eq("foo"), alias.field(ORDER.DEPT_ID).in(1, 2)),
+                permissions.condition(foo, alias));
+    }
+
+    @Test
+    void anonymous() {
+        assertSql(DSL.and(DSL.falseCondition(), DSL.falseCondition()),
+                permissions.condition(null, ORDER));
+        assertSql(DSL.noCondition(), permissions.condition(null, LOG));
+    }
+
+    @Test
+    void missingColumn() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var strict = DataPermissions.<TestAuthSubject>builder()
+                .rule(DataPermissionRules.owner("owner_id"))
+                .rule(DataPermissionRules.in("dept_id", auth -> List.of(1, 2)))
+                .build();
+
+        // Fail closed
+        assertSql(DSL.and(DSL.falseCondition(), DSL.falseCondition()), strict.condition(foo, LOG));
+        assertSql(DSL.and(DSL.falseCondition(), DSL.falseCondition()), strict.condition(foo, LOG.as("l")));
+        assertSql(DSL.and(ORDER.OWNER_ID.eq("foo"), ORDER.DEPT_ID.in(1, 2)), strict.condition(foo, ORDER));
+
+        var misspelled = DataPermissions.<TestAuthSubject>builder()
+                .rule(DataPermissionRules.owner("owner"))
+                .build();
+        assertSql(DSL.and(List.of(DSL.falseCondition())), misspelled.condition(foo, ORDER));
+    }
+
+    @Test
+    void sharedAlias() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        var scope = permissions.scope(foo);
+
+        assertSql(DSL.and(DSL.field(DSL.name("t", "owner_id")).eq("foo"),
+                        DSL.field(DSL.name("t", "dept_id")).in(1, 2)),
+                scope.condition(ORDER.as("t")));
+        assertSql(DSL.noCondition(), scope.condition(LOG.as("t")));
+        assertSql(DSL.noCondition(), scope.condition(LOG.as("t")));
+
+        var order = ORDER.as("t");
+        assertSql(DSL.and(order.field(ORDER.OWNER_ID).eq("foo"), order.field(ORDER.DEPT_ID).in(1, 2)),
+                scope.condition(order));
+    }
+
+    @Test
+    void notCachedWithoutVersion() {
+        var foo = new TestAuthSubject("foo", "Foo");
+        assertNotSame(permissions.scope(foo), permissions.scope(foo));
+        assertSame(permissions.scope(null), permissions.scope(null));
+    }
+
+    @Test
+    void cached() {
+        var compiles = new AtomicInteger();
+        var counting = DataPermissions.<TestAuthSubject>builder()
+                .rule((auth, table) -> {
+                    compiles.incrementAndGet();
+                    return null;
+                })
+                .version(auth -> 1L)
+                .build();
+        var foo = new TestAuthSubject("foo", "Foo");
+
+        var scope = counting.scope(foo);
+        assertSame(scope, counting.scope(new TestAuthSubject("foo", "Foo")));
+        scope.condition(ORDER);
+        scope.condition(ORDER);
+        scope.condition(ORDER, LOG);
+        assertEquals(2, compiles.get());
+
+        counting.invalidateAll();
+        assertNotSame(scope, counting.scope(foo));
+        counting.scope(foo).condition(ORDER);
+        assertEquals(3, compiles.get());
+
+        counting.invalidate("foo");
+        counting.scope(foo).condition(ORDER);
+        assertEquals(4, compiles.get());
+    }
+
+    private void assertSql(Condition expected, Condition actual) {
+        assertEquals(dsl.renderInlined(expected), dsl.renderInlined(actual));
+    }
+
+    static class OrderTable extends TableImpl<Record> {
+
+        final TableField<Record, Long> ID = createField(DSL.name("id"), SQLDataType.BIGINT, this, "");
+        final TableField<Record, String> OWNER_ID = createField(DSL.name("owner_id"), SQLDataType.VARCHAR, this, "");
+        final TableField<Record, Integer> DEPT_ID = createField(DSL.name("dept_id"), SQLDataType.INTEGER, this, "");
+
+        OrderTable() {
+            super(DSL.name("t_order"));
+        }
+    }
+
+    static class LogTable extends TableImpl<Record> {
+
+        final TableField<Record, Long> ID = createField(DSL.name("id"), SQLDataType.BIGINT, this, "");
+
+        LogTable() {
+            super(DSL.name("t_log"));
+        }
+    }
+}
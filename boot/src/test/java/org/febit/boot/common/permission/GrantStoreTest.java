@@ -0,0 +1,212 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.store.GrantSource;
+import org.febit.boot.permission.store.GrantStore;
+import org.febit.boot.permission.store.GrantStorePermissionVerifier;
+import org.febit.boot.permission.store.JooqGrantSource;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.jooq.CloseableDSLContext;
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrantStoreTest {
+
+    static final PermissionItem ORDER_READ = PermissionItem.of("shop", "order", "read", ":");
+    static final PermissionItem ORDER_WRITE = PermissionItem.of("shop", "order", "write", ":");
+
+    static final Table<?> GRANT = DSL.table(DSL.name("t_grant"));
+    static final Field<String> SUBJECT = DSL.field(DSL.name("subject"), SQLDataType.VARCHAR);
+    static final Field<String> PATTERN = DSL.field(DSL.name("pattern"), SQLDataType.VARCHAR);
+    static final Field<Long> VERSION = DSL.field(DSL.name("version"), SQLDataType.BIGINT);
+    static final Field<Boolean> DELETED = DSL.field(DSL.name("deleted"), SQLDataType.BOOLEAN);
+
+    CloseableDSLContext dsl;
+
+    @BeforeEach
+    void setUp() {
+        dsl = DSL.using("jdbc:h2:mem:grant_store_test;DB_CLOSE_DELAY=-1");
+        dsl.createTable(GRANT)
+                .columns(SUBJECT, PATTERN, VERSION, DELETED)
+                .execute();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dsl.dropTable(GRANT).execute();
+        dsl.close();
+    }
+
+    @Test
+    void incremental() {
+        var source = new FakeSource();
+        source.all.put("foo", List.of("shop:order:read"));
+        var store = GrantStore.builder(source)
+                .fullReloadInterval(Duration.ofDays(1))
+                .build();
+        var verifier = GrantStorePermissionVerifier.<TestAuthSubject>create(store);
+        var foo = new TestAuthSubject("foo", "Foo");
+        var bar = new TestAuthSubject("bar", "Bar");
+
+        assertFalse(verifier.isAllow(foo, List.of(ORDER_READ)));
+        store.refresh();
+        assertEquals(1, store.getVersion());
+        assertTrue(verifier.isAllow(foo, List.of(ORDER_READ)));
+        assertFalse(verifier.isAllow(foo, List.of(ORDER_WRITE)));
+        assertFalse(verifier.isAllow(bar, List.of(ORDER_READ)));
+
+        store.refresh();
+        assertEquals(1, store.getVersion());
+
+        source.changes.add(Map.of(
+                "foo", List.of(),
+                "bar", List.of("shop:*")
+        ));
+        store.refresh();
+        assertEquals(2, store.getVersion());
+        assertFalse(verifier.isAllow(foo, List.of(ORDER_READ)));
+        assertTrue(verifier.isAllow(bar, List.of(ORDER_WRITE)));
+        assertEquals(1, store.size());
+
+        source.changes.add(Map.of("bar", List.of("*:bad:pattern")));
+        store.refresh();
+        assertFalse(verifier.isAllow(bar, List.of(ORDER_WRITE)));
+    }
+
+    @Test
+    void jooqSource() {
+        insert("foo", "shop:order:read", 1, false);
+        insert("foo", "shop:order:write", 2, true);
+        insert("bar", "shop:order:*", 3, false);
+
+        var source = JooqGrantSource.builder(dsl, GRANT, SUBJECT, PATTERN, VERSION)
+                .where(DELETED.isFalse())
+                .build();
+        var store = GrantStore.builder(source)
+                .fullReloadInterval(Duration.ofDays(1))
+                .build();
+        store.reload();
+
+        assertTrue(store.grantsOf("foo").matches(ORDER_READ));
+        assertFalse(store.grantsOf("foo").matches(ORDER_WRITE));
+        assertTrue(store.grantsOf("bar").matches(ORDER_WRITE));
+        assertTrue(source.loadChanged().isEmpty());
+
+        // Soft delete, and grant
+        dsl.update(GRANT)
+                .set(DELETED, true)
+                .set(VERSION, 4L)
+                .where(SUBJECT.eq("bar"))
+                .execute();
+        insert("foo", "shop:order:write", 5, false);
+        store.refresh();
+
+        assertTrue(store.grantsOf("foo").matches(ORDER_WRITE));
+        assertTrue(store.grantsOf("bar").isEmpty());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void jooqSourceLookback() {
+        insert("foo", "shop:order:read", 1, false);
+        insert("bar", "shop:order:read", 3, false);
+
+        var source = JooqGrantSource.builder(dsl, GRANT, SUBJECT, PATTERN, VERSION)
+                .where(DELETED.isFalse())
+                .lookback(v -> v - 5)
+                .build();
+        assertEquals(2, source.loadAll().size());
+        assertTrue(source.loadChanged().isEmpty());
+
+        // Committed late, behind the cursor
+        insert("foo", "shop:order:write", 2, false);
+        var changed = source.loadChanged();
+        assertEquals(Set.of("foo"), changed.keySet());
+        assertEquals(Set.of("shop:order:read", "shop:order:write"), Set.copyOf(changed.get("foo")));
+
+        // Already seen in window
+        assertTrue(source.loadChanged().isEmpty());
+    }
+
+    @Test
+    void withoutModule() {
+        var orderRead = PermissionItem.of("", "order", "read", ":");
+        var orderWrite = PermissionItem.of("", "order", "write", ":");
+        var source = new FakeSource();
+        source.all.put("foo", List.of(orderRead.code()));
+        source.all.put("bar", List.of(":order:*"));
+        var store = GrantStore.builder(source).build();
+        store.reload();
+
+        assertTrue(store.grantsOf("foo").matches(orderRead));
+        assertFalse(store.grantsOf("foo").matches(orderWrite));
+        assertTrue(store.grantsOf("bar").matches(orderWrite));
+    }
+
+    @Test
+    void customSeparator() {
+        var source = new FakeSource();
+        source.all.put("foo", List.of("shop.order.read"));
+        var store = GrantStore.builder(source)
+                .separator(".")
+                .build();
+        store.reload();
+
+        assertTrue(store.grantsOf("foo").matches(PermissionItem.of("shop", "order", "read", ".")));
+        assertFalse(store.grantsOf("foo").matches(PermissionItem.of("shop", "order", "write", ".")));
+    }
+
+    private void insert(String subject, String pattern, long version, boolean deleted) {
+        dsl.insertInto(GRANT, SUBJECT, PATTERN, VERSION, DELETED)
+                .values(subject, pattern, version, deleted)
+                .execute();
+    }
+
+    static class FakeSource implements GrantSource {
+
+        final Map<String, List<String>> all = new HashMap<>();
+        final List<Map<String, List<String>>> changes = new ArrayList<>();
+
+        @Override
+        public Map<String, List<String>> loadAll() {
+            changes.clear();
+            return all;
+        }
+
+        @Override
+        public Map<String, List<String>> loadChanged() {
+            return changes.isEmpty()
+                    ? Map.of()
+                    : changes.remove(0);
+        }
+    }
+}
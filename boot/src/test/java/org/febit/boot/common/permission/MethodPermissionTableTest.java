@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.permission.MethodPermissionTable;
+import org.febit.boot.permission.PermissionItem;
+import org.febit.boot.permission.ResolvedPermission;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.febit.boot.permission.ResolvedPermission.ANONYMOUS;
+import static org.febit.boot.permission.ResolvedPermission.FORBIDDEN_NOT_IN_CHARGE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodPermissionTableTest {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+    static final PermissionItem BAR = new PermissionItem("api:bar", "api", "bar", "");
+
+    @Test
+    void get() throws NoSuchMethodException {
+        var foo = ResolvedPermission.allow(List.of(FOO));
+        var foobar = ResolvedPermission.allow(List.of(FOO, BAR));
+
+        var table = MethodPermissionTable.builder()
+                .put(Handler.class.getDeclaredMethod("foo"), foo)
+                .put(Handler.class.getDeclaredMethod("foobar"), foobar)
+                .put(Handler.class.getDeclaredMethod("ping"), ANONYMOUS)
+                .build();
+
+        assertEquals(3, table.size());
+        assertEquals(List.of(FOO, BAR), table.getItems());
+
+        // Reflection returns copies, should be matched by equals
+        var resolvedFoo = table.get(Handler.class.getDeclaredMethod("foo"), FORBIDDEN_NOT_IN_CHARGE);
+        assertEquals(foo.getItems(), resolvedFoo.getItems());
+        assertArrayEquals(new long[]{0b01}, resolvedFoo.getMask());
+
+        var resolvedFoobar = table.get(Handler.class.getDeclaredMethod("foobar"), FORBIDDEN_NOT_IN_CHARGE);
+        assertEquals(foobar.getItems(), resolvedFoobar.getItems());
+        assertArrayEquals(new long[]{0b11}, resolvedFoobar.getMask());
+
+        assertSame(ANONYMOUS, table.get(Handler.class.getDeclaredMethod("ping"), FORBIDDEN_NOT_IN_CHARGE));
+
+        assertSame(FORBIDDEN_NOT_IN_CHARGE,
+                table.get(Handler.class.getDeclaredMethod("absent"), FORBIDDEN_NOT_IN_CHARGE));
+        assertSame(FORBIDDEN_NOT_IN_CHARGE,
+                table.get(String.class.getDeclaredMethod("length"), FORBIDDEN_NOT_IN_CHARGE));
+    }
+
+    @Test
+    void empty() throws NoSuchMethodException {
+        var table = MethodPermissionTable.EMPTY;
+        assertEquals(0, table.size());
+        assertTrue(table.getItems().isEmpty());
+        assertSame(FORBIDDEN_NOT_IN_CHARGE,
+                table.get(Handler.class.getDeclaredMethod("foo"), FORBIDDEN_NOT_IN_CHARGE));
+    }
+
+    @Test
+    void attachment() throws NoSuchMethodException {
+        var loads = new AtomicInteger();
+        var attachment = new MethodPermissionTable.Attachment<>(method -> {
+            loads.incrementAndGet();
+            return method.getName().toUpperCase();
+        });
+        var foo = Handler.class.getDeclaredMethod("foo");
+        var table = MethodPermissionTable.builder()
+                .put(foo, ResolvedPermission.allow(List.of(FOO)))
+                .build();
+
+        assertEquals("FOO", table.getAttachment(foo, attachment));
+        assertEquals("FOO", table.getAttachment(Handler.class.getDeclaredMethod("foo"), attachment));
+        assertEquals(1, loads.get());
+
+        // Not in table, not cached
+        assertEquals("ABSENT", table.getAttachment(Handler.class.getDeclaredMethod("absent"), attachment));
+        assertEquals("ABSENT", table.getAttachment(Handler.class.getDeclaredMethod("absent"), attachment));
+        assertEquals(3, loads.get());
+
+        // Dropped with the table
+        var rebuilt = table.toBuilder().build();
+        assertEquals("FOO", rebuilt.getAttachment(foo, attachment));
+        assertEquals(4, loads.get());
+    }
+
+    @SuppressWarnings({"unused"})
+    static class Handler {
+
+        public void foo() {
+        }
+
+        public void foobar() {
+        }
+
+        public void ping() {
+        }
+
+        public void absent() {
+        }
+    }
+}
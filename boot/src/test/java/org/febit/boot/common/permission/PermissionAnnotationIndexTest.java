@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.permission.AnnotatedMethodPermissionResolver;
+import org.febit.boot.permission.AnonymousApi;
+import org.febit.boot.permission.Permission;
+import org.febit.boot.permission.PermissionAnnotationIndex;
+import org.febit.boot.permission.PermissionItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionAnnotationIndexTest {
+
+    static final PermissionItem ORDER_READ = new PermissionItem("shop:order:read", "shop", "order", "read");
+
+    /**
+     * Indexed by test resource, annotations are ignored once indexed.
+     */
+    static class Indexed {
+
+        @Permission(resource = "ignored")
+        public void read(String id, int[] ids) {
+        }
+
+        public void open() {
+        }
+
+        @AnonymousApi
+        public void none() {
+        }
+    }
+
+    static class NotIndexed {
+
+        @Permission(module = "shop", resource = "order", action = "read")
+        public void read() {
+        }
+    }
+
+    @Test
+    void methodKey() throws NoSuchMethodException {
+        assertEquals("read(java.lang.String,int[])",
+                PermissionAnnotationIndex.methodKey(Indexed.class.getMethod("read", String.class, int[].class)));
+        assertEquals("open()",
+                PermissionAnnotationIndex.methodKey(Indexed.class.getMethod("open")));
+    }
+
+    @Test
+    void index() throws NoSuchMethodException {
+        var index = PermissionAnnotationIndex.of(Indexed.class);
+        assertNotNull(index);
+        assertSame(index, PermissionAnnotationIndex.of(Indexed.class));
+        assertNull(PermissionAnnotationIndex.of(NotIndexed.class));
+
+        var read = Indexed.class.getMethod("read", String.class, int[].class);
+        assertEquals(List.of(ORDER_READ), index.getPermissions(read));
+        assertEquals(Boolean.FALSE, index.isAnonymous(read));
+
+        var open = Indexed.class.getMethod("open");
+        assertEquals(List.of(), index.getPermissions(open));
+        assertEquals(Boolean.TRUE, index.isAnonymous(open));
+    }
+
+    @Test
+    void resolver() throws NoSuchMethodException {
+        var resolver = new AnnotatedMethodPermissionResolver();
+
+        var indexed = new ArrayList<PermissionItem>();
+        resolver.collect(Indexed.class.getMethod("read", String.class, int[].class), indexed::add);
+        assertEquals(List.of(ORDER_READ), indexed);
+        assertEquals(Boolean.FALSE, resolver.isAnonymous(Indexed.class.getMethod("none")));
+
+        var reflected = new ArrayList<PermissionItem>();
+        resolver.collect(NotIndexed.class.getMethod("read"), reflected::add);
+        assertEquals(List.of(ORDER_READ), reflected);
+        assertNull(resolver.isAnonymous(NotIndexed.class.getMethod("read")));
+    }
+}
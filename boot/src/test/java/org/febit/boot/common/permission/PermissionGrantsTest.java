@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.permission.GrantsAuthSubject;
+import org.febit.boot.permission.GrantsPermissionVerifier;
+import org.febit.boot.permission.PermissionGrants;
+import org.febit.boot.permission.PermissionItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionGrantsTest {
+
+    static final PermissionItem ORDER_READ = new PermissionItem("shop:order:read", "shop", "order", "read");
+    static final PermissionItem ORDER_WRITE = new PermissionItem("shop:order:write", "shop", "order", "write");
+    static final PermissionItem ITEM_READ = new PermissionItem("shop:item:read", "shop", "item", "read");
+    static final PermissionItem USER = new PermissionItem("admin:user", "admin", "user", "");
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+
+    record Subject(String identifier, PermissionGrants permissionGrants) implements GrantsAuthSubject {
+    }
+
+    @Test
+    void exact() {
+        var grants = PermissionGrants.of(List.of("shop:order:read", "admin:user"));
+
+        assertTrue(grants.matches(ORDER_READ));
+        assertTrue(grants.matches(USER));
+        assertFalse(grants.matches(ORDER_WRITE));
+        assertFalse(grants.matches(ITEM_READ));
+        assertFalse(grants.matches(FOO));
+    }
+
+    @Test
+    void withoutModule() {
+        var orderRead = PermissionItem.of("", "order", "read", ":");
+        var orderWrite = PermissionItem.of("", "order", "write", ":");
+        assertEquals("order:read", orderRead.code());
+
+        // By code, as declared
+        var grants = PermissionGrants.of(List.of("order:read"));
+        assertTrue(grants.matches(orderRead));
+        assertFalse(grants.matches(orderWrite));
+        assertFalse(grants.isEmpty());
+
+        // Leading empty module
+        var positional = PermissionGrants.of(List.of(":order:read"));
+        assertTrue(positional.matches(orderRead));
+        assertFalse(positional.matches(orderWrite));
+
+        var wildcard = PermissionGrants.of(List.of(":order:*"));
+        assertTrue(wildcard.matches(orderRead));
+        assertTrue(wildcard.matches(orderWrite));
+        assertFalse(wildcard.matches(ORDER_READ));
+
+        var merged = PermissionGrants.builder().merge(grants).build();
+        assertTrue(merged.matches(orderRead));
+    }
+
+    @Test
+    void customSeparator() {
+        var orderRead = PermissionItem.of("shop", "order", "read", ".");
+        var grants = PermissionGrants.of(List.of("shop.order.read", "admin.*"), ".");
+
+        assertTrue(grants.matches(orderRead));
+        assertTrue(grants.matches(PermissionItem.of("admin", "user", "", ".")));
+        assertFalse(grants.matches(PermissionItem.of("shop", "order", "write", ".")));
+        assertThrows(IllegalArgumentException.class, () -> PermissionGrants.builder(""));
+    }
+
+    @Test
+    void wildcard() {
+        var resource = PermissionGrants.of(List.of("shop:order:*"));
+        assertTrue(resource.matches(ORDER_READ));
+        assertTrue(resource.matches(ORDER_WRITE));
+        assertFalse(resource.matches(ITEM_READ));
+
+        var module = PermissionGrants.of(List.of("SHOP:*", "shop:order:read"));
+        assertTrue(module.matches(ORDER_WRITE));
+        assertTrue(module.matches(ITEM_READ));
+        assertFalse(module.matches(USER));
+
+        assertSame(PermissionGrants.ALL, PermissionGrants.of(List.of("shop:order:read", "*")));
+        assertTrue(PermissionGrants.ALL.matches(FOO));
+    }
+
+    @Test
+    void structured() {
+        var grants = PermissionGrants.builder()
+                .grant(FOO)
+                .grant("shop", "item", null)
+                .build();
+
+        assertTrue(grants.matches(FOO));
+        assertTrue(grants.matches(ITEM_READ));
+        assertFalse(grants.matches(ORDER_READ));
+    }
+
+    @Test
+    void merge() {
+        var reader = PermissionGrants.of(List.of("shop:order:read"));
+        var admin = PermissionGrants.of(List.of("admin:*"));
+        var merged = PermissionGrants.builder()
+                .merge(reader)
+                .merge(admin)
+                .merge(PermissionGrants.EMPTY)
+                .build();
+
+        assertTrue(merged.matches(ORDER_READ));
+        assertTrue(merged.matches(USER));
+        assertFalse(merged.matches(ORDER_WRITE));
+
+        assertTrue(PermissionGrants.builder().build().isEmpty());
+        assertSame(PermissionGrants.ALL, PermissionGrants.builder()
+                .merge(reader)
+                .merge(PermissionGrants.ALL)
+                .build());
+    }
+
+    @Test
+    void invalid() {
+        var builder = PermissionGrants.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.grant("a:b:c:d"));
+        assertThrows(IllegalArgumentException.class, () -> builder.grant("a:*:c"));
+    }
+
+    @Test
+    void verifier() {
+        var verifier = GrantsPermissionVerifier.<Subject>create();
+        var subject = new Subject("foo", PermissionGrants.of(List.of("shop:order:*")));
+
+        assertTrue(verifier.isAllow(subject, List.of(ITEM_READ, ORDER_WRITE)));
+        assertFalse(verifier.isAllow(subject, List.of(ITEM_READ, USER)));
+        assertFalse(verifier.isAllow(subject, List.of()));
+    }
+}
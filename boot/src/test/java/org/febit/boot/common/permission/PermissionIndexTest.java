@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.common.permission;
+
+import org.febit.boot.permission.PermissionIndex;
+import org.febit.boot.permission.PermissionItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionIndexTest {
+
+    static final PermissionItem FOO = new PermissionItem("foo", "", "foo", "");
+    static final PermissionItem BAR = new PermissionItem("api:bar", "api", "bar", "");
+    static final PermissionItem BAR_ALIAS = new PermissionItem("api:bar", "", "api:bar", "");
+
+    @Test
+    void ordinal() {
+        var index = PermissionIndex.of(List.of(BAR_ALIAS, FOO, BAR));
+
+        assertEquals(2, index.size());
+        assertEquals(0, index.ordinal("api:bar"));
+        assertEquals(0, index.ordinal(BAR));
+        assertEquals(0, index.ordinal(BAR_ALIAS));
+        assertEquals(1, index.ordinal(FOO));
+        assertEquals(-1, index.ordinal("absent"));
+    }
+
+    @Test
+    void encode() {
+        var index = PermissionIndex.of(List.of(BAR, FOO));
+
+        assertArrayEquals(new long[]{0b10}, index.encodeItems(List.of(FOO)));
+        assertArrayEquals(new long[]{0b11}, index.encodeCodes(Set.of("foo", "api:bar", "absent")));
+        assertArrayEquals(new long[]{0}, index.encodeCodes(Set.of("absent")));
+        assertArrayEquals(new long[0], PermissionIndex.EMPTY.encodeCodes(Set.of("foo")));
+    }
+
+    @Test
+    void extend() {
+        var index = PermissionIndex.of(List.of(FOO));
+        assertSame(index, index.extend(List.of(FOO)));
+
+        var extended = index.extend(List.of(BAR, FOO, BAR_ALIAS));
+        assertEquals(2, extended.size());
+        assertEquals(0, extended.ordinal(FOO));
+        assertEquals(1, extended.ordinal(BAR));
+        assertEquals(List.of(FOO, BAR), extended.getItems());
+
+        // Bits encoded by the former index are still valid
+        var granted = index.encodeCodes(List.of("foo"));
+        assertTrue(PermissionIndex.intersects(granted, extended.encodeItems(List.of(FOO))));
+        assertFalse(PermissionIndex.intersects(granted, extended.encodeItems(List.of(BAR))));
+    }
+
+    @Test
+    void bits() {
+        var items = new ArrayList<PermissionItem>();
+        for (int i = 0; i < 130; i++) {
+            var code = "item" + i;
+            items.add(new PermissionItem(code, "", code, ""));
+        }
+        var index = PermissionIndex.of(items);
+        assertEquals(3, PermissionIndex.words(index.size()));
+
+        var granted = index.encodeCodes(List.of("item3", "item129"));
+        assertTrue(PermissionIndex.get(granted, 3));
+        assertTrue(PermissionIndex.get(granted, 129));
+        assertFalse(PermissionIndex.get(granted, 64));
+        assertFalse(PermissionIndex.get(granted, -1));
+        assertFalse(PermissionIndex.get(granted, 1000));
+
+        assertTrue(PermissionIndex.intersects(granted, index.encodeCodes(List.of("item129"))));
+        assertFalse(PermissionIndex.intersects(granted, index.encodeCodes(List.of("item64", "item4"))));
+        assertFalse(PermissionIndex.intersects(new long[0], granted));
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.jooq;
+
+import org.febit.boot.model.SeekCursor;
+import org.febit.lang.protocol.BusinessException;
+import org.febit.lang.protocol.Pagination;
+import org.febit.lang.protocol.Sort;
+import org.jooq.CloseableDSLContext;
+import org.jooq.Record;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPagingTest {
+
+    static final ItemTable ITEM = new ItemTable();
+
+    static final KeysetPaging PAGING = KeysetPaging.builder(ITEM, "id")
+            .column("groupName", ITEM.GROUP_NAME)
+            .column("score", ITEM.SCORE)
+            .column("createdAt", ITEM.CREATED_AT)
+            .column("updatedAt", ITEM.UPDATED_AT)
+            .column("amount", ITEM.AMOUNT)
+            .build();
+
+    static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 2, 3, 4);
+
+    CloseableDSLContext dsl;
+
+    @BeforeEach
+    void setUp() {
+        dsl = DSL.using("jdbc:h2:mem:keyset_paging_test;DB_CLOSE_DELAY=-1");
+        dsl.createTable(ITEM)
+                .columns(ITEM.ID, ITEM.GROUP_NAME, ITEM.SCORE, ITEM.CREATED_AT, ITEM.UPDATED_AT, ITEM.AMOUNT)
+                .execute();
+        for (long id = 1; id <= 25; id++) {
+            // Whole minutes and microseconds, ties included
+            var time = BASE_TIME.plusMinutes(id % 5).plusNanos((id % 2) * 1_000);
+            dsl.insertInto(ITEM, ITEM.ID, ITEM.GROUP_NAME, ITEM.SCORE, ITEM.CREATED_AT, ITEM.UPDATED_AT, ITEM.AMOUNT)
+                    .values(id, "g" + (id % 4), (int) (id % 3),
+                            time,
+                            time.atOffset(ZoneOffset.ofHours((int) (id % 3))),
+                            BigDecimal.valueOf(id % 6 * 1000, 2))
+                    .execute();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        dsl.dropTable(ITEM).execute();
+        dsl.close();
+    }
+
+    @Test
+    void cursorCodec() {
+        var cursor = SeekCursor.of(List.of(
+                new SeekCursor.Key("score", Sort.Direction.DESC, "2"),
+                new SeekCursor.Key("id", Sort.Direction.ASC, "\u4e2d\u6587,|=")
+        ));
+        var encoded = cursor.encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, SeekCursor.decode(encoded));
+
+        assertTrue(cursor.matches(List.of(
+                Sort.of("score", Sort.Direction.DESC),
+                Sort.of("id", Sort.Direction.ASC)
+        )));
+        assertFalse(cursor.matches(List.of(
+                Sort.of("score", Sort.Direction.ASC),
+                Sort.of("id", Sort.Direction.ASC)
+        )));
+
+        assertThrows(BusinessException.class, () -> SeekCursor.decode("not a cursor"));
+        assertThrows(BusinessException.class, () -> SeekCursor.decode(encoded.substring(0, encoded.length() - 2)));
+        assertThrows(BusinessException.class, () -> SeekCursor.decode(encoded + "AA"));
+        assertThrows(IllegalArgumentException.class, () -> SeekCursor.of(List.of()));
+    }
+
+    @Test
+    void sorts() {
+        assertEquals(List.of("id,DESC"),
+                format(PAGING.resolveSorts(List.of())));
+        assertEquals(List.of("score,ASC", "id,ASC"),
+                format(PAGING.resolveSorts(List.of(Sort.of("score", Sort.Direction.ASC)))));
+        assertEquals(List.of("id,ASC", "score,DESC"),
+                format(PAGING.resolveSorts(List.of(
+                        Sort.of("id", Sort.Direction.ASC),
+                        Sort.of("score", Sort.Direction.DESC),
+                        Sort.of("id", Sort.Direction.DESC)
+                ))));
+
+        assertThrows(BusinessException.class,
+                () -> PAGING.seek(pagination(10, Sort.of("password", Sort.Direction.ASC)), null));
+        // Not exposed, even if a field of the table
+        assertThrows(BusinessException.class,
+                () -> PAGING.seek(pagination(10, Sort.of("group_name", Sort.Direction.ASC)), null));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPaging.builder(ITEM, "missing").build());
+        assertThrows(IllegalArgumentException.class, () -> KeysetPaging.builder(ITEM, "id")
+                .defaultSort(Sort.of("group_name", Sort.Direction.ASC))
+                .build());
+    }
+
+    @Test
+    void sameDirection() {
+        assertPages(pagination(7, Sort.of("score", Sort.Direction.DESC)));
+        assertPages(pagination(4, Sort.of("groupName", Sort.Direction.ASC), Sort.of("score", Sort.Direction.ASC)));
+        assertPages(pagination(5));
+    }
+
+    @Test
+    void mixedDirections() {
+        assertPages(pagination(6, Sort.of("score", Sort.Direction.ASC), Sort.of("id", Sort.Direction.DESC)));
+        assertPages(pagination(3,
+                Sort.of("groupName", Sort.Direction.DESC),
+                Sort.of("score", Sort.Direction.ASC),
+                Sort.of("id", Sort.Direction.DESC)
+        ));
+    }
+
+    @Test
+    void temporalAndDecimal() {
+        assertPages(pagination(4, Sort.of("createdAt", Sort.Direction.DESC)));
+        assertPages(pagination(3, Sort.of("updatedAt", Sort.Direction.ASC), Sort.of("id", Sort.Direction.DESC)));
+        assertPages(pagination(6, Sort.of("amount", Sort.Direction.ASC), Sort.of("createdAt", Sort.Direction.DESC)));
+
+        var seek = PAGING.seek(pagination(1, Sort.of("createdAt", Sort.Direction.ASC)), null);
+        var keys = seek.cursorOf(fetch(seek).get(0)).getKeys();
+        assertEquals("2024-01-02T03:04:00", keys.get(0).value());
+
+        seek = PAGING.seek(pagination(1, Sort.of("amount", Sort.Direction.DESC)), null);
+        keys = seek.cursorOf(fetch(seek).get(0)).getKeys();
+        assertEquals("50.00", keys.get(0).value());
+
+        var malformed = SeekCursor.of(List.of(
+                new SeekCursor.Key("createdAt", Sort.Direction.ASC, "2024-01-02 03:04"),
+                new SeekCursor.Key("id", Sort.Direction.ASC, "1")
+        ));
+        assertThrows(BusinessException.class,
+                () -> PAGING.seek(pagination(5, Sort.of("createdAt", Sort.Direction.ASC)), malformed));
+    }
+
+    @Test
+    void mismatchedCursor() {
+        var first = PAGING.seek(pagination(5, Sort.of("score", Sort.Direction.ASC)), null);
+        var cursor = first.next(fetch(first));
+        assertNotNull(cursor);
+
+        var pagination = pagination(5, Sort.of("score", Sort.Direction.DESC));
+        assertThrows(BusinessException.class, () -> PAGING.seek(pagination, cursor));
+
+        var malformed = SeekCursor.of(List.of(
+                new SeekCursor.Key("score", Sort.Direction.ASC, "NaN"),
+                new SeekCursor.Key("id", Sort.Direction.ASC, "1")
+        ));
+        assertThrows(BusinessException.class,
+                () -> PAGING.seek(pagination(5, Sort.of("score", Sort.Direction.ASC)), malformed));
+    }
+
+    private void assertPages(Pagination pagination) {
+        var first = PAGING.seek(pagination, null);
+        var expected = dsl.selectFrom(ITEM)
+                .orderBy(first.orderBy())
+                .fetch(ITEM.ID);
+
+        var actual = new ArrayList<Long>();
+        SeekCursor cursor = null;
+        int pages = 0;
+        do {
+            // Through the wire
+            var seek = PAGING.seek(pagination, cursor != null
+                    ? SeekCursor.decode(cursor.encode())
+                    : null);
+            var rows = fetch(seek);
+            rows.forEach(row -> actual.add(row.get(ITEM.ID)));
+            cursor = seek.next(rows);
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, actual);
+        assertEquals(25 / pagination.getSize() + 1, pages);
+    }
+
+    private List<Record> fetch(KeysetPaging.Seek seek) {
+        return dsl.selectFrom(ITEM)
+                .where(seek.condition())
+                .orderBy(seek.orderBy())
+                .limit(seek.limit())
+                .fetch();
+    }
+
+    private static List<String> format(List<Sort> sorts) {
+        return sorts.stream()
+                .map(sort -> sort.getColumn() + ',' + sort.getDirection())
+                .toList();
+    }
+
+    private static Pagination pagination(int size, Sort... sorts) {
+        var pagination = new Pagination();
+        pagination.setPage(1);
+        pagination.setSize(size);
+        pagination.setSorts(List.of(sorts));
+        return pagination;
+    }
+
+    static class ItemTable extends TableImpl<Record> {
+
+        final TableField<Record, Long> ID = createField(DSL.name("id"), SQLDataType.BIGINT, this, "");
+        final TableField<Record, String> GROUP_NAME = createField(
+                DSL.name("group_name"), SQLDataType.VARCHAR, this, "");
+        final TableField<Record, Integer> SCORE = createField(DSL.name("score"), SQLDataType.INTEGER, this, "");
+        final TableField<Record, LocalDateTime> CREATED_AT = createField(
+                DSL.name("created_at"), SQLDataType.LOCALDATETIME(6), this, "");
+        final TableField<Record, OffsetDateTime> UPDATED_AT = createField(
+                DSL.name("updated_at"), SQLDataType.TIMESTAMPWITHTIMEZONE(6), this, "");
+        final TableField<Record, BigDecimal> AMOUNT = createField(
+                DSL.name("amount"), SQLDataType.DECIMAL(10, 2), this, "");
+
+        ItemTable() {
+            super(DSL.name("t_item"));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.febit.lang.protocol.IResponse;
+import org.febit.lang.util.JacksonUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderedErrorsTest {
+
+    static final Instant TIME = Instant.parse("2024-01-02T03:04:05.678Z");
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parse(byte[] bytes) throws IOException {
+        return new ObjectMapper().readValue(bytes, Map.class);
+    }
+
+    @Test
+    void response() throws IOException {
+        var response = IResponse.failed(403, "FORBIDDEN", "Quote \" and 中文");
+        var rendered = RenderedErrors.of(response);
+
+        // Arbitrary responses are rendered on demand
+        assertNotSame(rendered, RenderedErrors.of(IResponse.failed(403, "FORBIDDEN", "Quote \" and 中文")));
+        assertEquals(403, rendered.getStatus());
+
+        var json = parse(rendered.toBytes(TIME));
+        assertEquals(Boolean.FALSE, json.get("success"));
+        assertEquals("FORBIDDEN", json.get("code"));
+        assertEquals("Quote \" and 中文", json.get("message"));
+        assertEquals("2024-01-02T03:04:05.678Z", json.get("timestamp"));
+        assertFalse(json.containsKey("status"));
+        assertFalse(json.containsKey("data"));
+    }
+
+    @Test
+    void jacksonParity() {
+        var responses = List.<IResponse<?>>of(
+                IResponse.failed(403, "FORBIDDEN", "Quote \" and 中文 \u2028"),
+                IResponse.failed(500, "ERR", null),
+                IResponse.failed(599, null, "Unknown status"),
+                RenderedErrors.of(AuthErrors.UNAUTHORIZED, "Unauthorized", Locale.ROOT).toResponse()
+        );
+        for (var response : responses) {
+            var rendered = RenderedErrors.of(response);
+            assertEquals(
+                    JacksonUtils.toJsonString(response),
+                    new String(rendered.toBytes(response.getTimestamp()), StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+    @Test
+    void nullMessage() throws IOException {
+        var json = parse(RenderedErrors.of(IResponse.failed(500, "ERR", null)).toBytes(TIME));
+        assertEquals("ERR", json.get("code"));
+        assertFalse(json.containsKey("message"));
+    }
+
+    @Test
+    void error() throws Exception {
+        var rendered = RenderedErrors.of(AuthErrors.UNAUTHORIZED, "Unauthorized", Locale.ROOT);
+        assertSame(rendered, RenderedErrors.of(AuthErrors.UNAUTHORIZED, "Unauthorized", Locale.ROOT));
+        assertEquals(AuthErrors.UNAUTHORIZED.getStatus(), rendered.getStatus());
+
+        var json = parse(rendered.toBytes(TIME));
+        assertEquals(AuthErrors.UNAUTHORIZED.name(), json.get("code"));
+        assertEquals("Unauthorized", json.get("message"));
+
+        // Found back by the handed out response
+        var response = rendered.toResponse();
+        assertEquals(AuthErrors.UNAUTHORIZED.getStatus(), response.getStatus());
+        assertEquals(AuthErrors.UNAUTHORIZED.name(), response.getCode());
+        assertEquals("Unauthorized", response.getMessage());
+        assertSame(rendered, RenderedErrors.of(response));
+        assertSame(rendered, RenderedErrors.find(rendered.toException().toResponse()));
+        assertNull(RenderedErrors.find(IResponse.failed(401, "UNAUTHORIZED", "Other")));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.web.component;
+
+import org.febit.boot.model.SeekCursor;
+import org.febit.lang.protocol.BusinessException;
+import org.febit.lang.protocol.Pagination;
+import org.febit.lang.protocol.Sort;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeekCursorArgumentResolverTest {
+
+    @SuppressWarnings("unused")
+    void handle(SeekCursor cursor, Pagination page) {
+        // Only for method parameters
+    }
+
+    @Test
+    void resolve() throws Exception {
+        var method = getClass().getDeclaredMethod("handle", SeekCursor.class, Pagination.class);
+        var cursorParam = new MethodParameter(method, 0);
+        var resolver = new SeekCursorArgumentResolver();
+
+        assertTrue(resolver.supportsParameter(cursorParam));
+        assertFalse(resolver.supportsParameter(new MethodParameter(method, 1)));
+
+        var request = new MockHttpServletRequest();
+        assertNull(resolver.resolveArgument(cursorParam, null, new ServletWebRequest(request), null));
+
+        var cursor = SeekCursor.of(List.of(
+                new SeekCursor.Key("id", Sort.Direction.ASC, "1")
+        ));
+        request.setParameter(SeekCursor.PARAM, cursor.encode());
+        assertEquals(cursor, resolver.resolveArgument(cursorParam, null, new ServletWebRequest(request), null));
+
+        request.setParameter(SeekCursor.PARAM, "not a cursor");
+        var webRequest = new ServletWebRequest(request);
+        assertThrows(BusinessException.class, () -> resolver.resolveArgument(cursorParam, null, webRequest, null));
+    }
+}
@@ -19,6 +19,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.febit.boot.util.Errors;
+import org.febit.boot.util.RenderedErrors;
 import org.febit.lang.protocol.IBasicApi;
 import org.febit.lang.protocol.IResponse;
 import org.springframework.http.MediaType;
@@ -53,4 +54,9 @@ public class CommonApi implements IBasicApi {
     public IResponse<String> exception403() {
         throw Errors.FORBIDDEN.exception("Exception {0}", "FORBIDDEN");
     }
+
+    @GetMapping(value = "/exception-404-rendered")
+    public IResponse<String> exception404Rendered() {
+        throw RenderedErrors.of(Errors.NOT_FOUND, "Rendered not found").toException();
+    }
 }
@@ -18,10 +18,12 @@ package org.febit.boot.web.mockmvc.basic.api;
 import org.febit.boot.web.mockmvc.basic.BaseMvcTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.febit.boot.web.mockmvc.JsonPathUtils.j;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -69,4 +71,18 @@ class CommonApiTest extends BaseMvcTest {
         ;
     }
 
+    @Test
+    void exception404Rendered() throws Exception {
+        mockMvc.perform(get("/api/v1/common/exception-404-rendered"))
+                .andExpect(status().is(404))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").doesNotExist())
+                .andExpect(j("$.code", "NOT_FOUND"))
+                .andExpect(j("$.message", "Rendered not found"))
+                .andExpect(jsonPath("$.timestamp").exists())
+                .andExpect(j("$.success", false))
+                .andExpect(jsonPath("$.data").doesNotExist())
+        ;
+    }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.web.util;
+
+import jakarta.servlet.http.Cookie;
+import org.febit.boot.auth.web.CachingWebRequestAuthSubjectResolver;
+import org.febit.boot.auth.web.WebRequestAuthSubjectResolver;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingWebRequestAuthSubjectResolverTest {
+
+    static final String HEADER = "X-Auth-Code";
+
+    final AtomicInteger counter = new AtomicInteger();
+
+    final WebRequestAuthSubjectResolver<TestAuthSubject> delegate = request -> {
+        counter.incrementAndGet();
+        var code = request.getHeader(HEADER);
+        if (code == null) {
+            var cookies = ((ServletWebRequest) request).getRequest().getCookies();
+            code = cookies != null ? cookies[0].getValue() : null;
+        }
+        return code == null || code.startsWith("invalid")
+                ? Optional.empty()
+                : Optional.of(new TestAuthSubject(code, code));
+    };
+
+    static ServletWebRequest request(String code) {
+        var request = new MockHttpServletRequest();
+        request.addHeader(HEADER, code);
+        return new ServletWebRequest(request);
+    }
+
+    @Test
+    void header() {
+        var resolver = CachingWebRequestAuthSubjectResolver.builder(delegate)
+                .header(HEADER)
+                .build();
+
+        var foo = resolver.resolveAuth(request("foo")).orElseThrow();
+        assertSame(foo, resolver.resolveAuth(request("foo")).orElseThrow());
+        assertEquals(1, counter.get());
+
+        assertEquals("bar", resolver.resolveAuth(request("bar")).orElseThrow().identifier());
+        assertEquals(2, counter.get());
+
+        // negative caching
+        assertTrue(resolver.resolveAuth(request("invalid")).isEmpty());
+        assertTrue(resolver.resolveAuth(request("invalid")).isEmpty());
+        assertEquals(3, counter.get());
+
+        // without credential
+        var anonymous = new ServletWebRequest(new MockHttpServletRequest());
+        assertTrue(resolver.resolveAuth(anonymous).isEmpty());
+        assertTrue(resolver.resolveAuth(anonymous).isEmpty());
+        assertEquals(5, counter.get());
+
+        var stats = resolver.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(3, stats.missCount());
+
+        resolver.invalidate("foo");
+        assertNotSame(foo, resolver.resolveAuth(request("foo")).orElseThrow());
+        assertEquals(6, counter.get());
+    }
+
+    @Test
+    void cookie() {
+        var resolver = CachingWebRequestAuthSubjectResolver.builder(delegate)
+                .cookie("token")
+                .build();
+
+        var servletRequest = new MockHttpServletRequest();
+        servletRequest.setCookies(new Cookie("token", "foo"));
+        var request = new ServletWebRequest(servletRequest);
+
+        var foo = resolver.resolveAuth(request).orElseThrow();
+        assertSame(foo, resolver.resolveAuth(request).orElseThrow());
+        assertEquals(1, counter.get());
+        assertEquals(1, resolver.estimatedSize());
+    }
+
+    @Test
+    void credentialRequired() {
+        var builder = CachingWebRequestAuthSubjectResolver.builder(delegate);
+        assertThrows(NullPointerException.class, builder::build);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.web.util;
+
+import org.febit.boot.auth.AuthConstants;
+import org.febit.boot.auth.web.DeferredAuthSubject;
+import org.febit.boot.auth.web.RequestAttributeAuthSupplier;
+import org.febit.boot.auth.web.WebRequestAuthSubjectResolver;
+import org.febit.boot.web.mockmvc.auth.component.TestAuthSubject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredAuthSubjectTest {
+
+    @AfterEach
+    void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void resolveOnDemand() {
+        var counter = new AtomicInteger();
+        var auth = new TestAuthSubject("foo", "foo");
+        WebRequestAuthSubjectResolver<TestAuthSubject> resolver = request -> {
+            counter.incrementAndGet();
+            return Optional.of(auth);
+        };
+
+        var request = new ServletWebRequest(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        DeferredAuthSubject.defer(request, resolver);
+
+        assertEquals(0, counter.get());
+        assertNull(request.getAttribute(AuthConstants.ATTR_AUTH, RequestAttributes.SCOPE_REQUEST));
+
+        var supplier = RequestAttributeAuthSupplier.create(TestAuthSubject.class);
+        assertSame(auth, supplier.get().orElseThrow());
+        assertSame(auth, supplier.get().orElseThrow());
+        assertEquals(1, counter.get());
+
+        assertSame(auth, request.getAttribute(AuthConstants.ATTR_AUTH, RequestAttributes.SCOPE_REQUEST));
+        assertEquals("foo", request.getAttribute(AuthConstants.ATTR_AUTH_ID, RequestAttributes.SCOPE_REQUEST));
+        assertNull(request.getAttribute(AuthConstants.ATTR_AUTH_DEFERRED, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    @Test
+    void memoizeAbsent() {
+        var counter = new AtomicInteger();
+        WebRequestAuthSubjectResolver<TestAuthSubject> resolver = request -> {
+            counter.incrementAndGet();
+            return Optional.empty();
+        };
+
+        var request = new ServletWebRequest(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        var deferred = DeferredAuthSubject.defer(request, resolver);
+
+        var supplier = RequestAttributeAuthSupplier.create(TestAuthSubject.class);
+        assertTrue(supplier.get().isEmpty());
+        assertTrue(supplier.get().isEmpty());
+        assertTrue(deferred.resolve().isEmpty());
+        assertEquals(1, counter.get());
+
+        assertFalse(DeferredAuthSubject.resolveIfDeferred(request));
+    }
+
+    @Test
+    void captureUnresolved() {
+        var counter = new AtomicInteger();
+        var auth = new TestAuthSubject("foo", "foo");
+        WebRequestAuthSubjectResolver<TestAuthSubject> resolver = request -> {
+            counter.incrementAndGet();
+            return Optional.of(auth);
+        };
+
+        var request = new ServletWebRequest(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        DeferredAuthSubject.defer(request, resolver);
+
+        var supplier = RequestAttributeAuthSupplier.create(TestAuthSubject.class);
+        var captured = supplier.capture();
+        assertNotNull(captured);
+        assertEquals(0, counter.get());
+
+        // Resolved after the request completed
+        request.requestCompleted();
+        RequestContextHolder.resetRequestAttributes();
+        assertSame(auth, captured.get().orElseThrow());
+        assertSame(auth, captured.get().orElseThrow());
+        assertEquals(1, counter.get());
+        assertNull(supplier.capture());
+    }
+}
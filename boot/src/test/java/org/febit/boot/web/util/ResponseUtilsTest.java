@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022-present febit.org (support@febit.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.febit.boot.web.util;
+
+import org.febit.boot.util.RenderedErrors;
+import org.febit.lang.protocol.IResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseUtilsTest {
+
+    @Test
+    void writeUnknownStatus() throws Exception {
+        var response = new MockHttpServletResponse();
+        ResponseUtils.write(response, RenderedErrors.of(IResponse.failed(599, "ERR", "Unknown status")));
+
+        assertEquals(599, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertTrue(response.getContentAsString().contains("\"code\":\"ERR\""));
+    }
+}